@@ -0,0 +1,30 @@
+package com.geotab.sdk.datafeed;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the data feed benchmarks with the JMH command line options given, always together with the
+ * GC profiler, so every result comes with its allocation rate next to its operations per second.
+ */
+public final class DataFeedBenchmarks {
+
+  private DataFeedBenchmarks() {
+  }
+
+  /**
+   * Run the benchmarks.
+   *
+   * @param args The JMH options, e.g. a benchmark name pattern or -p batchSize=50000.
+   */
+  public static void main(String[] args) throws Exception {
+    Options options = new OptionsBuilder()
+        .parent(new CommandLineOptions(args))
+        .addProfiler(GCProfiler.class)
+        .build();
+    new Runner(options).run();
+  }
+}
@@ -0,0 +1,276 @@
+package com.geotab.sdk.datafeed;
+
+import com.geotab.model.entity.Entity;
+import com.geotab.model.entity.controller.Controller;
+import com.geotab.model.entity.device.Device;
+import com.geotab.model.entity.diagnostic.BasicDiagnostic;
+import com.geotab.model.entity.diagnostic.Diagnostic;
+import com.geotab.model.entity.failuremode.FailureMode;
+import com.geotab.model.entity.faultdata.FaultData;
+import com.geotab.model.entity.logrecord.LogRecord;
+import com.geotab.model.entity.rule.Rule;
+import com.geotab.model.entity.source.Source;
+import com.geotab.model.entity.statusdata.StatusData;
+import com.geotab.model.entity.trip.Trip;
+import com.geotab.model.entity.unitofmeasure.UnitOfMeasure;
+import com.geotab.model.entity.user.Driver;
+import com.geotab.sdk.datafeed.loader.DataFeedResult;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+
+/**
+ * Synthetic fleet and feed pages for the benchmarks.
+ *
+ * <p>The fleet holds the entities the feed data refers to, as the caches hold them. A feed page
+ * either refers to them by id only, as GetFeed returns it, or holds the entities themselves, as it
+ * is exported. The data is random but repeatable, and about one name in ten contains a comma, so
+ * the exporters escape some of the values.
+ */
+public final class SyntheticFeedData {
+
+  public static final int DEVICES = 1_000;
+
+  public static final int DRIVERS = 500;
+
+  public static final int DIAGNOSTICS = 300;
+
+  public static final int CONTROLLERS = 20;
+
+  public static final int UNITS_OF_MEASURE = 10;
+
+  public static final int FAILURE_MODES = 50;
+
+  public static final int RULES = 20;
+
+  private static final LocalDateTime START = LocalDateTime.of(2020, 6, 1, 0, 0);
+
+  private final Random random = new Random(42);
+
+  private final Source source = new Source();
+
+  private final List<Controller> controllers = new ArrayList<>();
+
+  private final List<UnitOfMeasure> unitsOfMeasure = new ArrayList<>();
+
+  private final List<Diagnostic> diagnostics = new ArrayList<>();
+
+  private final List<FailureMode> failureModes = new ArrayList<>();
+
+  private final List<Device> devices = new ArrayList<>();
+
+  private final List<Driver> drivers = new ArrayList<>();
+
+  private final List<Rule> rules = new ArrayList<>();
+
+  public SyntheticFeedData() {
+    source.setName("J1939");
+
+    for (int i = 0; i < CONTROLLERS; i++) {
+      Controller controller = Controller.builder().id("controller" + i).build();
+      controller.setName(name("Controller", i));
+      controller.setSource(source);
+      controllers.add(controller);
+    }
+    for (int i = 0; i < UNITS_OF_MEASURE; i++) {
+      UnitOfMeasure unitOfMeasure = UnitOfMeasure.builder().id("unit" + i).build();
+      unitOfMeasure.setName(name("Unit", i));
+      unitsOfMeasure.add(unitOfMeasure);
+    }
+    for (int i = 0; i < DIAGNOSTICS; i++) {
+      Diagnostic diagnostic = BasicDiagnostic.basicDiagnosticBuilder()
+          .id("diagnostic" + i)
+          .build();
+      diagnostic.setName(name("Diagnostic", i));
+      diagnostic.setCode(i);
+      diagnostic.setSource(source);
+      // the caches hold the controller and unit of measure of a diagnostic by id only
+      diagnostic.setController(
+          Controller.builder().id(pick(controllers).getId().getId()).build());
+      diagnostic.setUnitOfMeasure(
+          UnitOfMeasure.builder().id(pick(unitsOfMeasure).getId().getId()).build());
+      diagnostics.add(diagnostic);
+    }
+    for (int i = 0; i < FAILURE_MODES; i++) {
+      FailureMode failureMode = FailureMode.failureModeBuilder().id("failureMode" + i).build();
+      failureMode.setName(name("Failure mode", i));
+      failureMode.setCode(i);
+      failureMode.setSource(source);
+      failureModes.add(failureMode);
+    }
+    for (int i = 0; i < DEVICES; i++) {
+      Device device = Device.builder().id("device" + i).build();
+      device.setName(name("Vehicle", i));
+      device.setSerialNumber(String.format("G9%010d", i));
+      devices.add(device);
+    }
+    for (int i = 0; i < DRIVERS; i++) {
+      Driver driver = Driver.driverBuilder().id("driver" + i).build();
+      driver.setName(name("driver", i) + "@example.com");
+      driver.setFirstName("First" + i);
+      driver.setLastName("Last" + i);
+      drivers.add(driver);
+    }
+    for (int i = 0; i < RULES; i++) {
+      Rule rule = Rule.ruleBuilder().id("rule" + i).build();
+      rule.setName(name("Rule", i));
+      rules.add(rule);
+    }
+  }
+
+  public List<Controller> getControllers() {
+    return Collections.unmodifiableList(controllers);
+  }
+
+  public List<UnitOfMeasure> getUnitsOfMeasure() {
+    return Collections.unmodifiableList(unitsOfMeasure);
+  }
+
+  public List<Diagnostic> getDiagnostics() {
+    return Collections.unmodifiableList(diagnostics);
+  }
+
+  public List<FailureMode> getFailureModes() {
+    return Collections.unmodifiableList(failureModes);
+  }
+
+  public List<Device> getDevices() {
+    return Collections.unmodifiableList(devices);
+  }
+
+  public List<Driver> getDrivers() {
+    return Collections.unmodifiableList(drivers);
+  }
+
+  public List<Rule> getRules() {
+    return Collections.unmodifiableList(rules);
+  }
+
+  /**
+   * Create a page of every feed type with the referenced entities populated, as exported.
+   *
+   * @param batchSize The records per type.
+   * @return The batch.
+   */
+  public DataFeedResult populatedBatch(int batchSize) {
+    return DataFeedResult.builder()
+        .gpsRecords(logRecords(batchSize, true))
+        .statusData(statusData(batchSize, true))
+        .faultData(faultData(batchSize, true))
+        .trips(trips(batchSize, true))
+        .exceptionEvents(new ArrayList<>())
+        .build();
+  }
+
+  /**
+   * Create a page of LogRecords.
+   *
+   * @param count     The records.
+   * @param populated Whether the records hold the referenced entities, or refer to them by id.
+   * @return The records.
+   */
+  public List<LogRecord> logRecords(int count, boolean populated) {
+    List<LogRecord> logRecords = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      LogRecord logRecord = new LogRecord();
+      logRecord.setDevice(reference(pick(devices), populated,
+          id -> Device.builder().id(id).build()));
+      logRecord.setDateTime(START.plusSeconds(i));
+      logRecord.setLongitude(-79.7 + random.nextDouble());
+      logRecord.setLatitude(43.4 + random.nextDouble());
+      logRecord.setSpeed((float) random.nextInt(120));
+      logRecords.add(logRecord);
+    }
+    return logRecords;
+  }
+
+  /**
+   * Create a page of StatusData.
+   *
+   * @param count     The records.
+   * @param populated Whether the records hold the referenced entities, or refer to them by id.
+   * @return The records.
+   */
+  public List<StatusData> statusData(int count, boolean populated) {
+    List<StatusData> statusData = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      StatusData data = new StatusData();
+      data.setDevice(reference(pick(devices), populated, id -> Device.builder().id(id).build()));
+      data.setDiagnostic(reference(pick(diagnostics), populated,
+          id -> BasicDiagnostic.basicDiagnosticBuilder().id(id).build()));
+      data.setController(reference(pick(controllers), populated,
+          id -> Controller.builder().id(id).build()));
+      data.setDateTime(START.plusSeconds(i));
+      data.setData(random.nextDouble() * 1_000);
+      statusData.add(data);
+    }
+    return statusData;
+  }
+
+  /**
+   * Create a page of FaultData.
+   *
+   * @param count     The records.
+   * @param populated Whether the records hold the referenced entities, or refer to them by id.
+   * @return The records.
+   */
+  public List<FaultData> faultData(int count, boolean populated) {
+    List<FaultData> faultData = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      FaultData data = new FaultData();
+      data.setDevice(reference(pick(devices), populated, id -> Device.builder().id(id).build()));
+      data.setDiagnostic(reference(pick(diagnostics), populated,
+          id -> BasicDiagnostic.basicDiagnosticBuilder().id(id).build()));
+      data.setController(reference(pick(controllers), populated,
+          id -> Controller.builder().id(id).build()));
+      data.setFailureMode(reference(pick(failureModes), populated,
+          id -> FailureMode.failureModeBuilder().id(id).build()));
+      data.setDateTime(START.plusSeconds(i));
+      data.setCount(1 + random.nextInt(10));
+      data.setMalfunctionLamp(random.nextBoolean());
+      data.setRedStopLamp(false);
+      data.setAmberWarningLamp(random.nextBoolean());
+      data.setProtectWarningLamp(false);
+      faultData.add(data);
+    }
+    return faultData;
+  }
+
+  /**
+   * Create a page of Trips.
+   *
+   * @param count     The records.
+   * @param populated Whether the records hold the referenced entities, or refer to them by id.
+   * @return The records.
+   */
+  public List<Trip> trips(int count, boolean populated) {
+    List<Trip> trips = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      Trip trip = new Trip();
+      trip.setDevice(reference(pick(devices), populated, id -> Device.builder().id(id).build()));
+      trip.setDriver(reference(pick(drivers), populated,
+          id -> Driver.driverBuilder().id(id).build()));
+      trip.setStart(START.plusMinutes(i));
+      trip.setStop(START.plusMinutes(i).plusSeconds(1 + random.nextInt(3_600)));
+      trip.setDistance(random.nextFloat() * 100);
+      trips.add(trip);
+    }
+    return trips;
+  }
+
+  private <T> T pick(List<T> entities) {
+    return entities.get(random.nextInt(entities.size()));
+  }
+
+  private static <T extends Entity> T reference(T entity, boolean populated,
+      Function<String, T> byId) {
+    return populated ? entity : byId.apply(entity.getId().getId());
+  }
+
+  private String name(String prefix, int index) {
+    return random.nextInt(10) == 0 ? prefix + " " + index + ", spare" : prefix + " " + index;
+  }
+}
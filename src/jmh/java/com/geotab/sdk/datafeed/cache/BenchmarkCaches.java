@@ -0,0 +1,49 @@
+package com.geotab.sdk.datafeed.cache;
+
+import com.geotab.sdk.datafeed.SyntheticFeedData;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Collection;
+
+/**
+ * Writes the synthetic fleet as cache snapshots, so the benchmarks restore warm caches without
+ * calling Geotab.
+ */
+public final class BenchmarkCaches {
+
+  private BenchmarkCaches() {
+  }
+
+  /**
+   * Write a snapshot file per cached entity type, named the way the data feed loader restores them.
+   *
+   * @param folder The snapshot folder.
+   * @param data   The fleet.
+   */
+  public static void writeSnapshots(Path folder, SyntheticFeedData data) throws IOException {
+    write(folder, "Controller", data.getControllers());
+    write(folder, "UnitOfMeasure", data.getUnitsOfMeasure());
+    write(folder, "Diagnostic", data.getDiagnostics());
+    write(folder, "FailureMode", data.getFailureModes());
+    write(folder, "Device", data.getDevices());
+    write(folder, "Driver", data.getDrivers());
+    write(folder, "Rule", data.getRules());
+  }
+
+  /**
+   * Get the snapshot file of an entity type.
+   *
+   * @param folder     The snapshot folder.
+   * @param entityType The entity type, e.g. Device.
+   * @return The file.
+   */
+  public static Path snapshotFile(Path folder, String entityType) {
+    return folder.resolve(entityType + ".json.gz");
+  }
+
+  private static void write(Path folder, String entityType, Collection<?> entities)
+      throws IOException {
+    CacheSnapshotFile.write(snapshotFile(folder, entityType), Instant.now(), null, entities);
+  }
+}
@@ -0,0 +1,83 @@
+package com.geotab.sdk.datafeed.cache;
+
+import com.geotab.model.entity.diagnostic.Diagnostic;
+import com.geotab.sdk.datafeed.SyntheticFeedData;
+import com.google.common.io.MoreFiles;
+import com.google.common.io.RecursiveDeleteOption;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * {@link DiagnosticCache#get(String)} of a batch of Diagnostic ids, including the enrichment with
+ * the controller and unit of measure of each diagnostic from their caches.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dlog4j.configuration=log4j-benchmark.properties")
+public class DiagnosticCacheBenchmark {
+
+  @Param({"1000", "10000"})
+  private int batchSize;
+
+  private Path snapshotFolder;
+
+  private DiagnosticCache diagnosticCache;
+
+  private String[] ids;
+
+  @Setup
+  public void setUp() throws Exception {
+    SyntheticFeedData data = new SyntheticFeedData();
+    snapshotFolder = Files.createTempDirectory("diagnostic-cache-benchmark");
+    BenchmarkCaches.writeSnapshots(snapshotFolder, data);
+
+    ControllerCache controllerCache = new ControllerCache(null,
+        GeotabEntityCache.DEFAULT_CACHE_SPEC);
+    controllerCache.restoreSnapshot(BenchmarkCaches.snapshotFile(snapshotFolder, "Controller"));
+    UnitOfMeasureCache unitOfMeasureCache = new UnitOfMeasureCache(null,
+        GeotabEntityCache.DEFAULT_CACHE_SPEC);
+    unitOfMeasureCache
+        .restoreSnapshot(BenchmarkCaches.snapshotFile(snapshotFolder, "UnitOfMeasure"));
+    diagnosticCache = new DiagnosticCache(null, controllerCache, unitOfMeasureCache,
+        GeotabEntityCache.DEFAULT_CACHE_SPEC);
+    diagnosticCache.restoreSnapshot(BenchmarkCaches.snapshotFile(snapshotFolder, "Diagnostic"));
+
+    Random random = new Random(42);
+    List<Diagnostic> diagnostics = data.getDiagnostics();
+    ids = new String[batchSize];
+    for (int i = 0; i < batchSize; i++) {
+      ids[i] = diagnostics.get(random.nextInt(diagnostics.size())).getId().getId();
+    }
+  }
+
+  @TearDown
+  public void tearDown() throws Exception {
+    MoreFiles.deleteRecursively(snapshotFolder, RecursiveDeleteOption.ALLOW_INSECURE);
+  }
+
+  @Benchmark
+  public void get(Blackhole blackhole) {
+    for (String id : ids) {
+      blackhole.consume(diagnosticCache.get(id));
+    }
+  }
+}
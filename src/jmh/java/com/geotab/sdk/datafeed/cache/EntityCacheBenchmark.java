@@ -0,0 +1,158 @@
+package com.geotab.sdk.datafeed.cache;
+
+import com.geotab.http.request.AuthenticatedRequest;
+import com.geotab.http.request.param.SearchParameters;
+import com.geotab.model.entity.device.Device;
+import com.geotab.model.entity.device.NoDevice;
+import com.geotab.model.search.IdSearch;
+import com.geotab.sdk.datafeed.SyntheticFeedData;
+import com.google.common.io.MoreFiles;
+import com.google.common.io.RecursiveDeleteOption;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.slf4j.Logger;
+
+/**
+ * {@link GeotabEntityCache#get(String)} of a batch of Device ids, served from the snapshot, from
+ * the loading cache, or loaded on every call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dlog4j.configuration=log4j-benchmark.properties")
+public class EntityCacheBenchmark {
+
+  @Param({"1000", "10000"})
+  private int batchSize;
+
+  private Path snapshotFolder;
+
+  private DeviceCache snapshotCache;
+
+  private SyntheticDeviceCache loadingCache;
+
+  private SyntheticDeviceCache missingCache;
+
+  private String[] ids;
+
+  @Setup
+  public void setUp() throws Exception {
+    SyntheticFeedData data = new SyntheticFeedData();
+    snapshotFolder = Files.createTempDirectory("cache-benchmark");
+    BenchmarkCaches.writeSnapshots(snapshotFolder, data);
+
+    snapshotCache = new DeviceCache(null, GeotabEntityCache.DEFAULT_CACHE_SPEC);
+    snapshotCache.restoreSnapshot(BenchmarkCaches.snapshotFile(snapshotFolder, "Device"));
+
+    loadingCache = new SyntheticDeviceCache(GeotabEntityCache.DEFAULT_CACHE_SPEC);
+    // holds a single device, so nearly every get is a miss
+    missingCache = new SyntheticDeviceCache("maximumSize=1");
+
+    Random random = new Random(42);
+    List<Device> devices = data.getDevices();
+    ids = new String[batchSize];
+    for (int i = 0; i < batchSize; i++) {
+      ids[i] = devices.get(random.nextInt(devices.size())).getId().getId();
+    }
+    loadingCache.preload(Arrays.asList(ids));
+  }
+
+  @TearDown
+  public void tearDown() throws Exception {
+    MoreFiles.deleteRecursively(snapshotFolder, RecursiveDeleteOption.ALLOW_INSECURE);
+  }
+
+  @Benchmark
+  public void snapshotHit(Blackhole blackhole) {
+    for (String id : ids) {
+      blackhole.consume(snapshotCache.get(id));
+    }
+  }
+
+  @Benchmark
+  public void loadingCacheHit(Blackhole blackhole) {
+    for (String id : ids) {
+      blackhole.consume(loadingCache.get(id));
+    }
+  }
+
+  @Benchmark
+  public void miss(Blackhole blackhole) {
+    for (String id : ids) {
+      blackhole.consume(missingCache.get(id));
+    }
+  }
+
+  /**
+   * Device cache without a snapshot which creates the devices it loads, so a miss measures the
+   * cache itself rather than a call to Geotab.
+   */
+  @Slf4j
+  private static final class SyntheticDeviceCache extends GeotabEntityCache<Device> {
+
+    private SyntheticDeviceCache(String cacheSpec) {
+      super(null, NoDevice.getInstance(), cacheSpec);
+    }
+
+    @Override
+    protected Logger getLog() {
+      return log;
+    }
+
+    @Override
+    protected Class<Device> getEntityType() {
+      return Device.class;
+    }
+
+    @Override
+    protected SearchParameters searchById(String id) {
+      return SearchParameters.searchParamsBuilder()
+          .search(new IdSearch(id))
+          .typeName("Device")
+          .build();
+    }
+
+    @Override
+    protected Optional<Device> fetchEntity(String id) {
+      return Optional.of(createFakeCacheable(id));
+    }
+
+    @Override
+    protected List<List<Device>> fetchMultiCall(AuthenticatedRequest<?> request) {
+      // the benchmarks only miss one id at a time
+      return Collections.emptyList();
+    }
+
+    @Override
+    protected Optional<List<Device>> fetchAll() {
+      return Optional.of(Collections.emptyList());
+    }
+
+    @Override
+    protected Device createFakeCacheable(String id) {
+      return Device.builder().id(id).build();
+    }
+  }
+}
@@ -0,0 +1,56 @@
+package com.geotab.sdk.datafeed.exporter;
+
+import com.geotab.sdk.datafeed.SyntheticFeedData;
+import com.geotab.sdk.datafeed.loader.DataFeedResult;
+import com.google.common.io.CharStreams;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The formatting of a batch of every data type by the {@link ConsoleExporter}, printed to a writer
+ * which discards it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dlog4j.configuration=log4j-benchmark.properties")
+public class ConsoleExporterBenchmark {
+
+  @Param({"1000", "10000"})
+  private int batchSize;
+
+  private ConsoleExporter exporter;
+
+  private DataFeedResult batch;
+
+  @Setup
+  public void setUp() {
+    exporter = new ConsoleExporter(CharStreams.nullWriter());
+    batch = new SyntheticFeedData().populatedBatch(batchSize);
+  }
+
+  @TearDown
+  public void tearDown() throws Exception {
+    exporter.close();
+  }
+
+  @Benchmark
+  public void print() throws IOException {
+    // nothing is queued, so the batch is printed on the benchmark thread
+    exporter.print(batch);
+  }
+}
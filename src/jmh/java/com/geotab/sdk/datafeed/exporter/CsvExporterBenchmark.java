@@ -0,0 +1,69 @@
+package com.geotab.sdk.datafeed.exporter;
+
+import com.geotab.sdk.datafeed.SyntheticFeedData;
+import com.geotab.sdk.datafeed.loader.DataFeedResult;
+import com.google.common.io.MoreFiles;
+import com.google.common.io.RecursiveDeleteOption;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link CsvExporter#export(DataFeedResult)} of a batch of every data type, i.e. the encoding of
+ * the rows and their buffered write to the files, flushed once per export.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dlog4j.configuration=log4j-benchmark.properties")
+public class CsvExporterBenchmark {
+
+  @Param({"1000", "10000"})
+  private int batchSize;
+
+  /**
+   * The gzip level of the files; 0 for plain CSV.
+   */
+  @Param({"0", "1"})
+  private int compressionLevel;
+
+  private Path outputFolder;
+
+  private CsvExporter exporter;
+
+  private DataFeedResult batch;
+
+  @Setup
+  public void setUp() throws Exception {
+    outputFolder = Files.createTempDirectory("csv-exporter-benchmark");
+    exporter = new CsvExporter(outputFolder.toString(), CsvExporter.DEFAULT_ROTATE_SIZE,
+        CsvExporter.DEFAULT_ROTATE_INTERVAL, Duration.ZERO, compressionLevel);
+    batch = new SyntheticFeedData().populatedBatch(batchSize);
+  }
+
+  @TearDown
+  public void tearDown() throws Exception {
+    exporter.close();
+    MoreFiles.deleteRecursively(outputFolder, RecursiveDeleteOption.ALLOW_INSECURE);
+  }
+
+  @Benchmark
+  public void export() throws Exception {
+    exporter.export(batch);
+  }
+}
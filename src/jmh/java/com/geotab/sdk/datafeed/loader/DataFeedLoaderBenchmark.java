@@ -0,0 +1,103 @@
+package com.geotab.sdk.datafeed.loader;
+
+import com.geotab.model.entity.faultdata.FaultData;
+import com.geotab.model.entity.logrecord.LogRecord;
+import com.geotab.model.entity.statusdata.StatusData;
+import com.geotab.model.entity.trip.Trip;
+import com.geotab.sdk.datafeed.SyntheticFeedData;
+import com.geotab.sdk.datafeed.cache.BenchmarkCaches;
+import com.geotab.sdk.datafeed.cli.CommandLineArguments;
+import com.google.common.io.MoreFiles;
+import com.google.common.io.RecursiveDeleteOption;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The population of a feed page from the caches by the {@link DataFeedLoader}: the preload of the
+ * referenced ids and the get of every referenced entity. The caches are restored from snapshots of
+ * the synthetic fleet, so nothing is loaded from Geotab. Populating a page again replaces its
+ * entities with the same cached ones, so every invocation does the same work.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dlog4j.configuration=log4j-benchmark.properties")
+public class DataFeedLoaderBenchmark {
+
+  @Param({"1000", "10000"})
+  private int batchSize;
+
+  private Path snapshotFolder;
+
+  private DataFeedLoader loader;
+
+  private List<LogRecord> logRecords;
+
+  private List<StatusData> statusData;
+
+  private List<FaultData> faultData;
+
+  private List<Trip> trips;
+
+  @Setup
+  public void setUp() throws Exception {
+    SyntheticFeedData data = new SyntheticFeedData();
+    snapshotFolder = Files.createTempDirectory("loader-benchmark");
+    BenchmarkCaches.writeSnapshots(snapshotFolder, data);
+
+    loader = new DataFeedLoader(new CommandLineArguments(new String[]{
+        "-s", "localhost", "-d", "benchmark", "-u", "benchmark", "-p", "benchmark",
+        "-sd", snapshotFolder.toString()}));
+
+    logRecords = data.logRecords(batchSize, false);
+    statusData = data.statusData(batchSize, false);
+    faultData = data.faultData(batchSize, false);
+    trips = data.trips(batchSize, false);
+  }
+
+  @TearDown
+  public void tearDown() throws Exception {
+    loader.stop();
+    MoreFiles.deleteRecursively(snapshotFolder, RecursiveDeleteOption.ALLOW_INSECURE);
+  }
+
+  @Benchmark
+  public List<LogRecord> populateLogRecords() {
+    loader.populateLogRecords(logRecords);
+    return logRecords;
+  }
+
+  @Benchmark
+  public List<StatusData> populateStatusData() {
+    loader.populateStatusData(statusData);
+    return statusData;
+  }
+
+  @Benchmark
+  public List<FaultData> populateFaultData() {
+    loader.populateFaultData(faultData);
+    return faultData;
+  }
+
+  @Benchmark
+  public List<Trip> populateTrips() {
+    loader.populateTrips(trips);
+    return trips;
+  }
+}
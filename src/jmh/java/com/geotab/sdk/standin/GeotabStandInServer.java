@@ -0,0 +1,445 @@
+package com.geotab.sdk.standin;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.sun.net.httpserver.HttpsConfigurator;
+import com.sun.net.httpserver.HttpsServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.security.KeyStore;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * In-process stand-in of a MyGeotab server, answering the JSON-RPC calls of the SDK from a
+ * synthetic {@link StandInFleet}, so the data feed and the import apps run without a live server.
+ *
+ * <p>Implements Authenticate, Get (all entities, or searched by id or name), GetFeed (the feed
+ * records, and the Device and User changes), Add and ExecuteMultiCall. Every call takes the
+ * configured latency, and may fail with an OverLimitException or a DbUnavailableException, at
+ * random or when over the quota of its method. Serves HTTPS when given a key store, as the SDK
+ * connects over HTTPS; plain HTTP otherwise.
+ */
+@Slf4j
+public class GeotabStandInServer implements AutoCloseable {
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  private static final String FORM_PREFIX = "JSON-RPC=";
+
+  private final StandInConfig config;
+
+  private final StandInFleet fleet;
+
+  private final HttpServer server;
+
+  private final ExecutorService executor;
+
+  private final String sessionId = UUID.randomUUID().toString();
+
+  private final Map<String, AtomicLong> calls = new ConcurrentHashMap<>();
+
+  private final Map<String, AtomicLong> servedRecords = new ConcurrentHashMap<>();
+
+  private final AtomicLong injectedFailures = new AtomicLong();
+
+  /**
+   * The calls of the current minute by method, against the quotas.
+   */
+  private final Map<String, AtomicLong> minuteCalls = new ConcurrentHashMap<>();
+
+  private volatile long minute;
+
+  /**
+   * Create and start the server.
+   *
+   * @param config The configuration.
+   */
+  public GeotabStandInServer(StandInConfig config) throws Exception {
+    this.config = config;
+    this.fleet = new StandInFleet(config);
+
+    InetSocketAddress address = new InetSocketAddress("localhost", config.getPort());
+    if (config.getKeyStore() != null) {
+      HttpsServer httpsServer = HttpsServer.create(address, 0);
+      httpsServer.setHttpsConfigurator(new HttpsConfigurator(sslContext()));
+      this.server = httpsServer;
+    } else {
+      this.server = HttpServer.create(address, 0);
+    }
+
+    this.executor = Executors.newFixedThreadPool(config.getThreads(),
+        new ThreadFactoryBuilder().setNameFormat("stand-in-%d").setDaemon(true).build());
+    this.server.setExecutor(executor);
+    this.server.createContext("/", this::handle);
+    this.server.start();
+
+    log.info("Stand-in server listening on {}", getServer());
+  }
+
+  /**
+   * Get the server to give the SDK, i.e. host and port.
+   *
+   * @return The server, e.g. localhost:8443.
+   */
+  public String getServer() {
+    return "localhost:" + server.getAddress().getPort();
+  }
+
+  public long getCalls(String method) {
+    AtomicLong methodCalls = calls.get(method);
+    return methodCalls != null ? methodCalls.get() : 0;
+  }
+
+  public long getServedRecords(String typeName) {
+    AtomicLong records = servedRecords.get(typeName);
+    return records != null ? records.get() : 0;
+  }
+
+  public long getAddedEntities() {
+    return fleet.getAddedEntities();
+  }
+
+  public long getInjectedFailures() {
+    return injectedFailures.get();
+  }
+
+  /**
+   * Get the records of each feed type available now, i.e. the records a feed has to load to be
+   * caught up.
+   *
+   * @return The records.
+   */
+  public long getAvailableRecords() {
+    return fleet.getAvailableRecords();
+  }
+
+  @Override
+  public void close() {
+    server.stop(0);
+    executor.shutdownNow();
+    log.info("Stand-in server stopped; calls {}, records served {}, failures injected {}",
+        calls, servedRecords, injectedFailures);
+  }
+
+  private SSLContext sslContext() throws Exception {
+    char[] password = config.getKeyStorePassword() != null
+        ? config.getKeyStorePassword().toCharArray() : new char[0];
+    KeyStore keyStore = KeyStore.getInstance(KeyStore.getDefaultType());
+    try (InputStream inputStream = Files.newInputStream(Paths.get(config.getKeyStore()))) {
+      keyStore.load(inputStream, password);
+    }
+    KeyManagerFactory keyManagerFactory = KeyManagerFactory
+        .getInstance(KeyManagerFactory.getDefaultAlgorithm());
+    keyManagerFactory.init(keyStore, password);
+
+    SSLContext sslContext = SSLContext.getInstance("TLS");
+    sslContext.init(keyManagerFactory.getKeyManagers(), null, null);
+    return sslContext;
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    ObjectNode response = MAPPER.createObjectNode().put("jsonrpc", "2.0");
+    try {
+      JsonNode request = MAPPER.readTree(requestBody(exchange));
+      String method = request.path("method").asText();
+      JsonNode params = request.path("params");
+      count(calls, method, 1);
+
+      delay();
+      injectFailure(method);
+      if (!"Authenticate".equals(method)) {
+        checkCredentials(params);
+      }
+      response.set("result", call(method, params));
+    } catch (StandInException exception) {
+      response.set("error", error(exception.name, exception.getMessage()));
+    } catch (InterruptedException exception) {
+      Thread.currentThread().interrupt();
+      response.set("error", error("InvalidOperationException", "Server stopping"));
+    } catch (Exception exception) {
+      log.warn("Can not handle request", exception);
+      response.set("error", error("ArgumentException", String.valueOf(exception.getMessage())));
+    }
+
+    byte[] body = MAPPER.writeValueAsBytes(response);
+    exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+    exchange.sendResponseHeaders(200, body.length);
+    try (OutputStream outputStream = exchange.getResponseBody()) {
+      outputStream.write(body);
+    }
+  }
+
+  /**
+   * Read the JSON of a request, posted as is or as the JSON-RPC form field.
+   */
+  private static String requestBody(HttpExchange exchange) throws IOException {
+    String body;
+    try (InputStream inputStream = exchange.getRequestBody()) {
+      body = new String(ByteStreams.toByteArray(inputStream), StandardCharsets.UTF_8);
+    }
+    if (body.isEmpty() && exchange.getRequestURI().getRawQuery() != null) {
+      body = exchange.getRequestURI().getRawQuery();
+    }
+    if (body.startsWith(FORM_PREFIX)) {
+      body = URLDecoder.decode(body.substring(FORM_PREFIX.length()), "UTF-8");
+    }
+    return body;
+  }
+
+  private JsonNode call(String method, JsonNode params) throws StandInException {
+    switch (method) {
+      case "Authenticate":
+        return authenticate(params);
+      case "Get":
+        return get(params);
+      case "GetFeed":
+        return getFeed(params);
+      case "Add":
+        return add(params);
+      case "ExecuteMultiCall":
+        return executeMultiCall(params);
+      default:
+        throw new StandInException("MissingMethodException",
+            "The method '" + method + "' could not be found");
+    }
+  }
+
+  private JsonNode authenticate(JsonNode params) {
+    ObjectNode result = MAPPER.createObjectNode().put("path", "ThisServer");
+    result.putObject("credentials")
+        .put("database", params.path("database").asText())
+        .put("userName", params.path("userName").asText())
+        .put("sessionId", sessionId);
+    return result;
+  }
+
+  private JsonNode get(JsonNode params) throws StandInException {
+    String typeName = typeName(params);
+    JsonNode search = params.path("search");
+    String id = search.path("id").asText(null);
+    String name = search.path("name").asText(null);
+    String serialNumber = search.path("serialNumber").asText(null);
+
+    List<ObjectNode> entities = fleet.getEntities(typeName);
+    if ("Group".equals(typeName) && id != null) {
+      // a group search by id returns the group and its descendants
+      List<String> groupTree = fleet.groupTree(id);
+      entities = entities.stream()
+          .filter(entity -> groupTree.contains(entity.path("id").asText()))
+          .collect(Collectors.toList());
+    } else if (id != null) {
+      entities = entities.stream()
+          .filter(entity -> id.equals(entity.path("id").asText()))
+          .collect(Collectors.toList());
+    } else if (name != null) {
+      entities = entities.stream()
+          .filter(entity -> name.equalsIgnoreCase(entity.path("name").asText()))
+          .collect(Collectors.toList());
+    } else if (serialNumber != null) {
+      entities = entities.stream()
+          .filter(entity -> serialNumber.equals(entity.path("serialNumber").asText()))
+          .collect(Collectors.toList());
+    }
+    if ("User".equals(typeName) && name != null && entities.isEmpty()) {
+      // the api user, with access to the whole organization
+      ObjectNode user = MAPPER.createObjectNode().put("id", "b1").put("name", name);
+      user.putArray("companyGroups").add(StandInFleet.reference(StandInFleet.COMPANY_GROUP_ID));
+      user.putArray("securityGroups").add(StandInFleet.reference("GroupEverythingSecurityId"));
+      return MAPPER.createArrayNode().add(user);
+    }
+
+    int resultsLimit = params.path("resultsLimit").asInt(Integer.MAX_VALUE);
+    ArrayNode result = MAPPER.createArrayNode();
+    entities.stream().limit(resultsLimit).forEach(result::add);
+    return result;
+  }
+
+  private JsonNode getFeed(JsonNode params) throws StandInException {
+    String typeName = typeName(params);
+    long fromIndex = version(params.path("fromVersion").asText(null));
+    int resultsLimit = params.path("resultsLimit").asInt(config.getDefaultFeedResultsLimit());
+
+    ArrayNode data;
+    long toIndex;
+    if (fleet.isFeedType(typeName)) {
+      toIndex = Math.min(fleet.getAvailableRecords(), fromIndex + resultsLimit);
+      data = fleet.getFeedRecords(typeName, fromIndex, Math.max(fromIndex, toIndex));
+    } else {
+      // entity changes: every entity once, then whatever is added
+      List<ObjectNode> entities = fleet.getEntities(typeName);
+      toIndex = Math.min(entities.size(), fromIndex + resultsLimit);
+      data = MAPPER.createArrayNode();
+      for (long index = fromIndex; index < toIndex; index++) {
+        data.add(entities.get((int) index));
+      }
+    }
+    toIndex = Math.max(fromIndex, toIndex);
+    count(servedRecords, typeName, data.size());
+
+    ObjectNode result = MAPPER.createObjectNode()
+        .put("toVersion", String.format("%016x", toIndex));
+    result.set("data", data);
+    return result;
+  }
+
+  private JsonNode add(JsonNode params) throws StandInException {
+    JsonNode entity = params.path("entity");
+    if (!entity.isObject()) {
+      throw new StandInException("ArgumentNullException", "The entity is missing");
+    }
+    String typeName = typeName(params);
+    if (fleet.getEntities(typeName).stream()
+        .anyMatch(existing -> duplicate(typeName, existing, entity))) {
+      throw new StandInException("DuplicateException",
+          "Duplicate " + typeName + " " + entity.path("name").asText());
+    }
+    return MAPPER.getNodeFactory().textNode(fleet.add(typeName, ((ObjectNode) entity).deepCopy()));
+  }
+
+  private static boolean duplicate(String typeName, JsonNode existing, JsonNode entity) {
+    String key = "Device".equals(typeName) ? "serialNumber" : "name";
+    return entity.hasNonNull(key) && entity.path(key).asText().equals(existing.path(key).asText());
+  }
+
+  /**
+   * Run the calls one after the other; the first failure fails them all, as with MyGeotab. Each
+   * call counts against the quota of its own method.
+   */
+  private JsonNode executeMultiCall(JsonNode params) throws StandInException {
+    for (JsonNode call : params.path("calls")) {
+      checkQuota(call.path("method").asText());
+    }
+
+    ArrayNode results = MAPPER.createArrayNode();
+    for (JsonNode call : params.path("calls")) {
+      String method = call.path("method").asText();
+      count(calls, method, 1);
+      results.add(call(method, call.path("params")));
+    }
+    return results;
+  }
+
+  private static String typeName(JsonNode params) throws StandInException {
+    String typeName = params.path("typeName").asText(null);
+    if (typeName == null) {
+      throw new StandInException("ArgumentNullException", "typeName is missing");
+    }
+    return typeName;
+  }
+
+  private static long version(String version) throws StandInException {
+    if (version == null || version.isEmpty()) {
+      return 0;
+    }
+    try {
+      return Long.parseLong(version, 16);
+    } catch (NumberFormatException exception) {
+      throw new StandInException("ArgumentException", "Invalid fromVersion " + version);
+    }
+  }
+
+  private void checkCredentials(JsonNode params) throws StandInException {
+    if (!sessionId.equals(params.path("credentials").path("sessionId").asText(null))) {
+      throw new StandInException("InvalidUserException", "Incorrect login credentials");
+    }
+  }
+
+  private void delay() throws InterruptedException {
+    long delayMillis = config.getLatencyMillis() + (config.getLatencyJitterMillis() > 0
+        ? ThreadLocalRandom.current().nextLong(config.getLatencyJitterMillis() + 1) : 0);
+    if (delayMillis > 0) {
+      TimeUnit.MILLISECONDS.sleep(delayMillis);
+    }
+  }
+
+  private void injectFailure(String method) throws StandInException {
+    checkQuota(method);
+
+    double random = ThreadLocalRandom.current().nextDouble();
+    if (random < config.getOverLimitProbability()) {
+      injectedFailures.incrementAndGet();
+      throw new StandInException("OverLimitException", "API calls quota exceeded.");
+    }
+    if (random < config.getOverLimitProbability() + config.getDbUnavailableProbability()) {
+      injectedFailures.incrementAndGet();
+      throw new StandInException("DbUnavailableException", "Database is unavailable");
+    }
+  }
+
+  private void checkQuota(String method) throws StandInException {
+    Integer quota = config.getQuotas().get(method);
+    if (quota != null && overQuota(method, quota)) {
+      injectedFailures.incrementAndGet();
+      throw new StandInException("OverLimitException",
+          "API calls quota exceeded. Maximum admitted " + quota + " per 1m.");
+    }
+  }
+
+  private boolean overQuota(String method, int quota) {
+    long currentMinute = TimeUnit.MILLISECONDS.toMinutes(System.currentTimeMillis());
+    if (currentMinute != minute) {
+      synchronized (minuteCalls) {
+        if (currentMinute != minute) {
+          minuteCalls.clear();
+          minute = currentMinute;
+        }
+      }
+    }
+    return count(minuteCalls, method, 1) > quota;
+  }
+
+  private static long count(Map<String, AtomicLong> counters, String key, long delta) {
+    return counters.computeIfAbsent(key, k -> new AtomicLong()).addAndGet(delta);
+  }
+
+  private static JsonNode error(String name, String message) {
+    ObjectNode error = MAPPER.createObjectNode()
+        .put("name", "JSONRPCError")
+        .put("code", -32000)
+        .put("message", message);
+    error.putObject("data").put("type", name);
+    error.putArray("errors").addObject()
+        .put("name", name)
+        .put("message", message);
+    return error;
+  }
+
+  /**
+   * A failure answered as a JSON-RPC error of the given Geotab exception.
+   */
+  private static final class StandInException extends Exception {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String name;
+
+    private StandInException(String name, String message) {
+      super(message);
+      this.name = name;
+    }
+  }
+}
@@ -0,0 +1,107 @@
+package com.geotab.sdk.standin;
+
+import java.util.Collections;
+import java.util.Map;
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * Configuration of a {@link GeotabStandInServer}: the size of its fleet, how much feed data it
+ * serves and the failures it injects.
+ */
+@Getter
+@Builder
+public class StandInConfig {
+
+  /**
+   * The port to listen on; 0 for any free port.
+   */
+  @Builder.Default
+  private final int port = 0;
+
+  /**
+   * The threads serving the requests.
+   */
+  @Builder.Default
+  private final int threads = 16;
+
+  /**
+   * The key store holding the key of the server; null to serve plain HTTP.
+   */
+  private final String keyStore;
+
+  private final String keyStorePassword;
+
+  @Builder.Default
+  private final int devices = 1_000;
+
+  @Builder.Default
+  private final int drivers = 500;
+
+  @Builder.Default
+  private final int diagnostics = 300;
+
+  @Builder.Default
+  private final int controllers = 20;
+
+  @Builder.Default
+  private final int unitsOfMeasure = 10;
+
+  @Builder.Default
+  private final int failureModes = 50;
+
+  @Builder.Default
+  private final int rules = 20;
+
+  @Builder.Default
+  private final int groups = 10;
+
+  /**
+   * The records of each feed type available when the server starts, dated up to the start.
+   */
+  @Builder.Default
+  private final int feedBacklog = 100_000;
+
+  /**
+   * The records of each feed type added per second once started, dated as they are added.
+   */
+  @Builder.Default
+  private final int feedRecordsPerSecond = 100;
+
+  /**
+   * The records returned by a GetFeed call without a results limit.
+   */
+  @Builder.Default
+  private final int defaultFeedResultsLimit = 50_000;
+
+  /**
+   * The time every call takes at least.
+   */
+  @Builder.Default
+  private final long latencyMillis = 0;
+
+  /**
+   * The most time a call takes on top of {@link #latencyMillis}, uniformly distributed.
+   */
+  @Builder.Default
+  private final long latencyJitterMillis = 0;
+
+  /**
+   * The fraction of calls failing with an OverLimitException, as if throttled.
+   */
+  @Builder.Default
+  private final double overLimitProbability = 0;
+
+  /**
+   * The fraction of calls failing with a DbUnavailableException.
+   */
+  @Builder.Default
+  private final double dbUnavailableProbability = 0;
+
+  /**
+   * The calls per minute allowed by API method, e.g. GetFeed; calls over it fail with an
+   * OverLimitException. Methods without a quota are not limited.
+   */
+  @Builder.Default
+  private final Map<String, Integer> quotas = Collections.emptyMap();
+}
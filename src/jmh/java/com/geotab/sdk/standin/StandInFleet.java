@@ -0,0 +1,316 @@
+package com.geotab.sdk.standin;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.collect.ImmutableMap;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * The synthetic database of a {@link GeotabStandInServer}, in the JSON of the Geotab API.
+ *
+ * <p>The entities are created up front. The feed records are not stored: record {@code i} of a
+ * feed type is derived from {@code i} whenever it is served, so the backlog may be any size. The
+ * backlog is dated evenly up to the creation of the fleet, and new records keep arriving at the
+ * configured rate, dated as they arrive. Entities added through the API are kept and returned by
+ * Get along with the synthetic ones.
+ */
+class StandInFleet {
+
+  static final String COMPANY_GROUP_ID = "GroupCompanyId";
+
+  static final String SECURITY_GROUP_ID = "GroupSecurityId";
+
+  private static final String SOURCE_ID = "SourceGeotabGoId";
+
+  private static final DateTimeFormatter DATE_TIME_FORMAT = DateTimeFormatter
+      .ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'").withZone(ZoneOffset.UTC);
+
+  private static final JsonNodeFactory JSON = JsonNodeFactory.instance;
+
+  private final StandInConfig config;
+
+  private final Instant created = Instant.now();
+
+  /**
+   * The milliseconds between two records of a feed type.
+   */
+  private final double recordIntervalMillis;
+
+  /**
+   * The entities by type name; the lists of the added entities are appended to.
+   */
+  private final Map<String, List<ObjectNode>> entities = new ConcurrentHashMap<>();
+
+  /**
+   * The feed records by type name, derived from their index.
+   */
+  private final Map<String, Function<Long, ObjectNode>> feedRecords;
+
+  private final AtomicLong addedEntities = new AtomicLong();
+
+  StandInFleet(StandInConfig config) {
+    this.config = config;
+    this.recordIntervalMillis = 1_000d / Math.max(1, config.getFeedRecordsPerSecond());
+
+    entities.put("Device", create(config.getDevices(), this::device));
+    entities.put("User", create(config.getDrivers(), this::driver));
+    entities.put("Diagnostic", create(config.getDiagnostics(), this::diagnostic));
+    entities.put("Controller", create(config.getControllers(), index ->
+        named("aController" + index, "Controller " + index).set("source", reference(SOURCE_ID))));
+    entities.put("UnitOfMeasure", create(config.getUnitsOfMeasure(), index ->
+        named("aUnitOfMeasure" + index, "Unit " + index)));
+    entities.put("FailureMode", create(config.getFailureModes(), index ->
+        named("aFailureMode" + index, "Failure mode " + index)
+            .put("code", index)
+            .set("source", reference(SOURCE_ID))));
+    entities.put("Rule", create(config.getRules(), index ->
+        named("aRule" + index, "Rule " + index).put("baseType", "Custom")));
+    entities.put("Group", groups());
+
+    this.feedRecords = ImmutableMap.of(
+        "LogRecord", this::logRecord,
+        "StatusData", this::statusData,
+        "FaultData", this::faultData,
+        "Trip", this::trip,
+        "ExceptionEvent", this::exceptionEvent);
+  }
+
+  /**
+   * Get the entities of a type, the added ones included.
+   *
+   * @param typeName The entity type, e.g. Device.
+   * @return The entities; empty for unknown types.
+   */
+  List<ObjectNode> getEntities(String typeName) {
+    return entities.getOrDefault(typeName, Collections.emptyList());
+  }
+
+  /**
+   * Add an entity.
+   *
+   * @param typeName The entity type, e.g. Device.
+   * @param entity   The entity; its id is set.
+   * @return The id of the entity.
+   */
+  String add(String typeName, ObjectNode entity) {
+    String id = "b" + Long.toHexString(0x10000 + addedEntities.incrementAndGet()).toUpperCase();
+    entity.put("id", id);
+    entities.computeIfAbsent(typeName, type -> new CopyOnWriteArrayList<>()).add(entity);
+    return id;
+  }
+
+  long getAddedEntities() {
+    return addedEntities.get();
+  }
+
+  boolean isFeedType(String typeName) {
+    return feedRecords.containsKey(typeName);
+  }
+
+  /**
+   * Get the number of records of each feed type available now.
+   *
+   * @return The records; the index of the next record to arrive.
+   */
+  long getAvailableRecords() {
+    long elapsedMillis = Instant.now().toEpochMilli() - created.toEpochMilli();
+    return config.getFeedBacklog() + (long) (elapsedMillis / recordIntervalMillis);
+  }
+
+  /**
+   * Get records of a feed type.
+   *
+   * @param typeName  The feed type, e.g. LogRecord.
+   * @param fromIndex The first record.
+   * @param toIndex   The record after the last one.
+   * @return The records.
+   */
+  ArrayNode getFeedRecords(String typeName, long fromIndex, long toIndex) {
+    Function<Long, ObjectNode> record = feedRecords.get(typeName);
+    ArrayNode data = JSON.arrayNode();
+    for (long index = fromIndex; index < toIndex; index++) {
+      data.add(record.apply(index));
+    }
+    return data;
+  }
+
+  private static List<ObjectNode> create(int count, Function<Integer, ObjectNode> entity) {
+    List<ObjectNode> created = new CopyOnWriteArrayList<>();
+    for (int index = 0; index < count; index++) {
+      created.add(entity.apply(index));
+    }
+    return created;
+  }
+
+  private ObjectNode device(int index) {
+    ObjectNode device = named(deviceId(index), "Vehicle " + index)
+        .put("serialNumber", String.format("G9%010d", index))
+        .put("vehicleIdentificationNumber", String.format("1FUJGLDR%09d", index))
+        .put("deviceType", "GO9");
+    device.putArray("groups").add(reference(COMPANY_GROUP_ID));
+    return device;
+  }
+
+  private ObjectNode driver(int index) {
+    ObjectNode driver = named(driverId(index), "driver" + index + "@example.com")
+        .put("firstName", "First" + index)
+        .put("lastName", "Last" + index)
+        .put("isDriver", true);
+    driver.putArray("companyGroups").add(reference(COMPANY_GROUP_ID));
+    driver.putArray("securityGroups").add(reference("GroupEverythingSecurityId"));
+    driver.putArray("keys");
+    return driver;
+  }
+
+  private ObjectNode diagnostic(int index) {
+    ObjectNode diagnostic = named(diagnosticId(index), "Diagnostic " + index)
+        .put("code", index)
+        .put("diagnosticType", "GoDiagnostic");
+    diagnostic.set("source", reference(SOURCE_ID));
+    diagnostic.set("controller", reference("aController" + index % config.getControllers()));
+    diagnostic.set("unitOfMeasure",
+        reference("aUnitOfMeasure" + index % config.getUnitsOfMeasure()));
+    return diagnostic;
+  }
+
+  private List<ObjectNode> groups() {
+    List<ObjectNode> groups = new CopyOnWriteArrayList<>();
+    groups.add(named(COMPANY_GROUP_ID, "**Org**"));
+    groups.add(named(SECURITY_GROUP_ID, "**SecurityRoot**"));
+    groups.add(child(named("GroupEverythingSecurityId", "**EverythingSecurity**"),
+        SECURITY_GROUP_ID));
+    groups.add(child(named("GroupSupervisorSecurityId", "**SupervisorSecurity**"),
+        SECURITY_GROUP_ID));
+    groups.add(child(named("GroupViewOnlySecurityId", "**ViewOnlySecurity**"),
+        SECURITY_GROUP_ID));
+    groups.add(child(named("GroupNothingSecurityId", "**NothingSecurity**"), SECURITY_GROUP_ID));
+    for (int index = 0; index < config.getGroups(); index++) {
+      groups.add(child(named("aGroup" + index, "Region " + index), COMPANY_GROUP_ID));
+    }
+    return groups;
+  }
+
+  private ObjectNode logRecord(long index) {
+    return record("LogRecord", index)
+        .put("latitude", 43.4 + index % 1_000 / 1_000d)
+        .put("longitude", -79.7 + index % 997 / 1_000d)
+        .put("speed", index % 120);
+  }
+
+  private ObjectNode statusData(long index) {
+    ObjectNode data = record("StatusData", index).put("data", index % 10_000 / 10d);
+    data.set("diagnostic", reference(diagnosticId(index % config.getDiagnostics())));
+    data.set("controller", reference("aController" + index % config.getControllers()));
+    return data;
+  }
+
+  private ObjectNode faultData(long index) {
+    ObjectNode data = record("FaultData", index)
+        .put("count", 1 + index % 10)
+        .put("faultState", "Active")
+        .put("malfunctionLamp", index % 3 == 0)
+        .put("redStopLamp", false)
+        .put("amberWarningLamp", index % 5 == 0)
+        .put("protectWarningLamp", false);
+    data.set("diagnostic", reference(diagnosticId(index % config.getDiagnostics())));
+    data.set("controller", reference("aController" + index % config.getControllers()));
+    data.set("failureMode", reference("aFailureMode" + index % config.getFailureModes()));
+    return data;
+  }
+
+  private ObjectNode trip(long index) {
+    Instant stop = recordTime(index);
+    ObjectNode trip = record("Trip", index)
+        .put("start", DATE_TIME_FORMAT.format(stop.minusSeconds(60 + index % 3_600)))
+        .put("stop", DATE_TIME_FORMAT.format(stop))
+        .put("distance", index % 100 / 2f);
+    trip.remove("dateTime");
+    trip.set("driver", reference(driverId(index % config.getDrivers())));
+    return trip;
+  }
+
+  private ObjectNode exceptionEvent(long index) {
+    Instant activeTo = recordTime(index);
+    ObjectNode exceptionEvent = record("ExceptionEvent", index)
+        .put("activeFrom", DATE_TIME_FORMAT.format(activeTo.minusSeconds(10 + index % 600)))
+        .put("activeTo", DATE_TIME_FORMAT.format(activeTo))
+        .put("distance", index % 10 / 4f);
+    exceptionEvent.remove("dateTime");
+    exceptionEvent.set("rule", reference("aRule" + index % config.getRules()));
+    exceptionEvent.set("driver", reference(driverId(index % config.getDrivers())));
+    return exceptionEvent;
+  }
+
+  /**
+   * Create a feed record with its id, device and time.
+   */
+  private ObjectNode record(String typeName, long index) {
+    ObjectNode record = JSON.objectNode()
+        .put("id", "a" + typeName.charAt(0) + Long.toHexString(index))
+        .put("dateTime", DATE_TIME_FORMAT.format(recordTime(index)));
+    record.set("device", reference(deviceId(index % config.getDevices())));
+    return record;
+  }
+
+  private Instant recordTime(long index) {
+    long millis = (long) ((index - config.getFeedBacklog()) * recordIntervalMillis);
+    return created.plusMillis(millis);
+  }
+
+  private static String deviceId(long index) {
+    return "b" + Long.toHexString(index + 1).toUpperCase();
+  }
+
+  private static String driverId(long index) {
+    return "b" + Long.toHexString(0x1000 + index).toUpperCase();
+  }
+
+  private static String diagnosticId(long index) {
+    return "aDiagnostic" + index;
+  }
+
+  private static ObjectNode named(String id, String name) {
+    return JSON.objectNode().put("id", id).put("name", name);
+  }
+
+  private static ObjectNode child(ObjectNode group, String parentId) {
+    group.set("parent", reference(parentId));
+    return group;
+  }
+
+  static JsonNode reference(String id) {
+    return JSON.objectNode().put("id", id);
+  }
+
+  /**
+   * Get the ids of the descendants of a group, itself included.
+   *
+   * @param groupId The group.
+   * @return The ids.
+   */
+  List<String> groupTree(String groupId) {
+    List<String> ids = new ArrayList<>();
+    ids.add(groupId);
+    for (int i = 0; i < ids.size(); i++) {
+      String parentId = ids.get(i);
+      for (ObjectNode group : getEntities("Group")) {
+        if (parentId.equals(group.path("parent").path("id").asText(null))) {
+          ids.add(group.path("id").asText());
+        }
+      }
+    }
+    return ids;
+  }
+}
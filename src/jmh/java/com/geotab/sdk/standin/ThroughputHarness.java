@@ -0,0 +1,296 @@
+package com.geotab.sdk.standin;
+
+import com.geotab.sdk.datafeed.cli.CommandLineArguments;
+import com.geotab.sdk.datafeed.worker.DataFeedWorker;
+import com.geotab.sdk.importdevices.ImportDevicesApp;
+import com.geotab.sdk.importgroups.ImportGroupsApp;
+import com.geotab.sdk.importusers.ImportUsersApp;
+import com.google.common.base.Splitter;
+import com.google.common.base.Stopwatch;
+import com.google.common.io.MoreFiles;
+import com.google.common.io.RecursiveDeleteOption;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+
+/**
+ * End to end throughput of the data feed and the import apps against a {@link
+ * GeotabStandInServer}, i.e. with the SDK, the HTTP calls and the JSON included.
+ *
+ * <p>1) Start the stand-in server, with the fleet, latency and failures given.
+ *
+ * <p>2) Run a {@link DataFeedWorker} exporting to csv for the duration given, then report the
+ * records loaded per second of each feed type and how far behind the server it is.
+ *
+ * <p>3) Import generated groups, devices and users with the import apps, then report the entities
+ * added per second.
+ *
+ * <p>The SDK connects over HTTPS: without a key store, a self-signed one for localhost is created
+ * with the keytool of the running JDK and trusted for the run. The import apps exit the JVM when a
+ * call fails, so inject failures for the data feed only.
+ */
+@Slf4j
+public final class ThroughputHarness {
+
+  private static final String DURATION_ARG_NAME = "t";
+  private static final String DEVICES_ARG_NAME = "dv";
+  private static final String BACKLOG_ARG_NAME = "bl";
+  private static final String RECORDS_PER_SECOND_ARG_NAME = "rps";
+  private static final String LATENCY_ARG_NAME = "lt";
+  private static final String JITTER_ARG_NAME = "lj";
+  private static final String OVER_LIMIT_ARG_NAME = "ol";
+  private static final String DB_UNAVAILABLE_ARG_NAME = "du";
+  private static final String QUOTAS_ARG_NAME = "q";
+  private static final String IMPORT_ROWS_ARG_NAME = "ir";
+  private static final String KEY_STORE_ARG_NAME = "ks";
+  private static final String KEY_STORE_PASSWORD_ARG_NAME = "kp";
+  private static final String DATA_FEED_ARGS_ARG_NAME = "df";
+
+  private static final String[] FEED_TYPES =
+      {"LogRecord", "StatusData", "FaultData", "Trip", "ExceptionEvent"};
+
+  private static final String GENERATED_KEY_STORE_PASSWORD = "stand-in";
+
+  private ThroughputHarness() {
+  }
+
+  public static void main(String[] args) throws Exception {
+    CommandLine commandLine;
+    Options options = configureOptions();
+    try {
+      commandLine = new DefaultParser().parse(options, args);
+    } catch (ParseException exception) {
+      new HelpFormatter().printHelp(
+          "java -cp target/benchmarks.jar com.geotab.sdk.standin.ThroughputHarness", options);
+      throw exception;
+    }
+
+    Path workFolder = Files.createTempDirectory("stand-in");
+    try {
+      String keyStore = commandLine.getOptionValue(KEY_STORE_ARG_NAME);
+      String keyStorePassword = commandLine.getOptionValue(KEY_STORE_PASSWORD_ARG_NAME);
+      if (keyStore == null) {
+        keyStore = createKeyStore(workFolder).toString();
+        keyStorePassword = GENERATED_KEY_STORE_PASSWORD;
+      }
+      // must be set before the SDK creates its first connection
+      System.setProperty("javax.net.ssl.trustStore", keyStore);
+      System.setProperty("javax.net.ssl.trustStorePassword", keyStorePassword);
+
+      StandInConfig config = StandInConfig.builder()
+          .keyStore(keyStore)
+          .keyStorePassword(keyStorePassword)
+          .devices(intValue(commandLine, DEVICES_ARG_NAME, 1_000))
+          .feedBacklog(intValue(commandLine, BACKLOG_ARG_NAME, 100_000))
+          .feedRecordsPerSecond(intValue(commandLine, RECORDS_PER_SECOND_ARG_NAME, 100))
+          .latencyMillis(intValue(commandLine, LATENCY_ARG_NAME, 0))
+          .latencyJitterMillis(intValue(commandLine, JITTER_ARG_NAME, 0))
+          .overLimitProbability(doubleValue(commandLine, OVER_LIMIT_ARG_NAME))
+          .dbUnavailableProbability(doubleValue(commandLine, DB_UNAVAILABLE_ARG_NAME))
+          .quotas(quotas(commandLine.getOptionValue(QUOTAS_ARG_NAME)))
+          .build();
+
+      try (GeotabStandInServer server = new GeotabStandInServer(config)) {
+        runDataFeed(server, workFolder, intValue(commandLine, DURATION_ARG_NAME, 30),
+            commandLine.getOptionValue(DATA_FEED_ARGS_ARG_NAME));
+        runImports(server, workFolder, intValue(commandLine, IMPORT_ROWS_ARG_NAME, 1_000));
+      }
+    } finally {
+      MoreFiles.deleteRecursively(workFolder, RecursiveDeleteOption.ALLOW_INSECURE);
+    }
+  }
+
+  private static void runDataFeed(GeotabStandInServer server, Path workFolder, int seconds,
+      String dataFeedArgs) throws Exception {
+    List<String> args = new ArrayList<>();
+    args.add("-s");
+    args.add(server.getServer());
+    args.add("-d");
+    args.add("standin");
+    args.add("-u");
+    args.add("harness@example.com");
+    args.add("-p");
+    args.add("password");
+    args.add("-exp");
+    args.add("csv");
+    args.add("-f");
+    args.add(Files.createDirectory(workFolder.resolve("datafeed")).toString());
+    args.add("-c");
+    args.add("true");
+    if (dataFeedArgs != null) {
+      Splitter.on(' ').omitEmptyStrings().split(dataFeedArgs).forEach(args::add);
+    }
+
+    log.info("Running the data feed for {}s: {}", seconds, args);
+    DataFeedWorker dataFeedWorker =
+        new DataFeedWorker(new CommandLineArguments(args.toArray(new String[0])));
+    final Stopwatch stopwatch = Stopwatch.createStarted();
+    dataFeedWorker.start();
+    TimeUnit.SECONDS.sleep(seconds);
+    dataFeedWorker.shutdown();
+    dataFeedWorker.join();
+    double elapsedSeconds = stopwatch.elapsed(TimeUnit.MILLISECONDS) / 1_000d;
+
+    long available = server.getAvailableRecords();
+    log.info("Data feed: {} batches exported in {}s, {} GetFeed calls, {} failures injected",
+        dataFeedWorker.getExportedBatches(), String.format("%.1f", elapsedSeconds),
+        server.getCalls("GetFeed"), server.getInjectedFailures());
+    for (String feedType : FEED_TYPES) {
+      long served = server.getServedRecords(feedType);
+      log.info("{}: {} records/s, {} records behind", feedType,
+          String.format("%.0f", served / elapsedSeconds), Math.max(0, available - served));
+    }
+  }
+
+  private static void runImports(GeotabStandInServer server, Path workFolder, int rows)
+      throws Exception {
+    if (rows <= 0) {
+      return;
+    }
+
+    List<String> groups = new ArrayList<>();
+    List<String> devices = new ArrayList<>();
+    List<String> users = new ArrayList<>();
+    for (int row = 0; row < rows; row++) {
+      groups.add("Region 0,Imported group " + row);
+      devices.add("Imported vehicle " + row + "," + String.format("GI%010d", row) + ",Region 0");
+      users.add("imported" + row + "@example.com,Password" + row
+          + "!,Organization,Administrator,First" + row + ",Last" + row);
+    }
+
+    runImport("groups", ImportGroupsApp::main, server, write(workFolder, "groups.csv", groups));
+    runImport("devices", ImportDevicesApp::main, server,
+        write(workFolder, "devices.csv", devices));
+    runImport("users", ImportUsersApp::main, server, write(workFolder, "users.csv", users));
+  }
+
+  private static void runImport(String name, ImportApp importApp, GeotabStandInServer server,
+      Path csvFile) throws Exception {
+    long added = server.getAddedEntities();
+    InputStream systemIn = System.in;
+    // the apps wait for Enter once done
+    System.setIn(new ByteArrayInputStream(new byte[0]));
+    Stopwatch stopwatch = Stopwatch.createStarted();
+    try {
+      importApp.main(new String[]{server.getServer(), "standin", "harness@example.com",
+          "password", csvFile.toString()});
+    } finally {
+      System.setIn(systemIn);
+    }
+    double elapsedSeconds = stopwatch.elapsed(TimeUnit.MILLISECONDS) / 1_000d;
+    added = server.getAddedEntities() - added;
+    log.info("Import {}: {} added in {}s, {} added/s", name, added,
+        String.format("%.1f", elapsedSeconds), String.format("%.0f", added / elapsedSeconds));
+  }
+
+  /**
+   * Create a key store with a self-signed certificate for localhost.
+   */
+  private static Path createKeyStore(Path workFolder) throws Exception {
+    Path keyStore = workFolder.resolve("stand-in.jks");
+    Path keytool = Paths.get(System.getProperty("java.home"), "bin", "keytool");
+    Process process = new ProcessBuilder(keytool.toString(), "-genkeypair",
+        "-alias", "stand-in", "-keyalg", "RSA", "-keysize", "2048", "-validity", "1",
+        "-dname", "CN=localhost", "-ext", "san=dns:localhost", "-storetype", "JKS",
+        "-keystore", keyStore.toString(),
+        "-storepass", GENERATED_KEY_STORE_PASSWORD, "-keypass", GENERATED_KEY_STORE_PASSWORD)
+        .inheritIO()
+        .start();
+    if (process.waitFor() != 0) {
+      throw new IllegalStateException("Can not create a key store with " + keytool);
+    }
+    return keyStore;
+  }
+
+  private static Path write(Path workFolder, String fileName, List<String> rows)
+      throws Exception {
+    return Files.write(workFolder.resolve(fileName), rows, StandardCharsets.UTF_8);
+  }
+
+  private static int intValue(CommandLine commandLine, String option, int defaultValue) {
+    String value = commandLine.getOptionValue(option);
+    return value != null ? Integer.parseInt(value) : defaultValue;
+  }
+
+  private static double doubleValue(CommandLine commandLine, String option) {
+    String value = commandLine.getOptionValue(option);
+    return value != null ? Double.parseDouble(value) : 0;
+  }
+
+  private static Map<String, Integer> quotas(String quotas) {
+    Map<String, Integer> result = new HashMap<>();
+    if (quotas != null) {
+      Splitter.on(',').trimResults().omitEmptyStrings().withKeyValueSeparator('=').split(quotas)
+          .forEach((method, quota) -> result.put(method, Integer.valueOf(quota)));
+    }
+    return result;
+  }
+
+  @SuppressWarnings("Indentation")
+  private static Options configureOptions() {
+    Options options = new Options();
+
+    options
+        .addOption(option(DURATION_ARG_NAME, "seconds",
+            "[optional] How long to run the data feed; default 30"))
+        .addOption(option(DEVICES_ARG_NAME, "devices",
+            "[optional] The devices of the fleet; default 1000"))
+        .addOption(option(BACKLOG_ARG_NAME, "records",
+            "[optional] The records of each feed type available at start; default 100000"))
+        .addOption(option(RECORDS_PER_SECOND_ARG_NAME, "records",
+            "[optional] The records of each feed type arriving per second; default 100"))
+        .addOption(option(LATENCY_ARG_NAME, "millis",
+            "[optional] The latency of every call; default 0"))
+        .addOption(option(JITTER_ARG_NAME, "millis",
+            "[optional] The most latency added at random to every call; default 0"))
+        .addOption(option(OVER_LIMIT_ARG_NAME, "probability",
+            "[optional] The fraction of calls failing with an OverLimitException; default 0"))
+        .addOption(option(DB_UNAVAILABLE_ARG_NAME, "probability",
+            "[optional] The fraction of calls failing with a DbUnavailableException; default 0"))
+        .addOption(option(QUOTAS_ARG_NAME, "quotas",
+            "[optional] The calls per minute allowed by method, e.g. GetFeed=600,Get=100"))
+        .addOption(option(IMPORT_ROWS_ARG_NAME, "rows",
+            "[optional] The groups, devices and users to import; 0 to skip; default 1000"))
+        .addOption(option(KEY_STORE_ARG_NAME, "key store",
+            "[optional] The key store of the server; a self-signed one is created otherwise"))
+        .addOption(option(KEY_STORE_PASSWORD_ARG_NAME, "password",
+            "[optional] The password of the key store"))
+        .addOption(option(DATA_FEED_ARGS_ARG_NAME, "arguments",
+            "[optional] More data feed arguments, e.g. \"-pf -ps 5000\""));
+
+    return options;
+  }
+
+  private static Option option(String name, String argName, String description) {
+    return Option.builder(name)
+        .argName(argName)
+        .optionalArg(true)
+        .hasArg(true)
+        .desc(description)
+        .build();
+  }
+
+  /**
+   * The main method of an import app.
+   */
+  @FunctionalInterface
+  private interface ImportApp {
+
+    void main(String[] args) throws Exception;
+  }
+}
@@ -0,0 +1,32 @@
+package com.geotab.sdk.common;
+
+import com.geotab.http.request.param.AuthenticatedParameters;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Singular;
+
+/**
+ * The parameters of an ExecuteMultiCall request: several API calls executed by the server in one
+ * round trip, in order. The result is the list of the results of the calls.
+ */
+@Getter
+@Builder(builderMethodName = "multiCallParamsBuilder")
+public class MultiCallParameters extends AuthenticatedParameters {
+
+  @Singular
+  private final List<Call> calls;
+
+  /**
+   * One call of a multi-call; authenticated by the credentials of the multi-call.
+   */
+  @Getter
+  @AllArgsConstructor
+  public static class Call {
+
+    private final String method;
+
+    private final AuthenticatedParameters params;
+  }
+}
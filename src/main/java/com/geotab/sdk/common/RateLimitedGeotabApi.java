@@ -0,0 +1,194 @@
+package com.geotab.sdk.common;
+
+import com.geotab.api.GeotabApi;
+import com.geotab.http.exception.OverLimitException;
+import com.geotab.http.request.AuthenticatedRequest;
+import com.geotab.http.response.BaseResponse;
+import com.geotab.model.login.Credentials;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.RateLimiter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * {@link GeotabApi} which keeps the calls of each API method under the quota of the server, so the
+ * threads sharing it, e.g. the data feed and its caches, or concurrent imports, are not throttled
+ * with {@link OverLimitException}.
+ *
+ * <p>Each limited method has a token bucket refilled at {@link #HEADROOM} of its quota, allowing a
+ * burst of at most one second of calls. Callers waiting for a call of the same method are served in
+ * arrival order. Should the server throttle anyway, its quota is evidently lower than configured,
+ * and the rate of the method is lowered by {@link #THROTTLED_RATE_DECREASE}; after each {@link
+ * #RECOVERY_MILLIS} without throttling it is raised by as much again, up to the configured rate,
+ * as the throttling may have been caused by other clients of the database. Methods without a quota
+ * are not limited.
+ *
+ * <p>The server counts each call of an ExecuteMultiCall against the quota of its own method, so a
+ * multi-call takes a permit of its own method for each of them, e.g. 100 Get permits for a
+ * multi-call of 100 Gets, besides the permit of ExecuteMultiCall. A throttled multi-call lowers
+ * the rate of every method it took permits of, as the server does not tell which quota it hit.
+ */
+@Slf4j
+public class RateLimitedGeotabApi extends GeotabApi {
+
+  /**
+   * The calls per minute allowed by default, by API method.
+   */
+  public static final Map<String, Integer> DEFAULT_QUOTAS = ImmutableMap.of(
+      "GetFeed", 300,
+      "Get", 600);
+
+  /**
+   * The fraction of a quota the calls are kept at.
+   */
+  static final double HEADROOM = 0.9;
+
+  /**
+   * The fraction by which the rate of a method is lowered when the server throttles it.
+   */
+  static final double THROTTLED_RATE_DECREASE = 0.1;
+
+  /**
+   * How long a lowered rate is kept without throttling before it is raised again.
+   */
+  static final long RECOVERY_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+  private final Map<String, MethodBudget> budgets;
+
+  /**
+   * Create the API with the quotas of its methods.
+   *
+   * @param credentials The credentials.
+   * @param serverUrl   The server.
+   * @param timeout     The request timeout.
+   * @param quotas      The calls per minute the server allows, by API method, e.g. GetFeed.
+   */
+  public RateLimitedGeotabApi(Credentials credentials, String serverUrl, int timeout,
+      Map<String, Integer> quotas) {
+    super(credentials, serverUrl, timeout);
+    ImmutableMap.Builder<String, MethodBudget> budgetsBuilder = ImmutableMap.builder();
+    quotas.forEach((method, callsPerMinute) ->
+        budgetsBuilder.put(method, new MethodBudget(method, callsPerMinute)));
+    this.budgets = budgetsBuilder.build();
+  }
+
+  @Override
+  public <T extends BaseResponse<R>, R> Optional<R> call(AuthenticatedRequest<?> request,
+      Class<T> responseType) throws Exception {
+    Map<MethodBudget, Integer> permits = permits(request);
+    if (permits.isEmpty()) {
+      return super.call(request, responseType);
+    }
+
+    for (Map.Entry<MethodBudget, Integer> budgetPermits : permits.entrySet()) {
+      budgetPermits.getKey().acquire(budgetPermits.getValue());
+    }
+    try {
+      return super.call(request, responseType);
+    } catch (OverLimitException overLimitException) {
+      permits.keySet().forEach(MethodBudget::throttled);
+      throw overLimitException;
+    }
+  }
+
+  /**
+   * Count the permits the request takes of each limited method: one of its own method, and one
+   * for each call of a multi-call.
+   */
+  private Map<MethodBudget, Integer> permits(AuthenticatedRequest<?> request) {
+    Map<MethodBudget, Integer> permits = new LinkedHashMap<>();
+    addPermit(permits, request.getMethod());
+    if (request.getParams() instanceof MultiCallParameters) {
+      for (MultiCallParameters.Call call : ((MultiCallParameters) request.getParams()).getCalls()) {
+        addPermit(permits, call.getMethod());
+      }
+    }
+    return permits;
+  }
+
+  private void addPermit(Map<MethodBudget, Integer> permits, String method) {
+    MethodBudget budget = budgets.get(method);
+    if (budget != null) {
+      permits.merge(budget, 1, Integer::sum);
+    }
+  }
+
+  /**
+   * The token bucket of one API method.
+   */
+  private static final class MethodBudget {
+
+    private final String method;
+
+    private final double maxPermitsPerSecond;
+
+    private final double minPermitsPerSecond;
+
+    private final RateLimiter rateLimiter;
+
+    /**
+     * When the rate was last changed, to raise a lowered one once the server stopped throttling.
+     */
+    private volatile long rateChangedNanos = System.nanoTime();
+
+    /**
+     * Fair lock queueing the callers, as the rate limiter itself does not serve them in order.
+     */
+    private final ReentrantLock queue = new ReentrantLock(true);
+
+    private MethodBudget(String method, int callsPerMinute) {
+      this.method = method;
+      this.maxPermitsPerSecond = HEADROOM * callsPerMinute / 60;
+      this.minPermitsPerSecond = maxPermitsPerSecond / 10;
+      this.rateLimiter = RateLimiter.create(maxPermitsPerSecond);
+    }
+
+    private void acquire(int permits) throws InterruptedException {
+      queue.lockInterruptibly();
+      try {
+        recover();
+        double waitedSeconds = rateLimiter.acquire(permits);
+        if (waitedSeconds > 0) {
+          log.debug("{} {} calls waited {} s for their rate limit", permits, method,
+              waitedSeconds);
+        }
+      } finally {
+        queue.unlock();
+      }
+    }
+
+    /**
+     * Raise a lowered rate back toward the configured one after a quiet period; called while
+     * holding the queue.
+     */
+    private void recover() {
+      double rate = rateLimiter.getRate();
+      long quietMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - rateChangedNanos);
+      if (rate >= maxPermitsPerSecond || quietMillis < RECOVERY_MILLIS) {
+        return;
+      }
+
+      double permitsPerSecond = Math.min(maxPermitsPerSecond,
+          rate * (1 + THROTTLED_RATE_DECREASE));
+      rateLimiter.setRate(permitsPerSecond);
+      rateChangedNanos = System.nanoTime();
+
+      log.info("{} calls not throttled for {} s; raised to {} calls per minute", method,
+          TimeUnit.MILLISECONDS.toSeconds(RECOVERY_MILLIS), Math.round(permitsPerSecond * 60));
+    }
+
+    private void throttled() {
+      double permitsPerSecond = Math.max(minPermitsPerSecond,
+          rateLimiter.getRate() * (1 - THROTTLED_RATE_DECREASE));
+      rateLimiter.setRate(permitsPerSecond);
+      rateChangedNanos = System.nanoTime();
+
+      log.warn("{} calls throttled by the server; lowered to {} calls per minute", method,
+          Math.round(permitsPerSecond * 60));
+    }
+  }
+}
@@ -1,6 +1,7 @@
 package com.geotab.sdk.datafeed;
 
 import com.geotab.sdk.datafeed.cli.CommandLineArguments;
+import com.geotab.sdk.datafeed.health.HealthServer;
 import com.geotab.sdk.datafeed.worker.DataFeedWorker;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.cli.MissingArgumentException;
@@ -27,20 +28,26 @@ public class DataFeedApp {
 
       addShutdownHook(dataFeedWorker);
 
+      HealthServer healthServer;
+      try {
+        healthServer = commandLineArguments.getHealthPort() != null
+            ? new HealthServer(commandLineArguments.getHealthPort(), dataFeedWorker) : null;
+      } catch (Exception exception) {
+        dataFeedWorker.release();
+        throw exception;
+      }
+
+      // the worker stops by itself after one load unless feeding continuously
       dataFeedWorker.start();
 
-      if (!commandLineArguments.isFeedContinuously()) {
-        while (true) {
-          if (dataFeedWorker.isProcessing()) {
-            // shutdown only after it started processing
-            dataFeedWorker.shutdown();
-            break;
-          }
+      try {
+        dataFeedWorker.join(); // main thread waits for it to finish
+      } finally {
+        if (healthServer != null) {
+          healthServer.close();
         }
       }
 
-      dataFeedWorker.join(); // main thread waits for it to finish
-
     } catch (MissingArgumentException exception) {
       log.error(exception.getMessage());
     } catch (Exception exception) {
@@ -0,0 +1,210 @@
+package com.geotab.sdk.datafeed.cache;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Gzip compressed JSON file holding the entities of a cache snapshot, the time they were loaded
+ * from Geotab and the change feed version they reach.
+ *
+ * <p>The entities are written and read one at a time, so neither the JSON text nor a tree of it is
+ * ever held in memory. Files are written to a temporary file, forced to disk and atomically
+ * renamed, so a crash leaves either the previous or the new snapshot, never a partial file.
+ *
+ * <p>Each entity is stored with its concrete class, e.g. a {@code GoDevice} in the Device cache, as
+ * the SDK models have no type information of their own and would otherwise be read back as the
+ * entity type of the cache, losing the fields of the subclass.
+ */
+final class CacheSnapshotFile {
+
+  private static final int FORMAT_VERSION = 2;
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private static final ObjectMapper MAPPER = new ObjectMapper()
+      .findAndRegisterModules()
+      .disable(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+      .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+      .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+      .setSerializationInclusion(JsonInclude.Include.NON_NULL);
+
+  private CacheSnapshotFile() {
+  }
+
+  /**
+   * The content of a snapshot file.
+   */
+  @Getter
+  @AllArgsConstructor
+  static final class Contents<T> {
+
+    private final Instant loadTime;
+
+    private final String changeVersion;
+
+    private final List<T> entities;
+  }
+
+  static <T> void write(Path file, Instant loadTime, String changeVersion,
+      Collection<T> entities) throws IOException {
+    Files.createDirectories(file.toAbsolutePath().getParent());
+    Path tempFile = Files
+        .createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+
+    try {
+      try (OutputStream outputStream = new GZIPOutputStream(
+          new BufferedOutputStream(Files.newOutputStream(tempFile), BUFFER_SIZE), BUFFER_SIZE);
+          JsonGenerator generator = MAPPER.getFactory().createGenerator(outputStream)) {
+        generator.writeStartObject();
+        generator.writeNumberField("formatVersion", FORMAT_VERSION);
+        generator.writeNumberField("loadTime", loadTime.toEpochMilli());
+        generator.writeStringField("changeVersion", changeVersion);
+        generator.writeArrayFieldStart("entities");
+        for (T entity : entities) {
+          generator.writeStartObject();
+          generator.writeStringField("type", entity.getClass().getName());
+          generator.writeFieldName("entity");
+          MAPPER.writeValue(generator, entity);
+          generator.writeEndObject();
+        }
+        generator.writeEndArray();
+        generator.writeEndObject();
+      }
+      try (FileChannel channel = FileChannel.open(tempFile, WRITE)) {
+        channel.force(true);
+      }
+
+      Files.move(tempFile, file, ATOMIC_MOVE, REPLACE_EXISTING);
+    } finally {
+      Files.deleteIfExists(tempFile);
+    }
+
+    syncDirectory(file.toAbsolutePath().getParent());
+  }
+
+  /**
+   * Force the rename itself to disk. Not every platform can open a directory (Windows can not), in
+   * which case the rename is left to the file system.
+   */
+  private static void syncDirectory(Path directory) {
+    try (FileChannel channel = FileChannel.open(directory, READ)) {
+      channel.force(true);
+    } catch (IOException e) {
+      // the snapshot is only an optimization; without it the cache loads from Geotab
+    }
+  }
+
+  static <T> Contents<T> read(Path file, Class<T> entityType) throws IOException {
+    Instant loadTime = null;
+    String changeVersion = null;
+    List<T> entities = new ArrayList<>();
+    Map<String, Class<? extends T>> types = new HashMap<>();
+
+    try (InputStream inputStream = new GZIPInputStream(
+        new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE), BUFFER_SIZE);
+        JsonParser parser = MAPPER.getFactory().createParser(inputStream)) {
+      if (parser.nextToken() != JsonToken.START_OBJECT) {
+        throw new IOException("Not a cache snapshot: " + file);
+      }
+
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        String field = parser.getCurrentName();
+        parser.nextToken();
+        switch (field) {
+          case "formatVersion":
+            if (parser.getIntValue() != FORMAT_VERSION) {
+              throw new IOException("Unsupported cache snapshot format " + parser.getIntValue());
+            }
+            break;
+          case "loadTime":
+            loadTime = Instant.ofEpochMilli(parser.getLongValue());
+            break;
+          case "changeVersion":
+            changeVersion = parser.getValueAsString();
+            break;
+          case "entities":
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+              entities.add(readEntity(parser, entityType, types));
+            }
+            break;
+          default:
+            parser.skipChildren();
+        }
+      }
+    }
+
+    if (loadTime == null) {
+      throw new IOException("Incomplete cache snapshot: " + file);
+    }
+
+    return new Contents<>(loadTime, changeVersion, entities);
+  }
+
+  private static <T> T readEntity(JsonParser parser, Class<T> entityType,
+      Map<String, Class<? extends T>> types) throws IOException {
+    Class<? extends T> type = null;
+    T entity = null;
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String field = parser.getCurrentName();
+      parser.nextToken();
+      if ("type".equals(field)) {
+        type = resolveType(parser.getValueAsString(), entityType, types);
+      } else if ("entity".equals(field) && type != null) {
+        entity = MAPPER.readValue(parser, type);
+      } else {
+        parser.skipChildren();
+      }
+    }
+
+    if (entity == null) {
+      throw new IOException("Cache snapshot entity without type");
+    }
+    return entity;
+  }
+
+  /**
+   * Get the class of a stored entity; only subclasses of the entity type of the cache are read.
+   */
+  private static <T> Class<? extends T> resolveType(String name, Class<T> entityType,
+      Map<String, Class<? extends T>> types) throws IOException {
+    Class<? extends T> type = types.get(name);
+    if (type == null) {
+      try {
+        type = Class.forName(name, false, entityType.getClassLoader()).asSubclass(entityType);
+      } catch (ClassNotFoundException | ClassCastException exception) {
+        throw new IOException("Unexpected " + entityType.getSimpleName() + " type " + name,
+            exception);
+      }
+      types.put(name, type);
+    }
+    return type;
+  }
+}
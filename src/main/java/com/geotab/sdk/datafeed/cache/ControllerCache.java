@@ -3,10 +3,12 @@ package com.geotab.sdk.datafeed.cache;
 import com.geotab.api.GeotabApi;
 import com.geotab.http.request.AuthenticatedRequest;
 import com.geotab.http.request.param.SearchParameters;
+import com.geotab.http.response.BaseResponse;
 import com.geotab.http.response.ControllerListResponse;
 import com.geotab.model.entity.controller.Controller;
 import com.geotab.model.entity.controller.NoController;
 import com.geotab.model.search.ControllerSearch;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import lombok.extern.slf4j.Slf4j;
@@ -18,8 +20,8 @@ import org.slf4j.Logger;
 @Slf4j
 public final class ControllerCache extends GeotabEntityCache<Controller> {
 
-  public ControllerCache(GeotabApi api) {
-    super(api, NoController.getInstance());
+  public ControllerCache(GeotabApi api, String cacheSpec) {
+    super(api, NoController.getInstance(), cacheSpec);
   }
 
   @Override
@@ -27,18 +29,28 @@ public final class ControllerCache extends GeotabEntityCache<Controller> {
     return log;
   }
 
+  @Override
+  protected Class<Controller> getEntityType() {
+    return Controller.class;
+  }
+
+  @Override
+  protected SearchParameters searchById(String id) {
+    return SearchParameters.searchParamsBuilder()
+        .search(ControllerSearch.builder()
+            .id(id)
+            .build())
+        .typeName("Controller")
+        .build();
+  }
+
   @Override
   protected Optional<Controller> fetchEntity(String id) throws Exception {
     log.debug("Loading Controller by id {} from Geotab ...", id);
 
     AuthenticatedRequest<?> request = AuthenticatedRequest.authRequestBuilder()
         .method("Get")
-        .params(SearchParameters.searchParamsBuilder()
-            .search(ControllerSearch.builder()
-                .id(id)
-                .build())
-            .typeName("Controller")
-            .build())
+        .params(searchById(id))
         .build();
 
     Optional<List<Controller>> controllers = api.call(request, ControllerListResponse.class);
@@ -51,6 +63,12 @@ public final class ControllerCache extends GeotabEntityCache<Controller> {
     return Optional.empty();
   }
 
+  @Override
+  protected List<List<Controller>> fetchMultiCall(AuthenticatedRequest<?> request)
+      throws Exception {
+    return api.call(request, ControllerMultiCallResponse.class).orElse(Collections.emptyList());
+  }
+
   @Override
   protected Optional<List<Controller>> fetchAll() throws Exception {
     log.debug("Loading all Controllers from Geotab ...");
@@ -73,4 +91,10 @@ public final class ControllerCache extends GeotabEntityCache<Controller> {
     return Controller.builder().id(id).build();
   }
 
+  /**
+   * The response of an ExecuteMultiCall of Controller Get calls.
+   */
+  static final class ControllerMultiCallResponse extends BaseResponse<List<List<Controller>>> {
+
+  }
 }
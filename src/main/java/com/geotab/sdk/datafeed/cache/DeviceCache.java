@@ -2,24 +2,32 @@ package com.geotab.sdk.datafeed.cache;
 
 import com.geotab.api.GeotabApi;
 import com.geotab.http.request.AuthenticatedRequest;
+import com.geotab.http.request.param.GetFeedParameters;
 import com.geotab.http.request.param.SearchParameters;
+import com.geotab.http.response.BaseResponse;
 import com.geotab.http.response.DeviceListResponse;
+import com.geotab.http.response.GetFeedDeviceResponse;
+import com.geotab.model.FeedResult;
+import com.geotab.model.entity.Entity;
 import com.geotab.model.entity.device.Device;
+import com.geotab.model.entity.device.GoDevice;
 import com.geotab.model.entity.device.NoDevice;
 import com.geotab.model.search.IdSearch;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import lombok.extern.slf4j.Slf4j;
 import org.slf4j.Logger;
 
 /**
- * {@link Device} cache singleton. Reloads controllers periodically on demand and caches them.
+ * {@link Device} cache singleton. Keeps itself current with the Device change feed and caches
+ * them.
  */
 @Slf4j
 public final class DeviceCache extends GeotabEntityCache<Device> {
 
-  public DeviceCache(GeotabApi api) {
-    super(api, NoDevice.getInstance());
+  public DeviceCache(GeotabApi api, String cacheSpec) {
+    super(api, NoDevice.getInstance(), cacheSpec);
   }
 
   @Override
@@ -27,16 +35,26 @@ public final class DeviceCache extends GeotabEntityCache<Device> {
     return log;
   }
 
+  @Override
+  protected Class<Device> getEntityType() {
+    return Device.class;
+  }
+
+  @Override
+  protected SearchParameters searchById(String id) {
+    return SearchParameters.searchParamsBuilder()
+        .search(new IdSearch(id))
+        .typeName("Device")
+        .build();
+  }
+
   @Override
   protected Optional<Device> fetchEntity(String id) throws Exception {
     log.debug("Loading Device by id {} from Geotab ...", id);
 
     AuthenticatedRequest<?> request = AuthenticatedRequest.authRequestBuilder()
         .method("Get")
-        .params(SearchParameters.searchParamsBuilder()
-            .search(new IdSearch(id))
-            .typeName("Device")
-            .build())
+        .params(searchById(id))
         .build();
 
     Optional<List<Device>> devices = api.call(request, DeviceListResponse.class);
@@ -49,6 +67,11 @@ public final class DeviceCache extends GeotabEntityCache<Device> {
     return Optional.empty();
   }
 
+  @Override
+  protected List<List<Device>> fetchMultiCall(AuthenticatedRequest<?> request) throws Exception {
+    return api.call(request, DeviceMultiCallResponse.class).orElse(Collections.emptyList());
+  }
+
   @Override
   protected Optional<List<Device>> fetchAll() throws Exception {
     log.debug("Loading all Device from Geotab ...");
@@ -62,6 +85,28 @@ public final class DeviceCache extends GeotabEntityCache<Device> {
     return api.call(request, DeviceListResponse.class);
   }
 
+  @Override
+  protected Optional<FeedResult<? extends Entity>> fetchChanges(String fromVersion)
+      throws Exception {
+    log.debug("Loading Device changes from version {} from Geotab ...", fromVersion);
+    AuthenticatedRequest<?> request = AuthenticatedRequest.authRequestBuilder()
+        .method("GetFeed")
+        .params(GetFeedParameters.getFeedParamsBuilder()
+            .typeName("Device")
+            .fromVersion(fromVersion)
+            .build())
+        .build();
+
+    Optional<FeedResult<Device>> devices = api.call(request, GetFeedDeviceResponse.class);
+
+    return devices.map(feedResult -> feedResult);
+  }
+
+  @Override
+  public boolean isChangeTracking() {
+    return true;
+  }
+
   @Override
   protected Device createFakeCacheable(String id) {
     log.debug(
@@ -70,4 +115,23 @@ public final class DeviceCache extends GeotabEntityCache<Device> {
     return Device.builder().id(id).build();
   }
 
+  @Override
+  protected int weigh(Device device) {
+    int weight = super.weigh(device);
+    if (device.getSerialNumber() != null) {
+      weight += 2 * device.getSerialNumber().length();
+    }
+    if (device instanceof GoDevice
+        && ((GoDevice) device).getVehicleIdentificationNumber() != null) {
+      weight += 2 * ((GoDevice) device).getVehicleIdentificationNumber().length();
+    }
+    return weight;
+  }
+
+  /**
+   * The response of an ExecuteMultiCall of Device Get calls.
+   */
+  static final class DeviceMultiCallResponse extends BaseResponse<List<List<Device>>> {
+
+  }
 }
@@ -3,13 +3,17 @@ package com.geotab.sdk.datafeed.cache;
 import com.geotab.api.GeotabApi;
 import com.geotab.http.request.AuthenticatedRequest;
 import com.geotab.http.request.param.SearchParameters;
+import com.geotab.http.response.BaseResponse;
 import com.geotab.http.response.DiagnosticListResponse;
 import com.geotab.model.entity.diagnostic.BasicDiagnostic;
 import com.geotab.model.entity.diagnostic.Diagnostic;
 import com.geotab.model.entity.diagnostic.NoDiagnostic;
 import com.geotab.model.search.IdSearch;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
 import lombok.extern.slf4j.Slf4j;
 import org.slf4j.Logger;
 
@@ -25,9 +29,10 @@ public final class DiagnosticCache extends GeotabEntityCache<Diagnostic> {
   public DiagnosticCache(
       GeotabApi api,
       ControllerCache controllerCache,
-      UnitOfMeasureCache unitOfMeasureCache
+      UnitOfMeasureCache unitOfMeasureCache,
+      String cacheSpec
   ) {
-    super(api, NoDiagnostic.getInstance());
+    super(api, NoDiagnostic.getInstance(), cacheSpec);
     this.controllerCache = controllerCache;
     this.unitOfMeasureCache = unitOfMeasureCache;
   }
@@ -37,16 +42,26 @@ public final class DiagnosticCache extends GeotabEntityCache<Diagnostic> {
     return log;
   }
 
+  @Override
+  protected Class<Diagnostic> getEntityType() {
+    return Diagnostic.class;
+  }
+
+  @Override
+  protected SearchParameters searchById(String id) {
+    return SearchParameters.searchParamsBuilder()
+        .search(new IdSearch(id))
+        .typeName("Diagnostic")
+        .build();
+  }
+
   @Override
   protected Optional<Diagnostic> fetchEntity(String id) throws Exception {
     log.debug("Loading Diagnostic by id {} from Geotab ...", id);
 
     AuthenticatedRequest<?> request = AuthenticatedRequest.authRequestBuilder()
         .method("Get")
-        .params(SearchParameters.searchParamsBuilder()
-            .search(new IdSearch(id))
-            .typeName("Diagnostic")
-            .build())
+        .params(searchById(id))
         .build();
 
     Optional<List<Diagnostic>> diagnostics = api.call(request, DiagnosticListResponse.class);
@@ -59,6 +74,12 @@ public final class DiagnosticCache extends GeotabEntityCache<Diagnostic> {
     return Optional.empty();
   }
 
+  @Override
+  protected List<List<Diagnostic>> fetchMultiCall(AuthenticatedRequest<?> request)
+      throws Exception {
+    return api.call(request, DiagnosticMultiCallResponse.class).orElse(Collections.emptyList());
+  }
+
   @Override
   protected Optional<List<Diagnostic>> fetchAll() throws Exception {
     log.debug("Loading all Diagnostic from Geotab ...");
@@ -80,6 +101,21 @@ public final class DiagnosticCache extends GeotabEntityCache<Diagnostic> {
     return BasicDiagnostic.basicDiagnosticBuilder().id(id).build();
   }
 
+  @Override
+  public void preload(Iterable<String> ids) {
+    super.preload(ids);
+
+    Collection<Diagnostic> diagnostics = getAllPresent(ids).values();
+    controllerCache.preload(diagnostics.stream()
+        .filter(diagnostic -> diagnostic.getController() != null)
+        .map(diagnostic -> diagnostic.getController().getId().getId())
+        .collect(Collectors.toSet()));
+    unitOfMeasureCache.preload(diagnostics.stream()
+        .filter(diagnostic -> diagnostic.getUnitOfMeasure() != null)
+        .map(diagnostic -> diagnostic.getUnitOfMeasure().getId().getId())
+        .collect(Collectors.toSet()));
+  }
+
   @Override
   public Diagnostic get(String id) {
     Diagnostic diagnostic = super.get(id);
@@ -95,4 +131,11 @@ public final class DiagnosticCache extends GeotabEntityCache<Diagnostic> {
 
     return diagnostic;
   }
+
+  /**
+   * The response of an ExecuteMultiCall of Diagnostic Get calls.
+   */
+  static final class DiagnosticMultiCallResponse extends BaseResponse<List<List<Diagnostic>>> {
+
+  }
 }
@@ -2,27 +2,35 @@ package com.geotab.sdk.datafeed.cache;
 
 import com.geotab.api.GeotabApi;
 import com.geotab.http.request.AuthenticatedRequest;
+import com.geotab.http.request.param.GetFeedParameters;
 import com.geotab.http.request.param.SearchParameters;
+import com.geotab.http.response.BaseResponse;
+import com.geotab.http.response.GetFeedUserResponse;
 import com.geotab.http.response.UserListResponse;
+import com.geotab.model.FeedResult;
+import com.geotab.model.entity.Entity;
 import com.geotab.model.entity.user.Driver;
 import com.geotab.model.entity.user.NoDriver;
 import com.geotab.model.entity.user.UnknownDriver;
 import com.geotab.model.entity.user.User;
 import com.geotab.model.search.UserSearch;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 import lombok.extern.slf4j.Slf4j;
 import org.slf4j.Logger;
 
 /**
- * {@link Driver} cache singleton. Reloads controllers periodically on demand and caches them.
+ * {@link Driver} cache singleton. Keeps itself current with the User change feed and caches the
+ * drivers.
  */
 @Slf4j
 public final class DriverCache extends GeotabEntityCache<Driver> {
 
-  public DriverCache(GeotabApi api) {
-    super(api, NoDriver.getInstance());
+  public DriverCache(GeotabApi api, String cacheSpec) {
+    super(api, NoDriver.getInstance(), cacheSpec);
   }
 
   @Override
@@ -30,21 +38,31 @@ public final class DriverCache extends GeotabEntityCache<Driver> {
     return log;
   }
 
+  @Override
+  protected Class<Driver> getEntityType() {
+    return Driver.class;
+  }
+
+  @Override
+  protected SearchParameters searchById(String id) {
+    return SearchParameters.searchParamsBuilder()
+        .search(
+            UserSearch.builder()
+                .id(id)
+                .isDriver(true)
+                .build()
+        )
+        .typeName("User")
+        .build();
+  }
+
   @Override
   protected Optional<Driver> fetchEntity(String id) throws Exception {
     log.debug("Loading Driver by id {} from Geotab ...", id);
 
     AuthenticatedRequest<?> request = AuthenticatedRequest.authRequestBuilder()
         .method("Get")
-        .params(SearchParameters.searchParamsBuilder()
-            .search(
-                UserSearch.builder()
-                    .id(id)
-                    .isDriver(true)
-                    .build()
-            )
-            .typeName("User")
-            .build())
+        .params(searchById(id))
         .build();
 
     Optional<List<? extends User>> drivers = api.call(request, UserListResponse.class);
@@ -57,6 +75,11 @@ public final class DriverCache extends GeotabEntityCache<Driver> {
     return Optional.empty();
   }
 
+  @Override
+  protected List<List<User>> fetchMultiCall(AuthenticatedRequest<?> request) throws Exception {
+    return api.call(request, UserMultiCallResponse.class).orElse(Collections.emptyList());
+  }
+
   @Override
   protected Optional<List<Driver>> fetchAll() throws Exception {
     log.debug("Loading all Drivers from Geotab ...");
@@ -81,6 +104,38 @@ public final class DriverCache extends GeotabEntityCache<Driver> {
     );
   }
 
+  @Override
+  protected Optional<FeedResult<? extends Entity>> fetchChanges(String fromVersion)
+      throws Exception {
+    log.debug("Loading User changes from version {} from Geotab ...", fromVersion);
+    AuthenticatedRequest<?> request = AuthenticatedRequest.authRequestBuilder()
+        .method("GetFeed")
+        .params(GetFeedParameters.getFeedParamsBuilder()
+            .typeName("User")
+            .fromVersion(fromVersion)
+            .build())
+        .build();
+
+    Optional<FeedResult<User>> users = api.call(request, GetFeedUserResponse.class);
+
+    return users.map(feedResult -> feedResult);
+  }
+
+  @Override
+  public boolean isChangeTracking() {
+    return true;
+  }
+
+  @Override
+  protected void applyChange(Map<String, Driver> entities, Entity entity) {
+    if (entity instanceof Driver) {
+      entities.put(entity.getId().getId(), (Driver) entity);
+    } else {
+      // the user is no longer a driver
+      entities.remove(entity.getId().getId());
+    }
+  }
+
   @Override
   protected Driver createFakeCacheable(String id) {
     log.debug("No Driver with id {} found in Geotab; creating a fake Driver to cache it.", id);
@@ -88,9 +143,16 @@ public final class DriverCache extends GeotabEntityCache<Driver> {
   }
 
   @Override
-  protected boolean cacheNoEntity() {
-    cache.put(NoDriver.getInstance().getId().getId(), NoDriver.getInstance());
-    cache.put(UnknownDriver.getInstance().getId().getId(), UnknownDriver.getInstance());
+  protected boolean cacheNoEntity(Map<String, Driver> entities) {
+    entities.put(NoDriver.getInstance().getId().getId(), NoDriver.getInstance());
+    entities.put(UnknownDriver.getInstance().getId().getId(), UnknownDriver.getInstance());
     return true;
   }
+
+  /**
+   * The response of an ExecuteMultiCall of User Get calls.
+   */
+  static final class UserMultiCallResponse extends BaseResponse<List<List<User>>> {
+
+  }
 }
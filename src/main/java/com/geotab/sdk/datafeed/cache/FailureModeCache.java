@@ -3,10 +3,12 @@ package com.geotab.sdk.datafeed.cache;
 import com.geotab.api.GeotabApi;
 import com.geotab.http.request.AuthenticatedRequest;
 import com.geotab.http.request.param.SearchParameters;
+import com.geotab.http.response.BaseResponse;
 import com.geotab.http.response.FailureModeListResponse;
 import com.geotab.model.entity.failuremode.FailureMode;
 import com.geotab.model.entity.failuremode.NoFailureMode;
 import com.geotab.model.search.IdSearch;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import lombok.extern.slf4j.Slf4j;
@@ -18,8 +20,8 @@ import org.slf4j.Logger;
 @Slf4j
 public final class FailureModeCache extends GeotabEntityCache<FailureMode> {
 
-  public FailureModeCache(GeotabApi api) {
-    super(api, NoFailureMode.getInstance());
+  public FailureModeCache(GeotabApi api, String cacheSpec) {
+    super(api, NoFailureMode.getInstance(), cacheSpec);
   }
 
   @Override
@@ -27,16 +29,26 @@ public final class FailureModeCache extends GeotabEntityCache<FailureMode> {
     return log;
   }
 
+  @Override
+  protected Class<FailureMode> getEntityType() {
+    return FailureMode.class;
+  }
+
+  @Override
+  protected SearchParameters searchById(String id) {
+    return SearchParameters.searchParamsBuilder()
+        .search(new IdSearch(id))
+        .typeName("FailureMode")
+        .build();
+  }
+
   @Override
   protected Optional<FailureMode> fetchEntity(String id) throws Exception {
     log.debug("Loading FailureMode by id {} from Geotab ...", id);
 
     AuthenticatedRequest<?> request = AuthenticatedRequest.authRequestBuilder()
         .method("Get")
-        .params(SearchParameters.searchParamsBuilder()
-            .search(new IdSearch(id))
-            .typeName("FailureMode")
-            .build())
+        .params(searchById(id))
         .build();
 
     Optional<List<FailureMode>> failureModes = api.call(request, FailureModeListResponse.class);
@@ -49,6 +61,12 @@ public final class FailureModeCache extends GeotabEntityCache<FailureMode> {
     return Optional.empty();
   }
 
+  @Override
+  protected List<List<FailureMode>> fetchMultiCall(AuthenticatedRequest<?> request)
+      throws Exception {
+    return api.call(request, FailureModeMultiCallResponse.class).orElse(Collections.emptyList());
+  }
+
   @Override
   protected Optional<List<FailureMode>> fetchAll() throws Exception {
     log.debug("Loading all FailureMode from Geotab ...");
@@ -70,4 +88,10 @@ public final class FailureModeCache extends GeotabEntityCache<FailureMode> {
     return FailureMode.failureModeBuilder().id(id).build();
   }
 
+  /**
+   * The response of an ExecuteMultiCall of FailureMode Get calls.
+   */
+  static final class FailureModeMultiCallResponse extends BaseResponse<List<List<FailureMode>>> {
+
+  }
 }
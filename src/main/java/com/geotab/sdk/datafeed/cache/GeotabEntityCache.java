@@ -1,39 +1,204 @@
 package com.geotab.sdk.datafeed.cache;
 
 import com.geotab.api.GeotabApi;
+import com.geotab.http.request.AuthenticatedRequest;
+import com.geotab.http.request.param.SearchParameters;
+import com.geotab.model.FeedResult;
 import com.geotab.model.entity.Entity;
+import com.geotab.model.entity.NameEntity;
+import com.geotab.sdk.common.MultiCallParameters;
+import com.geotab.sdk.datafeed.metrics.LatencyHistogram;
+import com.google.common.base.Splitter;
 import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheBuilderSpec;
 import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
 import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Sets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 
 /**
  * Base {@link Entity} cache.
+ *
+ * <p>Capacity, expiry and refresh are configured with a Guava {@link
+ * com.google.common.cache.CacheBuilderSpec} string, e.g. {@code
+ * maximumWeight=20000000,expireAfterWrite=12h,recordStats}. With {@code maximumWeight} the entries
+ * are weighed by their estimated size in bytes, see {@link #weigh(Entity)}.
+ *
+ * <p>Full loads and change feed pages are published as an immutable snapshot map behind a volatile
+ * reference, so readers never take a lock and never see a half loaded or empty cache. The Guava
+ * cache holds the entities missing from the snapshot. The {@code maximumSize} or {@code
+ * maximumWeight} of the spec bounds the snapshot as well as the Guava cache: the entities of a load
+ * beyond it are left out of the snapshot and loaded one by one when asked for. Without either, the
+ * snapshot holds every entity of its type.
+ *
+ * <p>The snapshot can be saved to and restored from a file, so a restarted feed starts from the
+ * entities it had instead of loading all of them from Geotab again.
  */
 public abstract class GeotabEntityCache<T extends Entity> {
 
+  /**
+   * The cache spec used when none is configured.
+   */
+  public static final String DEFAULT_CACHE_SPEC = "recordStats";
+
+  /**
+   * Estimated size in bytes of an entity, not counting its strings.
+   */
+  protected static final int BASE_ENTITY_WEIGHT = 256;
+
+  private static final Splitter SPEC_SPLITTER = Splitter.on(',').trimResults().omitEmptyStrings();
+
+  /**
+   * The Get calls by id {@link #fetchEntities(Set)} sends in one ExecuteMultiCall.
+   */
+  protected static final int MULTI_CALL_SIZE = 100;
+
+  /**
+   * The most change feed pages applied by one {@link #refresh()}.
+   */
+  private static final int MAX_CHANGE_PAGES = 100;
+
   protected LoadingCache<String, T> cache;
 
+  /**
+   * The entities of the last full load and change feed pages; replaced as a whole, never mutated.
+   */
+  private volatile Map<String, T> snapshot = ImmutableMap.of();
+
+  private final LongAdder snapshotHits = new LongAdder();
+
+  /**
+   * The durations of the full reloads and change feed refreshes which built a new snapshot.
+   */
+  private final LatencyHistogram reloadLatency = new LatencyHistogram();
+
+  /**
+   * Held while a new snapshot is built; a second reload or refresh skips instead of waiting.
+   */
+  private final ReentrantLock reloadLock = new ReentrantLock();
+
   protected GeotabApi api;
 
   protected T noEntity;
 
-  protected GeotabEntityCache(GeotabApi api, T noEntity) {
+  /**
+   * The bounds of the snapshot from the cache spec; {@link Long#MAX_VALUE} when not bounded.
+   */
+  private final long maxSnapshotSize;
+
+  private final long maxSnapshotWeight;
+
+  /**
+   * The version of the last applied change feed page; null until the first {@link #refresh()}.
+   */
+  private volatile String changeVersion;
+
+  /**
+   * When the snapshot was last brought up to date with Geotab; null until the first load.
+   */
+  private volatile Instant snapshotTime;
+
+  protected GeotabEntityCache(GeotabApi api, T noEntity, String cacheSpec) {
     this.api = api;
     this.noEntity = noEntity;
-    this.cache = CacheBuilder.newBuilder()
-        .maximumSize(600)
-        //.expireAfterWrite(12, TimeUnit.HOURS)
-        .build(new CacheLoader<String, T>() {
-          @Override
-          public T load(String key) throws Exception {
-            Optional<T> entity = fetchEntity(key);
-            return entity.orElseGet(() -> createFakeCacheable(key));
+
+    CacheBuilderSpec spec = CacheBuilderSpec.parse(cacheSpec);
+    this.maxSnapshotSize = specLimit(spec, "maximumSize");
+    this.maxSnapshotWeight = specLimit(spec, "maximumWeight");
+    CacheBuilder<Object, Object> cacheBuilder = CacheBuilder.from(spec);
+    if (maxSnapshotWeight != Long.MAX_VALUE) {
+      // maximumWeight is only valid together with a weigher
+      this.cache = cacheBuilder
+          .weigher((String id, T entity) -> weigh(entity))
+          .build(createCacheLoader());
+    } else {
+      this.cache = cacheBuilder.build(createCacheLoader());
+    }
+  }
+
+  /**
+   * Get a bound of a parsed, hence valid, cache spec; its keys are split the way {@link
+   * CacheBuilderSpec} splits them.
+   *
+   * @return The bound; {@link Long#MAX_VALUE} when the spec does not set it.
+   */
+  private static long specLimit(CacheBuilderSpec spec, String key) {
+    return StreamSupport.stream(SPEC_SPLITTER.split(spec.toParsableString()).spliterator(), false)
+        .filter(entry -> key.equals(StringUtils.substringBefore(entry, "=").trim()))
+        .mapToLong(entry -> Long.parseLong(StringUtils.substringAfter(entry, "=").trim()))
+        .findFirst()
+        .orElse(Long.MAX_VALUE);
+  }
+
+  /**
+   * Keep the next snapshot within the maximumSize or maximumWeight of the cache spec; the entities
+   * left out are loaded into the Guava cache one by one when asked for.
+   *
+   * @param entities The next snapshot.
+   * @return The next snapshot, or a bounded copy of it.
+   */
+  private Map<String, T> bound(Map<String, T> entities) {
+    boolean weighed = maxSnapshotWeight != Long.MAX_VALUE;
+    if (entities.size() <= maxSnapshotSize && (!weighed
+        || entities.values().stream().mapToLong(this::weigh).sum() <= maxSnapshotWeight)) {
+      return entities;
+    }
+
+    Map<String, T> bounded = new HashMap<>();
+    long weight = 0;
+    for (Map.Entry<String, T> entry : entities.entrySet()) {
+      long entityWeight = weighed ? weigh(entry.getValue()) : 0;
+      if (bounded.size() >= maxSnapshotSize || weight + entityWeight > maxSnapshotWeight) {
+        break;
+      }
+      weight += entityWeight;
+      bounded.put(entry.getKey(), entry.getValue());
+    }
+
+    getLog().warn("Snapshot bounded by the cache spec to {} of {} entities; raise the bound to "
+        + "keep all of them", bounded.size(), entities.size());
+    return bounded;
+  }
+
+  private CacheLoader<String, T> createCacheLoader() {
+    return new CacheLoader<String, T>() {
+      @Override
+      public T load(String key) throws Exception {
+        Optional<T> entity = fetchEntity(key);
+        return entity.orElseGet(() -> createFakeCacheable(key));
+      }
+
+      @Override
+      public Map<String, T> loadAll(Iterable<? extends String> keys) throws Exception {
+        Set<String> ids = Sets.newHashSet(keys);
+        Map<String, T> entities = fetchEntities(ids);
+        for (String id : ids) {
+          if (!entities.containsKey(id)) {
+            entities.put(id, createFakeCacheable(id));
           }
-        });
+        }
+        return entities;
+      }
+    };
   }
 
   /**
@@ -43,6 +208,13 @@ public abstract class GeotabEntityCache<T extends Entity> {
    */
   protected abstract Logger getLog();
 
+  /**
+   * Get the type of the cached entities, used to read them back from a snapshot file.
+   *
+   * @return The entity type.
+   */
+  protected abstract Class<T> getEntityType();
+
   /**
    * Load entity by id from Geotab.
    *
@@ -52,12 +224,100 @@ public abstract class GeotabEntityCache<T extends Entity> {
   protected abstract Optional<T> fetchEntity(String id) throws Exception;
 
   /**
-   * Load all entities from Geotab.
+   * Get the parameters of the Get call loading one entity by id.
+   *
+   * @param id The entity id.
+   * @return The search parameters.
+   */
+  protected abstract SearchParameters searchById(String id);
+
+  /**
+   * Load entities by ids from Geotab: one {@link #searchById(String)} Get call per id, sent in
+   * ExecuteMultiCall requests of up to {@link #MULTI_CALL_SIZE} calls, so resolving many misses
+   * takes a few round trips without loading the entities which were not asked for.
+   *
+   * @param ids The entity ids.
+   * @return The found entities by id.
+   */
+  protected Map<String, T> fetchEntities(Set<String> ids) throws Exception {
+    Map<String, T> entities = new HashMap<>();
+
+    if (ids.size() == 1) {
+      String id = ids.iterator().next();
+      fetchEntity(id).ifPresent(entity -> entities.put(id, entity));
+      return entities;
+    }
+
+    getLog().debug("Loading {} entities by id ...", ids.size());
+    for (List<String> idsOfCall : Iterables.partition(ids, MULTI_CALL_SIZE)) {
+      MultiCallParameters.MultiCallParametersBuilder params =
+          MultiCallParameters.multiCallParamsBuilder();
+      idsOfCall.forEach(id -> params.call(new MultiCallParameters.Call("Get", searchById(id))));
+      AuthenticatedRequest<?> request = AuthenticatedRequest.authRequestBuilder()
+          .method("ExecuteMultiCall")
+          .params(params.build())
+          .build();
+
+      for (List<? extends Entity> found : fetchMultiCall(request)) {
+        for (Entity entity : found) {
+          // e.g. a user who is not a driver
+          if (getEntityType().isInstance(entity)) {
+            entities.put(entity.getId().getId(), getEntityType().cast(entity));
+          }
+        }
+      }
+    }
+    return entities;
+  }
+
+  /**
+   * Execute an ExecuteMultiCall of {@link #searchById(String)} Get calls.
+   *
+   * @param request The multi-call.
+   * @return The entities found by each Get call, in call order.
+   */
+  protected abstract List<? extends List<? extends Entity>> fetchMultiCall(
+      AuthenticatedRequest<?> request) throws Exception;
+
+  /**
+   * Load all entities from Geotab, for the full reloads.
    *
    * @return All entities.
    */
   protected abstract Optional<List<T>> fetchAll() throws Exception;
 
+  /**
+   * Load the entities changed since a version using GetFeed. Only caches of entity types with a
+   * Geotab change feed override this; the default has no changes to offer.
+   *
+   * @param fromVersion The version to load changes from; null to start from the beginning.
+   * @return The changed entities and the version they reach, or empty if not supported.
+   */
+  protected Optional<FeedResult<? extends Entity>> fetchChanges(String fromVersion)
+      throws Exception {
+    return Optional.empty();
+  }
+
+  /**
+   * Whether this cache keeps itself current with {@link #fetchChanges(String)}.
+   *
+   * @return True if {@link #refresh()} applies incremental changes.
+   */
+  public boolean isChangeTracking() {
+    return false;
+  }
+
+  /**
+   * Apply one changed entity from the change feed to the next snapshot.
+   *
+   * @param entities The next snapshot.
+   * @param entity   The changed entity.
+   */
+  @SuppressWarnings("unchecked")
+  protected void applyChange(Map<String, T> entities, Entity entity) {
+    entities.put(entity.getId().getId(), (T) entity);
+  }
+
   /**
    * In the extreme unlike scenario when the entity is not found in Geotab system by the id, then
    * create a fake entity of the required type.
@@ -68,17 +328,87 @@ public abstract class GeotabEntityCache<T extends Entity> {
   protected abstract T createFakeCacheable(String id);
 
   /**
-   * Cache the NoEntity instance.
+   * Estimate the size of an entity in bytes, used as its weight when the cache is bounded by {@code
+   * maximumWeight}.
+   *
+   * @param entity The entity.
+   * @return The estimated size.
+   */
+  protected int weigh(T entity) {
+    int weight = BASE_ENTITY_WEIGHT;
+    if (entity instanceof NameEntity && ((NameEntity) entity).getName() != null) {
+      weight += 2 * ((NameEntity) entity).getName().length();
+    }
+    return weight;
+  }
+
+  /**
+   * Get the statistics of the Guava cache behind the snapshot; all zero unless the cache spec
+   * contains {@code recordStats}.
+   *
+   * @return The hit, miss, load and eviction statistics.
+   */
+  public CacheStats stats() {
+    return cache.stats();
+  }
+
+  /**
+   * Get the number of lookups answered by the snapshot.
+   *
+   * @return The snapshot hit count.
+   */
+  public long snapshotHitCount() {
+    return snapshotHits.sum();
+  }
+
+  /**
+   * Get the durations of the full reloads and change feed refreshes.
+   *
+   * @return The reload latency histogram.
+   */
+  public LatencyHistogram getReloadLatency() {
+    return reloadLatency;
+  }
+
+  /**
+   * Log the cache size and statistics.
+   */
+  public void logStats() {
+    getLog().info("Snapshot size {}, hits {}; cache size {}, {}", snapshot.size(),
+        snapshotHits.sum(), cache.size(), cache.stats());
+  }
+
+  /**
+   * Add the NoEntity instance to the next snapshot.
    *
+   * @param entities The next snapshot.
    * @return Whether the operation succeeded or not.
    */
-  protected boolean cacheNoEntity() {
+  protected boolean cacheNoEntity(Map<String, T> entities) {
     if (noEntity != null) {
-      cache.put(noEntity.getId().getId(), noEntity);
+      entities.put(noEntity.getId().getId(), noEntity);
     }
     return true;
   }
 
+  /**
+   * Get the cached entities with the given ids, without loading any.
+   *
+   * @param ids The entity ids.
+   * @return The cached entities by id.
+   */
+  protected Map<String, T> getAllPresent(Iterable<String> ids) {
+    Map<String, T> currentSnapshot = snapshot;
+    Map<String, T> entities = new HashMap<>(cache.getAllPresent(ids));
+    for (String id : ids) {
+      T entity = currentSnapshot.get(id);
+      if (entity != null) {
+        entities.put(id, entity);
+      }
+    }
+    return entities;
+  }
+
   /**
    * Get entity by id.
    *
@@ -92,6 +422,12 @@ public abstract class GeotabEntityCache<T extends Entity> {
 
     getLog().debug("Get entity with id = {}", id);
 
+    T entity = snapshot.get(id);
+    if (entity != null) {
+      snapshotHits.increment();
+      return entity;
+    }
+
     try {
       return cache.get(id);
     } catch (Exception e) {
@@ -102,50 +438,263 @@ public abstract class GeotabEntityCache<T extends Entity> {
   }
 
   /**
-   * Invalidate/flush all cached entities.
+   * Make sure the entities with the given ids are cached, resolving all misses together instead of
+   * one {@link #get(String)} at a time.
+   *
+   * @param ids The entity ids; empty ids are ignored.
+   */
+  public void preload(Iterable<String> ids) {
+    Map<String, T> currentSnapshot = snapshot;
+    Set<String> idsToLoad = StreamSupport.stream(ids.spliterator(), false)
+        .filter(id -> StringUtils.isNotEmpty(id) && !currentSnapshot.containsKey(id))
+        .collect(Collectors.toSet());
+    if (idsToLoad.isEmpty()) {
+      return;
+    }
+
+    try {
+      cache.getAll(idsToLoad);
+    } catch (Exception e) {
+      getLog().error("Can not preload {} ids; they will be loaded one by one", idsToLoad.size(), e);
+    }
+  }
+
+  /**
+   * Bring the cache up to date with the changes since the last refresh. The change feed pages are
+   * applied to a copy of the snapshot, published as a new snapshot once; nothing is flushed. The
+   * first refresh loads the whole change feed. Caches which are not change tracking are fully
+   * reloaded instead.
    *
    * @return Whether the operation succeeded or not.
    */
-  public synchronized boolean flush() {
-    if (cache != null) {
-      getLog().debug("Removing all from cache ...");
+  public boolean refresh() {
+    if (!isChangeTracking()) {
+      return reloadAll();
+    }
 
-      try {
-        cache.invalidateAll();
-      } catch (Exception e) {
-        getLog().error(".flush() {}", cache, e);
-        return false;
+    if (!reloadLock.tryLock()) {
+      getLog().debug("Cache is already being reloaded");
+      return true;
+    }
+
+    getLog().debug("Refreshing cache from version {} ...", changeVersion);
+
+    final long start = System.nanoTime();
+    String version = changeVersion;
+    int changes = 0;
+    // the pages are applied to one copy of the snapshot, published once at the end
+    Map<String, T> nextSnapshot = null;
+    List<String> changedIds = new ArrayList<>();
+    try {
+      for (int page = 0; page < MAX_CHANGE_PAGES; page++) {
+        Optional<FeedResult<? extends Entity>> feedResult = fetchChanges(version);
+        if (!feedResult.isPresent()) {
+          break;
+        }
+
+        List<? extends Entity> changedEntities = feedResult.get().getData();
+        if (!changedEntities.isEmpty()) {
+          if (nextSnapshot == null) {
+            nextSnapshot = new HashMap<>(snapshot);
+          }
+          for (Entity entity : changedEntities) {
+            applyChange(nextSnapshot, entity);
+            changedIds.add(entity.getId().getId());
+          }
+          changes += changedEntities.size();
+        }
+
+        String toVersion = feedResult.get().getToVersion();
+        boolean advanced = toVersion != null && !toVersion.equals(version);
+        version = toVersion != null ? toVersion : version;
+        if (changedEntities.isEmpty() || !advanced) {
+          break;
+        }
       }
+      snapshotTime = Instant.now();
+    } catch (Exception exception) {
+      getLog().error("Failed to refresh entities - ", exception);
+      return false;
+    } finally {
+      // keep the progress of the pages applied so far; the snapshot before its version
+      if (nextSnapshot != null) {
+        publishChanges(nextSnapshot, changedIds);
+      }
+      changeVersion = version;
+      reloadLock.unlock();
+      reloadLatency.recordSince(start);
+    }
+
+    getLog().debug("Cache refreshed with {} changes up to version {}", changes, changeVersion);
+
+    return true;
+  }
+
+  private void publishChanges(Map<String, T> nextSnapshot, List<String> changedIds) {
+    Map<String, T> boundedSnapshot = bound(nextSnapshot);
+    cacheNoEntity(boundedSnapshot);
+    snapshot = Collections.unmodifiableMap(boundedSnapshot);
+
+    // drop what the cache loaded for these ids before, the snapshot is now newer
+    cache.invalidateAll(changedIds);
+  }
 
-      getLog().debug("Cache invalidated.");
+  /**
+   * Get the version of the last applied change feed page.
+   *
+   * @return The change version; null until the first {@link #refresh()}.
+   */
+  public String getChangeVersion() {
+    return changeVersion;
+  }
+
+  /**
+   * Get when the snapshot was last brought up to date with Geotab.
+   *
+   * @return The snapshot time; empty until the first load or restore.
+   */
+  public Optional<Instant> getSnapshotTime() {
+    return Optional.ofNullable(snapshotTime);
+  }
+
+  /**
+   * Save the snapshot, its time and change version to a file.
+   *
+   * @param file The snapshot file; replaced atomically.
+   * @return Whether the operation succeeded or not.
+   */
+  public boolean saveSnapshot(Path file) {
+    // read the version before the snapshot, so the saved entities are never older than it
+    String version = changeVersion;
+    Instant time = snapshotTime;
+    Map<String, T> currentSnapshot = snapshot;
+    if (time == null || currentSnapshot.isEmpty()) {
+      getLog().debug("Nothing loaded yet; snapshot not saved");
+      return false;
     }
+
+    long start = System.nanoTime();
+    try {
+      CacheSnapshotFile.write(file, time, version, currentSnapshot.values());
+    } catch (Exception exception) {
+      getLog().error("Can not save snapshot to {}", file, exception);
+      return false;
+    }
+
+    getLog().info("Saved {} entities to {} in {} ms", currentSnapshot.size(), file,
+        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
     return true;
   }
 
   /**
-   * Invalidate cache and reload all entities from Geotab.
+   * Restore the snapshot, its time and change version from a file saved by {@link
+   * #saveSnapshot(Path)}. A change tracking cache then only applies the changes since the saved
+   * version on its next {@link #refresh()}.
+   *
+   * @param file The snapshot file.
+   * @return Whether the snapshot was restored; if not, the cache is left empty and loads from
+   *     Geotab as usual.
+   */
+  public boolean restoreSnapshot(Path file) {
+    if (!Files.isRegularFile(file)) {
+      getLog().debug("No snapshot at {}", file);
+      return false;
+    }
+
+    final long start = System.nanoTime();
+    CacheSnapshotFile.Contents<T> contents;
+    try {
+      contents = CacheSnapshotFile.read(file, getEntityType());
+    } catch (Exception exception) {
+      getLog().warn("Can not restore snapshot from {}; loading from Geotab instead", file,
+          exception);
+      return false;
+    }
+
+    Map<String, T> entities = new HashMap<>();
+    for (T entity : contents.getEntities()) {
+      entities.put(entity.getId().getId(), entity);
+    }
+    Map<String, T> restoredSnapshot = bound(entities);
+    cacheNoEntity(restoredSnapshot);
+
+    reloadLock.lock();
+    try {
+      snapshot = Collections.unmodifiableMap(restoredSnapshot);
+      snapshotTime = contents.getLoadTime();
+      changeVersion = contents.getChangeVersion();
+      cache.invalidateAll();
+    } finally {
+      reloadLock.unlock();
+    }
+
+    getLog().info("Restored {} entities loaded at {} from {} in {} ms", restoredSnapshot.size(),
+        snapshotTime, file, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    return true;
+  }
+
+  /**
+   * Invalidate/flush all cached entities.
    *
    * @return Whether the operation succeeded or not.
    */
-  public synchronized boolean reloadAll() {
-    getLog().debug("Reloading cache ...");
+  public boolean flush() {
+    getLog().debug("Removing all from cache ...");
 
-    boolean reloaded = flush();
+    try {
+      snapshot = ImmutableMap.of();
+      cache.invalidateAll();
+    } catch (Exception e) {
+      getLog().error(".flush() {}", cache, e);
+      return false;
+    }
 
+    getLog().debug("Cache invalidated.");
+    return true;
+  }
+
+  /**
+   * Reload all entities from Geotab into a new snapshot and publish it in one step. Until then
+   * readers keep using the previous snapshot; if the load fails or returns nothing, the previous
+   * snapshot stays.
+   *
+   * @return Whether the operation succeeded or not.
+   */
+  public boolean reloadAll() {
+    if (!reloadLock.tryLock()) {
+      getLog().debug("Cache is already being reloaded");
+      return true;
+    }
+
+    getLog().debug("Reloading cache ...");
+
+    final long start = System.nanoTime();
+    boolean reloaded = false;
     try {
       Optional<List<T>> entities = fetchAll();
-      if (entities.isPresent() && !entities.get().isEmpty()) {
+      if (!entities.isPresent() || entities.get().isEmpty()) {
+        getLog().warn("No entities loaded; keeping the previous snapshot");
+        reloaded = entities.isPresent();
+      } else {
+        Map<String, T> loadedEntities = new HashMap<>();
         for (T entity : entities.get()) {
-          cache.put(entity.getId().getId(), entity);
+          loadedEntities.put(entity.getId().getId(), entity);
         }
+        Map<String, T> nextSnapshot = bound(loadedEntities);
+        reloaded = cacheNoEntity(nextSnapshot);
+
+        snapshot = Collections.unmodifiableMap(nextSnapshot);
+        snapshotTime = Instant.now();
+        // the snapshot supersedes whatever was loaded one by one
+        cache.invalidateAll();
       }
     } catch (Exception exception) {
       getLog().error("Failed to reload entities - ", exception);
-      reloaded = false;
+    } finally {
+      reloadLock.unlock();
+      reloadLatency.recordSince(start);
     }
 
-    reloaded = reloaded && cacheNoEntity();
-
     getLog().debug("Cache was{} reloaded", reloaded ? "" : " not");
 
     return reloaded;
@@ -0,0 +1,94 @@
+package com.geotab.sdk.datafeed.cache;
+
+import com.geotab.api.GeotabApi;
+import com.geotab.http.request.AuthenticatedRequest;
+import com.geotab.http.request.param.SearchParameters;
+import com.geotab.http.response.BaseResponse;
+import com.geotab.http.response.RuleListResponse;
+import com.geotab.model.entity.rule.NoRule;
+import com.geotab.model.entity.rule.Rule;
+import com.geotab.model.search.IdSearch;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+
+/**
+ * {@link Rule} cache singleton. Reloads rules periodically on demand and caches them.
+ */
+@Slf4j
+public final class RuleCache extends GeotabEntityCache<Rule> {
+
+  public RuleCache(GeotabApi api, String cacheSpec) {
+    super(api, NoRule.getInstance(), cacheSpec);
+  }
+
+  @Override
+  protected Logger getLog() {
+    return log;
+  }
+
+  @Override
+  protected Class<Rule> getEntityType() {
+    return Rule.class;
+  }
+
+  @Override
+  protected SearchParameters searchById(String id) {
+    return SearchParameters.searchParamsBuilder()
+        .search(new IdSearch(id))
+        .typeName("Rule")
+        .build();
+  }
+
+  @Override
+  protected Optional<Rule> fetchEntity(String id) throws Exception {
+    log.debug("Loading Rule by id {} from Geotab ...", id);
+
+    AuthenticatedRequest<?> request = AuthenticatedRequest.authRequestBuilder()
+        .method("Get")
+        .params(searchById(id))
+        .build();
+
+    Optional<List<Rule>> rules = api.call(request, RuleListResponse.class);
+
+    if (rules.isPresent() && !rules.get().isEmpty()) {
+      log.debug("Rule by id {} loaded from Geotab.", id);
+      return Optional.of(rules.get().get(0));
+    }
+
+    return Optional.empty();
+  }
+
+  @Override
+  protected List<List<Rule>> fetchMultiCall(AuthenticatedRequest<?> request) throws Exception {
+    return api.call(request, RuleMultiCallResponse.class).orElse(Collections.emptyList());
+  }
+
+  @Override
+  protected Optional<List<Rule>> fetchAll() throws Exception {
+    log.debug("Loading all Rule from Geotab ...");
+    AuthenticatedRequest<?> request = AuthenticatedRequest.authRequestBuilder()
+        .method("Get")
+        .params(SearchParameters.searchParamsBuilder()
+            .typeName("Rule")
+            .build())
+        .build();
+
+    return api.call(request, RuleListResponse.class);
+  }
+
+  @Override
+  protected Rule createFakeCacheable(String id) {
+    log.debug("No Rule with id {} found in Geotab; creating a fake Rule to cache it.", id);
+    return Rule.ruleBuilder().id(id).build();
+  }
+
+  /**
+   * The response of an ExecuteMultiCall of Rule Get calls.
+   */
+  static final class RuleMultiCallResponse extends BaseResponse<List<List<Rule>>> {
+
+  }
+}
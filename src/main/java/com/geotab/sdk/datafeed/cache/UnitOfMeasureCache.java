@@ -3,10 +3,12 @@ package com.geotab.sdk.datafeed.cache;
 import com.geotab.api.GeotabApi;
 import com.geotab.http.request.AuthenticatedRequest;
 import com.geotab.http.request.param.SearchParameters;
+import com.geotab.http.response.BaseResponse;
 import com.geotab.http.response.UnitOfMeasureListResponse;
 import com.geotab.model.entity.unitofmeasure.UnitOfMeasure;
 import com.geotab.model.entity.unitofmeasure.UnitOfMeasureNone;
 import com.geotab.model.search.IdSearch;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import lombok.extern.slf4j.Slf4j;
@@ -19,8 +21,8 @@ import org.slf4j.Logger;
 @Slf4j
 public final class UnitOfMeasureCache extends GeotabEntityCache<UnitOfMeasure> {
 
-  public UnitOfMeasureCache(GeotabApi api) {
-    super(api, UnitOfMeasureNone.getInstance());
+  public UnitOfMeasureCache(GeotabApi api, String cacheSpec) {
+    super(api, UnitOfMeasureNone.getInstance(), cacheSpec);
   }
 
   @Override
@@ -28,16 +30,26 @@ public final class UnitOfMeasureCache extends GeotabEntityCache<UnitOfMeasure> {
     return log;
   }
 
+  @Override
+  protected Class<UnitOfMeasure> getEntityType() {
+    return UnitOfMeasure.class;
+  }
+
+  @Override
+  protected SearchParameters searchById(String id) {
+    return SearchParameters.searchParamsBuilder()
+        .search(new IdSearch(id))
+        .typeName("UnitOfMeasure")
+        .build();
+  }
+
   @Override
   protected Optional<UnitOfMeasure> fetchEntity(String id) throws Exception {
     log.debug("Loading UnitOfMeasure by id {} from Geotab ...", id);
 
     AuthenticatedRequest<?> request = AuthenticatedRequest.authRequestBuilder()
         .method("Get")
-        .params(SearchParameters.searchParamsBuilder()
-            .search(new IdSearch(id))
-            .typeName("UnitOfMeasure")
-            .build())
+        .params(searchById(id))
         .build();
 
     Optional<List<UnitOfMeasure>> unitOfMeasures = api
@@ -51,6 +63,12 @@ public final class UnitOfMeasureCache extends GeotabEntityCache<UnitOfMeasure> {
     return Optional.empty();
   }
 
+  @Override
+  protected List<List<UnitOfMeasure>> fetchMultiCall(AuthenticatedRequest<?> request)
+      throws Exception {
+    return api.call(request, UnitOfMeasureMultiCallResponse.class).orElse(Collections.emptyList());
+  }
+
   @Override
   protected Optional<List<UnitOfMeasure>> fetchAll() throws Exception {
     log.debug("Loading all UnitOfMeasures from Geotab ...");
@@ -72,4 +90,11 @@ public final class UnitOfMeasureCache extends GeotabEntityCache<UnitOfMeasure> {
     return UnitOfMeasure.builder().id(id).build();
   }
 
+  /**
+   * The response of an ExecuteMultiCall of UnitOfMeasure Get calls.
+   */
+  static final class UnitOfMeasureMultiCallResponse
+      extends BaseResponse<List<List<UnitOfMeasure>>> {
+
+  }
 }
@@ -0,0 +1,36 @@
+package com.geotab.sdk.datafeed.checkpoint;
+
+import com.geotab.sdk.datafeed.cli.CommandLineArguments;
+import com.geotab.sdk.datafeed.loader.DataFeedParameters;
+import java.util.Optional;
+import java.util.function.Function;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Durable store of the data feed tokens, so a restarted feed resumes where the last exported batch
+ * ended.
+ */
+public interface CheckpointStore {
+
+  Function<CommandLineArguments, CheckpointStore> FACTORY = commandLineArguments -> {
+    if (StringUtils.isNotEmpty(commandLineArguments.getCheckpointFile())) {
+      return new FileCheckpointStore(commandLineArguments.getCheckpointFile());
+    }
+
+    return new NoCheckpointStore();
+  };
+
+  /**
+   * Load the last saved tokens.
+   *
+   * @return The saved tokens, if any.
+   */
+  Optional<DataFeedParameters> load() throws Exception;
+
+  /**
+   * Save the tokens. Called only once the batch loaded up to these tokens was exported.
+   *
+   * @param dataFeedParameters The tokens to save.
+   */
+  void save(DataFeedParameters dataFeedParameters) throws Exception;
+}
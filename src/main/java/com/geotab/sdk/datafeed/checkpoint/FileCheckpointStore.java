@@ -0,0 +1,124 @@
+package com.geotab.sdk.datafeed.checkpoint;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import com.geotab.sdk.datafeed.loader.DataFeedParameters;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Optional;
+import java.util.Properties;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * {@link CheckpointStore} keeping the tokens in a local properties file.
+ *
+ * <p>Each save writes a temporary file next to the checkpoint, forces it to disk and atomically
+ * renames it over the checkpoint, so a crash leaves either the previous or the new tokens, never a
+ * partial file.
+ */
+@Slf4j
+public class FileCheckpointStore implements CheckpointStore {
+
+  private static final String GPS_TOKEN = "lastGpsDataToken";
+  private static final String STATUS_DATA_TOKEN = "lastStatusDataToken";
+  private static final String FAULT_DATA_TOKEN = "lastFaultDataToken";
+  private static final String TRIP_TOKEN = "lastTripToken";
+  private static final String EXCEPTION_TOKEN = "lastExceptionToken";
+
+  private final Path checkpointFile;
+
+  public FileCheckpointStore(String checkpointFile) {
+    this.checkpointFile = Paths.get(checkpointFile).toAbsolutePath();
+
+    try {
+      Files.createDirectories(this.checkpointFile.getParent());
+    } catch (IOException e) {
+      throw new RuntimeException("Failed to initialize checkpoint file " + checkpointFile, e);
+    }
+  }
+
+  @Override
+  public Optional<DataFeedParameters> load() throws IOException {
+    if (!Files.exists(checkpointFile)) {
+      log.info("No checkpoint found at {}", checkpointFile);
+      return Optional.empty();
+    }
+
+    Properties properties = new Properties();
+    try (InputStream inputStream = Files.newInputStream(checkpointFile)) {
+      properties.load(inputStream);
+    }
+
+    log.info("Checkpoint loaded from {}", checkpointFile);
+
+    return Optional.of(DataFeedParameters.builder()
+        .lastGpsDataToken(properties.getProperty(GPS_TOKEN))
+        .lastStatusDataToken(properties.getProperty(STATUS_DATA_TOKEN))
+        .lastFaultDataToken(properties.getProperty(FAULT_DATA_TOKEN))
+        .lastTripToken(properties.getProperty(TRIP_TOKEN))
+        .lastExceptionToken(properties.getProperty(EXCEPTION_TOKEN))
+        .build());
+  }
+
+  @Override
+  public void save(DataFeedParameters dataFeedParameters) throws IOException {
+    Properties properties = new Properties();
+    putToken(properties, GPS_TOKEN, dataFeedParameters.getLastGpsDataToken());
+    putToken(properties, STATUS_DATA_TOKEN, dataFeedParameters.getLastStatusDataToken());
+    putToken(properties, FAULT_DATA_TOKEN, dataFeedParameters.getLastFaultDataToken());
+    putToken(properties, TRIP_TOKEN, dataFeedParameters.getLastTripToken());
+    putToken(properties, EXCEPTION_TOKEN, dataFeedParameters.getLastExceptionToken());
+
+    ByteArrayOutputStream content = new ByteArrayOutputStream();
+    properties.store(content, "Data feed checkpoint");
+
+    Path directory = checkpointFile.getParent();
+    Path tempFile = Files
+        .createTempFile(directory, checkpointFile.getFileName().toString(), ".tmp");
+    try {
+      try (FileChannel channel = FileChannel.open(tempFile, WRITE, TRUNCATE_EXISTING)) {
+        ByteBuffer buffer = ByteBuffer.wrap(content.toByteArray());
+        while (buffer.hasRemaining()) {
+          channel.write(buffer);
+        }
+        channel.force(true);
+      }
+
+      Files.move(tempFile, checkpointFile, ATOMIC_MOVE, REPLACE_EXISTING);
+    } finally {
+      Files.deleteIfExists(tempFile);
+    }
+
+    syncDirectory(directory);
+
+    log.debug("Checkpoint saved to {}", checkpointFile);
+  }
+
+  private static void putToken(Properties properties, String name, String token) {
+    if (token != null) {
+      properties.setProperty(name, token);
+    }
+  }
+
+  /**
+   * Force the rename itself to disk. Not every platform can open a directory (Windows can not), in
+   * which case the rename is left to the file system.
+   */
+  private static void syncDirectory(Path directory) {
+    try (FileChannel channel = FileChannel.open(directory, READ)) {
+      channel.force(true);
+    } catch (IOException e) {
+      log.trace("Can not sync directory {}", directory, e);
+    }
+  }
+}
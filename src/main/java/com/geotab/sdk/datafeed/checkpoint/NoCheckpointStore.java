@@ -0,0 +1,19 @@
+package com.geotab.sdk.datafeed.checkpoint;
+
+import com.geotab.sdk.datafeed.loader.DataFeedParameters;
+import java.util.Optional;
+
+/**
+ * {@link CheckpointStore} used when no checkpoint is configured; tokens live only in memory.
+ */
+public class NoCheckpointStore implements CheckpointStore {
+
+  @Override
+  public Optional<DataFeedParameters> load() {
+    return Optional.empty();
+  }
+
+  @Override
+  public void save(DataFeedParameters dataFeedParameters) {
+  }
+}
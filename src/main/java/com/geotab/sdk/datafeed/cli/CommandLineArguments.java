@@ -1,7 +1,21 @@
 package com.geotab.sdk.datafeed.cli;
 
 import com.geotab.model.login.Credentials;
+import com.geotab.sdk.common.RateLimitedGeotabApi;
+import com.geotab.sdk.datafeed.cache.GeotabEntityCache;
+import com.geotab.sdk.datafeed.exporter.CsvExporter;
+import com.geotab.sdk.datafeed.loader.DataFeedLoader;
 import com.geotab.sdk.datafeed.loader.DataFeedParameters;
+import com.google.common.base.Joiner;
+import com.google.common.base.Splitter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
 import lombok.Data;
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.CommandLineParser;
@@ -10,6 +24,7 @@ import org.apache.commons.cli.MissingArgumentException;
 import org.apache.commons.cli.Option;
 import org.apache.commons.cli.Options;
 import org.apache.commons.cli.ParseException;
+import org.apache.commons.lang3.StringUtils;
 
 @Data
 public class CommandLineArguments {
@@ -26,6 +41,26 @@ public class CommandLineArguments {
   private static final String EXPORT_TYPE_ARG_NAME = "exp";
   private static final String OUTPUT_FOLDER_ARG_NAME = "f";
   private static final String FEED_CONTINUOUSLY_ARG_NAME = "c";
+  private static final String PARALLEL_FEED_ARG_NAME = "pf";
+  private static final String EXPORT_QUEUE_SIZE_ARG_NAME = "qs";
+  private static final int DEFAULT_EXPORT_QUEUE_SIZE = 2;
+  private static final String CHECKPOINT_FILE_ARG_NAME = "cf";
+  private static final String CACHE_SPEC_ARG_NAME = "cs";
+  private static final String CACHE_CONFIG_FILE_ARG_NAME = "cc";
+  private static final String CACHE_SNAPSHOT_DIR_ARG_NAME = "sd";
+  private static final String ROTATE_SIZE_ARG_NAME = "rs";
+  private static final String ROTATE_INTERVAL_ARG_NAME = "ri";
+  private static final String FLUSH_INTERVAL_ARG_NAME = "fi";
+  private static final String COMPRESSION_LEVEL_ARG_NAME = "gz";
+  private static final String JDBC_URL_ARG_NAME = "db";
+  private static final String DEFAULT_JDBC_URL = "jdbc:h2:./datafeed";
+  private static final String API_QUOTAS_ARG_NAME = "rl";
+  private static final String RESULTS_LIMIT_ARG_NAME = "ps";
+  private static final String CATCH_UP_ARG_NAME = "cu";
+  private static final String METRICS_INTERVAL_ARG_NAME = "mi";
+  private static final String METRICS_FILE_ARG_NAME = "mf";
+  private static final Duration DEFAULT_METRICS_INTERVAL = Duration.ofMinutes(1);
+  private static final String HEALTH_PORT_ARG_NAME = "hp";
 
   private String server;
   private Credentials credentials;
@@ -33,6 +68,23 @@ public class CommandLineArguments {
   private String exportType;
   private String outputPath;
   private boolean feedContinuously;
+  private boolean parallelFeed;
+  private int exportQueueSize;
+  private String checkpointFile;
+  private String cacheSpec;
+  private Map<String, String> cacheSpecs;
+  private String cacheSnapshotDir;
+  private long rotateSize;
+  private Duration rotateInterval;
+  private Duration flushInterval;
+  private int compressionLevel;
+  private String jdbcUrl;
+  private Map<String, Integer> apiQuotas;
+  private Integer resultsLimit;
+  private boolean catchUp;
+  private Duration metricsInterval;
+  private String metricsFile;
+  private Integer healthPort;
 
   public CommandLineArguments(String[] args) throws ParseException {
     parseArguments(args);
@@ -52,7 +104,11 @@ public class CommandLineArguments {
       String cmdLineSyntax =
           "java -cp 'sdk-java-samples-1.0-SNAPSHOT.jar;./lib/*' com.geotab.sdk.datafeed.DataFeedApp"
               + " --s server --d database --u user --p password --gt nnn --st nnn --ft nnn --tt nnn"
-              + " --et nnn --exp csv --f file path --c";
+              + " --et nnn --exp csv --f file path --c --pf --qs n"
+              + " --cf checkpoint file --cs cache spec --cc cache config file"
+              + " --sd cache snapshot folder --rs nnn --ri nnn --fi nnn"
+              + " --gz n --db jdbc url --rl api quotas --ps nnn --cu --mi nnn --mf metrics file"
+              + " --hp nnn";
       String header = "\n\tPassed params: " + passedParams
           + "\n\tArguments may be in any order: ";
       String footer = "";
@@ -138,7 +194,8 @@ public class CommandLineArguments {
             .optionalArg(true)
             .hasArg(true)
             .desc(
-                "[optional] The export type: console, csv. Defaults to console.")
+                "[optional] The export type: console, csv, columnar, jdbc; several comma "
+                    + "separated types are exported to concurrently. Defaults to console.")
             .build()
         )
         .addOption(Option.builder(OUTPUT_FOLDER_ARG_NAME)
@@ -156,12 +213,164 @@ public class CommandLineArguments {
             .hasArg(true)
             .desc("[optional] Run the feed continuously. Defaults to false.")
             .build()
+        )
+        .addOption(Option.builder(PARALLEL_FEED_ARG_NAME)
+            .argName("parallelFeed")
+            .optionalArg(true)
+            .hasArg(true)
+            .desc("[optional] Load the data feed types concurrently. Defaults to false.")
+            .build()
+        )
+        .addOption(Option.builder(EXPORT_QUEUE_SIZE_ARG_NAME)
+            .argName("exportQueueSize")
+            .optionalArg(true)
+            .hasArg(true)
+            .desc("[optional] The number of loaded batches which may wait to be exported before "
+                + "loading pauses; 0 exports on the loading thread. Defaults to "
+                + DEFAULT_EXPORT_QUEUE_SIZE + ".")
+            .build()
+        )
+        .addOption(Option.builder(CHECKPOINT_FILE_ARG_NAME)
+            .argName("checkpointFile")
+            .optionalArg(true)
+            .hasArg(true)
+            .desc("[optional] The file to save the feed tokens to after each exported batch and "
+                + "to resume from on start. Tokens passed on the command line take precedence. "
+                + "Required with several export types.")
+            .build()
+        )
+        .addOption(Option.builder(CACHE_SPEC_ARG_NAME)
+            .argName("cacheSpec")
+            .optionalArg(true)
+            .hasArg(true)
+            .desc("[optional] The Guava cache spec of the entity caches, e.g. "
+                + "maximumWeight=20000000,expireAfterWrite=12h,recordStats. Defaults to "
+                + GeotabEntityCache.DEFAULT_CACHE_SPEC + ".")
+            .build()
+        )
+        .addOption(Option.builder(CACHE_CONFIG_FILE_ARG_NAME)
+            .argName("cacheConfigFile")
+            .optionalArg(true)
+            .hasArg(true)
+            .desc("[optional] A properties file with a cache spec per entity type, e.g. "
+                + "Device=maximumSize=50000,recordStats. Overrides --cs for the listed types.")
+            .build()
+        )
+        .addOption(Option.builder(CACHE_SNAPSHOT_DIR_ARG_NAME)
+            .argName("cacheSnapshotDir")
+            .optionalArg(true)
+            .hasArg(true)
+            .desc("[optional] The folder to save the entity caches to and to restore them from on "
+                + "start, instead of loading them all from Geotab.")
+            .build()
+        )
+        .addOption(Option.builder(ROTATE_SIZE_ARG_NAME)
+            .argName("rotateSizeMb")
+            .optionalArg(true)
+            .hasArg(true)
+            .desc("[optional] The size in MB at which a new csv file is started. Defaults to "
+                + CsvExporter.DEFAULT_ROTATE_SIZE / (1024 * 1024) + ".")
+            .build()
+        )
+        .addOption(Option.builder(ROTATE_INTERVAL_ARG_NAME)
+            .argName("rotateIntervalMinutes")
+            .optionalArg(true)
+            .hasArg(true)
+            .desc("[optional] The minutes after which a new csv file is started. Defaults to "
+                + CsvExporter.DEFAULT_ROTATE_INTERVAL.toMinutes() + ".")
+            .build()
+        )
+        .addOption(Option.builder(FLUSH_INTERVAL_ARG_NAME)
+            .argName("flushIntervalSeconds")
+            .optionalArg(true)
+            .hasArg(true)
+            .desc("[optional] How often in seconds the csv files are flushed; 0 flushes and "
+                + "forces them to disk after every export, before the checkpoint is saved. "
+                + "Defaults to 0.")
+            .build()
+        )
+        .addOption(Option.builder(COMPRESSION_LEVEL_ARG_NAME)
+            .argName("compressionLevel")
+            .optionalArg(true)
+            .hasArg(true)
+            .desc("[optional] The gzip level of the csv files, 1 (fastest) to 9 (smallest); "
+                + "0 writes them uncompressed. Defaults to 0.")
+            .build()
+        )
+        .addOption(Option.builder(JDBC_URL_ARG_NAME)
+            .argName("jdbcUrl")
+            .optionalArg(true)
+            .hasArg(true)
+            .desc("[optional] The JDBC url of the database to export to. Defaults to "
+                + DEFAULT_JDBC_URL + ".")
+            .build()
+        )
+        .addOption(Option.builder(API_QUOTAS_ARG_NAME)
+            .argName("apiQuotas")
+            .optionalArg(true)
+            .hasArg(true)
+            .desc("[optional] The calls per minute the server allows per API method, e.g. "
+                + "GetFeed=300,Get=600; the calls are kept 10% below. Overrides the defaults "
+                + "for the listed methods. Defaults to " + Joiner.on(',').withKeyValueSeparator('=')
+                .join(RateLimitedGeotabApi.DEFAULT_QUOTAS) + ".")
+            .build()
+        )
+        .addOption(Option.builder(RESULTS_LIMIT_ARG_NAME)
+            .argName("pageSize")
+            .optionalArg(true)
+            .hasArg(true)
+            .desc("[optional] The records requested per GetFeed call, at most the server limit "
+                + "of " + DataFeedLoader.DEFAULT_RESULTS_LIMIT + ", which is the default.")
+            .build()
+        )
+        .addOption(Option.builder(CATCH_UP_ARG_NAME)
+            .argName("catchUp")
+            .optionalArg(true)
+            .hasArg(true)
+            .desc("[optional] Drain a feed type which is behind page after page before loading "
+                + "the other types again. Defaults to false.")
+            .build()
+        )
+        .addOption(Option.builder(METRICS_INTERVAL_ARG_NAME)
+            .argName("metricsIntervalSeconds")
+            .optionalArg(true)
+            .hasArg(true)
+            .desc("[optional] How often in seconds the feed metrics are logged; 0 does not log "
+                + "them. Defaults to 0, or " + DEFAULT_METRICS_INTERVAL.getSeconds()
+                + " with a metrics file.")
+            .build()
+        )
+        .addOption(Option.builder(METRICS_FILE_ARG_NAME)
+            .argName("metricsFile")
+            .optionalArg(true)
+            .hasArg(true)
+            .desc("[optional] The csv file to append the feed metrics to whenever they are "
+                + "logged.")
+            .build()
+        )
+        .addOption(Option.builder(HEALTH_PORT_ARG_NAME)
+            .argName("healthPort")
+            .optionalArg(true)
+            .hasArg(true)
+            .desc("[optional] The port of the http health and metrics endpoint: /health/live, "
+                + "/health/ready, /status and /metrics. Defaults to none.")
+            .build()
         );
 
     return options;
   }
 
-  private void extractValues(CommandLine commandLine) {
+  /**
+   * Get the cache spec of an entity type.
+   *
+   * @param entityType The entity type name, e.g. Device.
+   * @return The cache spec configured for the type, else the common one.
+   */
+  public String getCacheSpec(String entityType) {
+    return cacheSpecs.getOrDefault(entityType, cacheSpec);
+  }
+
+  private void extractValues(CommandLine commandLine) throws ParseException {
     this.server = commandLine.getOptionValue(SERVER_ARG_NAME);
     this.credentials = Credentials.builder()
         .database(commandLine.getOptionValue(DATABASE_ARG_NAME))
@@ -190,5 +399,96 @@ public class CommandLineArguments {
     this.feedContinuously =
         commandLine.hasOption(FEED_CONTINUOUSLY_ARG_NAME)
             && Boolean.parseBoolean(commandLine.getOptionValue(FEED_CONTINUOUSLY_ARG_NAME));
+    this.parallelFeed =
+        commandLine.hasOption(PARALLEL_FEED_ARG_NAME)
+            && Boolean.parseBoolean(commandLine.getOptionValue(PARALLEL_FEED_ARG_NAME));
+    this.exportQueueSize = commandLine.hasOption(EXPORT_QUEUE_SIZE_ARG_NAME)
+        ? Integer.parseInt(commandLine.getOptionValue(EXPORT_QUEUE_SIZE_ARG_NAME))
+        : DEFAULT_EXPORT_QUEUE_SIZE;
+    this.checkpointFile = commandLine.getOptionValue(CHECKPOINT_FILE_ARG_NAME);
+    if (exportType != null && StringUtils.split(exportType, ", ").length > 1
+        && StringUtils.isEmpty(checkpointFile)) {
+      // the sinks would be exported to from scratch on every start, a database sink included
+      throw new ParseException("Several export types need a checkpoint file");
+    }
+    this.cacheSpec = commandLine.hasOption(CACHE_SPEC_ARG_NAME)
+        ? commandLine.getOptionValue(CACHE_SPEC_ARG_NAME) : GeotabEntityCache.DEFAULT_CACHE_SPEC;
+    this.cacheSpecs = commandLine.hasOption(CACHE_CONFIG_FILE_ARG_NAME)
+        ? loadCacheSpecs(commandLine.getOptionValue(CACHE_CONFIG_FILE_ARG_NAME))
+        : new HashMap<>();
+    this.cacheSnapshotDir = commandLine.getOptionValue(CACHE_SNAPSHOT_DIR_ARG_NAME);
+    this.rotateSize = commandLine.hasOption(ROTATE_SIZE_ARG_NAME)
+        ? Long.parseLong(commandLine.getOptionValue(ROTATE_SIZE_ARG_NAME)) * 1024 * 1024
+        : CsvExporter.DEFAULT_ROTATE_SIZE;
+    this.rotateInterval = commandLine.hasOption(ROTATE_INTERVAL_ARG_NAME)
+        ? Duration.ofMinutes(Long.parseLong(commandLine.getOptionValue(ROTATE_INTERVAL_ARG_NAME)))
+        : CsvExporter.DEFAULT_ROTATE_INTERVAL;
+    this.flushInterval = commandLine.hasOption(FLUSH_INTERVAL_ARG_NAME)
+        ? Duration.ofSeconds(Long.parseLong(commandLine.getOptionValue(FLUSH_INTERVAL_ARG_NAME)))
+        : Duration.ZERO;
+    this.compressionLevel = commandLine.hasOption(COMPRESSION_LEVEL_ARG_NAME)
+        ? Integer.parseInt(commandLine.getOptionValue(COMPRESSION_LEVEL_ARG_NAME)) : 0;
+    if (compressionLevel < 0 || compressionLevel > 9) {
+      throw new ParseException("The compression level must be between 0 and 9");
+    }
+    this.jdbcUrl = commandLine.hasOption(JDBC_URL_ARG_NAME)
+        ? commandLine.getOptionValue(JDBC_URL_ARG_NAME) : DEFAULT_JDBC_URL;
+    this.apiQuotas = new HashMap<>(RateLimitedGeotabApi.DEFAULT_QUOTAS);
+    if (commandLine.hasOption(API_QUOTAS_ARG_NAME)) {
+      apiQuotas.putAll(parseApiQuotas(commandLine.getOptionValue(API_QUOTAS_ARG_NAME)));
+    }
+    this.resultsLimit = commandLine.hasOption(RESULTS_LIMIT_ARG_NAME)
+        ? Integer.valueOf(commandLine.getOptionValue(RESULTS_LIMIT_ARG_NAME)) : null;
+    if (resultsLimit != null && resultsLimit <= 0) {
+      throw new ParseException("The page size must be positive");
+    }
+    if (resultsLimit != null && resultsLimit > DataFeedLoader.DEFAULT_RESULTS_LIMIT) {
+      throw new ParseException("The page size can not exceed the server limit of "
+          + DataFeedLoader.DEFAULT_RESULTS_LIMIT);
+    }
+    this.catchUp =
+        commandLine.hasOption(CATCH_UP_ARG_NAME)
+            && Boolean.parseBoolean(commandLine.getOptionValue(CATCH_UP_ARG_NAME));
+    this.metricsFile = commandLine.getOptionValue(METRICS_FILE_ARG_NAME);
+    this.metricsInterval = commandLine.hasOption(METRICS_INTERVAL_ARG_NAME)
+        ? Duration.ofSeconds(Long.parseLong(commandLine.getOptionValue(METRICS_INTERVAL_ARG_NAME)))
+        : metricsFile != null ? DEFAULT_METRICS_INTERVAL : Duration.ZERO;
+    if (metricsInterval.isNegative()) {
+      throw new ParseException("The metrics interval must not be negative");
+    }
+    this.healthPort = commandLine.hasOption(HEALTH_PORT_ARG_NAME)
+        ? Integer.valueOf(commandLine.getOptionValue(HEALTH_PORT_ARG_NAME)) : null;
+    if (healthPort != null && (healthPort < 0 || healthPort > 65535)) {
+      throw new ParseException("The health port must be between 0 and 65535");
+    }
+  }
+
+  private static Map<String, Integer> parseApiQuotas(String quotas) throws ParseException {
+    Map<String, Integer> apiQuotas = new HashMap<>();
+    try {
+      Splitter.on(',').trimResults().omitEmptyStrings().withKeyValueSeparator('=').split(quotas)
+          .forEach((method, callsPerMinute) ->
+              apiQuotas.put(method.trim(), Integer.parseInt(callsPerMinute.trim())));
+    } catch (IllegalArgumentException e) {
+      throw new ParseException("Invalid api quotas " + quotas + ": " + e.getMessage());
+    }
+    if (apiQuotas.values().stream().anyMatch(callsPerMinute -> callsPerMinute <= 0)) {
+      throw new ParseException("The api quotas must be positive: " + quotas);
+    }
+    return apiQuotas;
+  }
+
+  private static Map<String, String> loadCacheSpecs(String cacheConfigFile) throws ParseException {
+    Properties properties = new Properties();
+    try (InputStream inputStream = Files.newInputStream(Paths.get(cacheConfigFile))) {
+      properties.load(inputStream);
+    } catch (IOException e) {
+      throw new ParseException("Can not read cache config file " + cacheConfigFile + ": " + e);
+    }
+
+    Map<String, String> cacheSpecs = new HashMap<>();
+    properties.stringPropertyNames()
+        .forEach(entityType -> cacheSpecs.put(entityType, properties.getProperty(entityType)));
+    return cacheSpecs;
   }
 }
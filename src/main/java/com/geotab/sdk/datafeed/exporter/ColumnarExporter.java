@@ -0,0 +1,108 @@
+package com.geotab.sdk.datafeed.exporter;
+
+import com.geotab.model.entity.exceptionevent.ExceptionEvent;
+import com.geotab.model.entity.faultdata.FaultData;
+import com.geotab.model.entity.logrecord.LogRecord;
+import com.geotab.model.entity.statusdata.StatusData;
+import com.geotab.model.entity.trip.Trip;
+import com.geotab.sdk.datafeed.loader.DataFeedResult;
+import com.geotab.util.CollectionUtil;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Exports the data feed to typed columnar files, one per data type, see {@link ColumnarFile} for
+ * the layout. Numbers are stored as binary values, timestamps as epoch milliseconds and names
+ * dictionary encoded, so the files can be scanned without parsing text.
+ */
+@Slf4j
+public class ColumnarExporter implements Exporter {
+
+  private static final String GPS_FILE_NAME_PREFIX = "Gps_Data";
+
+  private static final String STATUS_DATA_FILE_NAME_PREFIX = "Status_Data";
+
+  private static final String FAULT_DATA_FILE_NAME_PREFIX = "Fault_Data";
+
+  private static final String TRIP_FILE_NAME_PREFIX = "Trips";
+
+  private static final String EXCEPTION_EVENT_FILE_NAME_PREFIX = "Exceptions";
+
+  private final ColumnarFile<LogRecord> gpsFile;
+
+  private final ColumnarFile<StatusData> statusDataFile;
+
+  private final ColumnarFile<FaultData> faultDataFile;
+
+  private final ColumnarFile<Trip> tripFile;
+
+  private final ColumnarFile<ExceptionEvent> exceptionEventFile;
+
+  /**
+   * Create an exporter writing one columnar file per data type, kept open across exports.
+   *
+   * @param outputPath     The folder of the files.
+   * @param rotateSize     The size in bytes at which a new file is started.
+   * @param rotateInterval How long a file is written to before a new one is started.
+   */
+  public ColumnarExporter(String outputPath, long rotateSize, Duration rotateInterval) {
+    Path folder = Paths.get(StringUtils.isNotEmpty(outputPath) ? outputPath : ".");
+    try {
+      Files.createDirectories(folder);
+    } catch (IOException e) {
+      throw new RuntimeException("Failed to initialize for output path " + outputPath, e);
+    }
+
+    this.gpsFile = new ColumnarFile<>(folder, GPS_FILE_NAME_PREFIX,
+        FeedColumns.GPS_DATA, rotateSize, rotateInterval);
+    this.statusDataFile = new ColumnarFile<>(folder, STATUS_DATA_FILE_NAME_PREFIX,
+        FeedColumns.STATUS_DATA, rotateSize, rotateInterval);
+    this.faultDataFile = new ColumnarFile<>(folder, FAULT_DATA_FILE_NAME_PREFIX,
+        FeedColumns.FAULT_DATA, rotateSize, rotateInterval);
+    this.tripFile = new ColumnarFile<>(folder, TRIP_FILE_NAME_PREFIX,
+        FeedColumns.TRIPS, rotateSize, rotateInterval);
+    this.exceptionEventFile = new ColumnarFile<>(folder, EXCEPTION_EVENT_FILE_NAME_PREFIX,
+        FeedColumns.EXCEPTION_EVENTS, rotateSize, rotateInterval);
+  }
+
+  @Override
+  public void export(DataFeedResult dataFeedResult) throws Exception {
+    write(gpsFile, "LogRecords", dataFeedResult.getGpsRecords());
+    write(statusDataFile, "StatusData", dataFeedResult.getStatusData());
+    write(faultDataFile, "FaultData", dataFeedResult.getFaultData());
+    write(tripFile, "Trips", dataFeedResult.getTrips());
+    write(exceptionEventFile, "ExceptionEvents", dataFeedResult.getExceptionEvents());
+  }
+
+  /**
+   * Sync and close the files.
+   */
+  @Override
+  public void close() {
+    for (ColumnarFile<?> file : Arrays.asList(gpsFile, statusDataFile, faultDataFile, tripFile,
+        exceptionEventFile)) {
+      try {
+        file.close();
+      } catch (IOException e) {
+        log.error("Can not close columnar file", e);
+      }
+    }
+  }
+
+  private <T> void write(ColumnarFile<T> file, String dataName, List<T> data) throws Exception {
+    if (CollectionUtil.isEmpty(data)) {
+      return;
+    }
+
+    Path exportedFile = file.write(data);
+
+    log.info("{} {} exported to {}", data.size(), dataName, exportedFile);
+  }
+}
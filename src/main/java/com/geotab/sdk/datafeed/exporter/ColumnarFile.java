@@ -0,0 +1,296 @@
+package com.geotab.sdk.datafeed.exporter;
+
+import static com.geotab.model.serialization.DateTimeSerializationUtil.nowUtcLocalDateTime;
+import static java.nio.file.StandardOpenOption.CREATE_NEW;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import com.google.common.collect.ImmutableMap;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Columnar binary file of one data type, written one row group per export.
+ *
+ * <p>All numbers are little endian. The file starts with the magic bytes {@code GFCOL}, a format
+ * version byte, the column count (int32) and per column its type code (byte: 1 INT64, 2 FLOAT64,
+ * 3 INT32, 4 BOOLEAN, 5 STRING) and its UTF-8 name (int32 length, bytes). Each row group follows
+ * as its length in bytes (int32, not counting itself), its row count (int32) and per column a
+ * chunk of:
+ *
+ * <ul>
+ *   <li>a validity bitmap of {@code (rows + 7) / 8} bytes, bit {@code i % 8} of byte {@code i / 8}
+ *   set when row {@code i} has a value;</li>
+ *   <li>INT64 and FLOAT64: 8 bytes per row; INT32: 4 bytes per row; BOOLEAN: a bitmap like the
+ *   validity bitmap;</li>
+ *   <li>STRING: the dictionary of distinct values of the chunk (int32 count, then each as int32
+ *   length and UTF-8 bytes) followed by an int32 dictionary index per row.</li>
+ * </ul>
+ *
+ * <p>Rows without a value hold zero. Timestamps are INT64 milliseconds since the epoch, UTC.
+ *
+ * <p>Each row group is forced to disk once written, before the worker saves the checkpoint of its
+ * batch. A row group which fails to be written is truncated off the file, so the retried export
+ * does not follow a partial one; should even that fail, the next row group starts a new file.
+ */
+@Slf4j
+final class ColumnarFile<T> implements Closeable {
+
+  private static final byte[] MAGIC = "GFCOL".getBytes(StandardCharsets.US_ASCII);
+
+  private static final byte FORMAT_VERSION = 1;
+
+  private static final DateTimeFormatter FILE_TIMESTAMP_FORMAT = DateTimeFormatter
+      .ofPattern("yyyy-MM-dd-HH-mm-ss");
+
+  /**
+   * The code of each column type in the file.
+   */
+  private static final Map<FeedColumn.Type, Byte> TYPE_CODES = ImmutableMap.of(
+      FeedColumn.Type.TIMESTAMP, (byte) 1,
+      FeedColumn.Type.FLOAT64, (byte) 2,
+      FeedColumn.Type.INT32, (byte) 3,
+      FeedColumn.Type.BOOLEAN, (byte) 4,
+      FeedColumn.Type.STRING, (byte) 5);
+
+  private final Path outputPath;
+
+  private final String fileNamePrefix;
+
+  private final List<FeedColumn<T>> columns;
+
+  private final long rotateSize;
+
+  private final Duration rotateInterval;
+
+  private ByteBuffer buffer = ByteBuffer.allocate(64 * 1024).order(ByteOrder.LITTLE_ENDIAN);
+
+  private final Map<String, Integer> dictionary = new HashMap<>();
+
+  private Object[] values = new Object[0];
+
+  private Path file;
+
+  private FileChannel channel;
+
+  private Instant rotateTime;
+
+  ColumnarFile(Path outputPath, String fileNamePrefix, List<FeedColumn<T>> columns,
+      long rotateSize, Duration rotateInterval) {
+    this.outputPath = outputPath;
+    this.fileNamePrefix = fileNamePrefix;
+    this.columns = columns;
+    this.rotateSize = rotateSize;
+    this.rotateInterval = rotateInterval;
+  }
+
+  /**
+   * Write the records as one row group, rotating the file when due.
+   *
+   * @param data The records.
+   * @return The file written to; null when there were no records.
+   */
+  Path write(List<T> data) throws IOException {
+    if (data.isEmpty()) {
+      return null;
+    }
+
+    if (channel == null || channel.size() >= rotateSize || !Instant.now().isBefore(rotateTime)) {
+      rotate();
+    }
+
+    buffer.clear();
+    buffer.putInt(0);
+    buffer.putInt(data.size());
+    for (FeedColumn<T> column : columns) {
+      encodeChunk(column, data);
+    }
+    buffer.putInt(0, buffer.position() - Integer.BYTES);
+
+    long rowGroupStart = channel.position();
+    try {
+      writeBuffer();
+      channel.force(false);
+    } catch (IOException exception) {
+      discardFrom(rowGroupStart, exception);
+      throw exception;
+    }
+    return file;
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (channel == null) {
+      return;
+    }
+
+    try {
+      channel.force(false);
+      channel.close();
+    } finally {
+      channel = null;
+    }
+  }
+
+  /**
+   * Cut a partly written row group off the file; if that fails too, close the file, so the next
+   * row group is written to a new one.
+   */
+  private void discardFrom(long rowGroupStart, IOException exception) {
+    try {
+      channel.truncate(rowGroupStart);
+      channel.position(rowGroupStart);
+    } catch (IOException truncateException) {
+      exception.addSuppressed(truncateException);
+      log.error("Can not truncate {}; the next row group starts a new file", file);
+      try {
+        channel.close();
+      } catch (IOException closeException) {
+        exception.addSuppressed(closeException);
+      } finally {
+        channel = null;
+      }
+    }
+  }
+
+  private void encodeChunk(FeedColumn<T> column, List<T> data) {
+    int rows = data.size();
+    if (values.length < rows) {
+      values = new Object[Math.max(rows, 2 * values.length)];
+    }
+    for (int i = 0; i < rows; i++) {
+      values[i] = column.valueOf(data.get(i));
+    }
+
+    int bitmapBytes = (rows + 7) / 8;
+    ensureCapacity(bitmapBytes + 8 * rows);
+    putBitmap(rows, value -> value != null);
+
+    switch (column.getType()) {
+      case TIMESTAMP:
+        for (int i = 0; i < rows; i++) {
+          buffer.putLong(values[i] != null ? toEpochMillis(values[i]) : 0L);
+        }
+        break;
+      case FLOAT64:
+        for (int i = 0; i < rows; i++) {
+          buffer.putDouble(values[i] != null ? ((Number) values[i]).doubleValue() : 0d);
+        }
+        break;
+      case INT32:
+        for (int i = 0; i < rows; i++) {
+          buffer.putInt(values[i] != null ? ((Number) values[i]).intValue() : 0);
+        }
+        break;
+      case BOOLEAN:
+        putBitmap(rows, Boolean.TRUE::equals);
+        break;
+      default:
+        encodeDictionary(rows);
+    }
+    Arrays.fill(values, 0, rows, null);
+  }
+
+  private void encodeDictionary(int rows) {
+    dictionary.clear();
+    int dictionaryStart = buffer.position();
+    buffer.putInt(0);
+    for (int i = 0; i < rows; i++) {
+      if (values[i] == null) {
+        continue;
+      }
+      String value = values[i].toString();
+      values[i] = value;
+      if (!dictionary.containsKey(value)) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        ensureCapacity(Integer.BYTES + bytes.length);
+        buffer.putInt(bytes.length).put(bytes);
+        dictionary.put(value, dictionary.size());
+      }
+    }
+    buffer.putInt(dictionaryStart, dictionary.size());
+
+    ensureCapacity(Integer.BYTES * rows);
+    for (int i = 0; i < rows; i++) {
+      buffer.putInt(values[i] != null ? dictionary.get(values[i]) : 0);
+    }
+  }
+
+  private void putBitmap(int rows, Predicate<Object> bit) {
+    for (int start = 0; start < rows; start += 8) {
+      int bits = 0;
+      for (int i = start; i < Math.min(start + 8, rows); i++) {
+        if (bit.test(values[i])) {
+          bits |= 1 << (i - start);
+        }
+      }
+      buffer.put((byte) bits);
+    }
+  }
+
+  private static long toEpochMillis(Object value) {
+    if (value instanceof LocalDateTime) {
+      return ((LocalDateTime) value).toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+    return ((Number) value).longValue();
+  }
+
+  private void ensureCapacity(int bytes) {
+    if (buffer.remaining() < bytes) {
+      ByteBuffer larger = ByteBuffer
+          .allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes))
+          .order(ByteOrder.LITTLE_ENDIAN);
+      buffer.flip();
+      larger.put(buffer);
+      buffer = larger;
+    }
+  }
+
+  private void writeBuffer() throws IOException {
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+  }
+
+  private void rotate() throws IOException {
+    close();
+
+    String fileName = fileNamePrefix + "-" + nowUtcLocalDateTime().format(FILE_TIMESTAMP_FORMAT);
+    file = outputPath.resolve(fileName + ".gfc");
+    // files rotated within the same second get a sequence number
+    for (int sequence = 1; Files.exists(file); sequence++) {
+      file = outputPath.resolve(fileName + "-" + sequence + ".gfc");
+    }
+
+    channel = FileChannel.open(file, CREATE_NEW, WRITE);
+    rotateTime = Instant.now().plus(rotateInterval);
+
+    buffer.clear();
+    buffer.put(MAGIC).put(FORMAT_VERSION).putInt(columns.size());
+    for (FeedColumn<T> column : columns) {
+      byte[] name = column.getName().getBytes(StandardCharsets.UTF_8);
+      ensureCapacity(1 + Integer.BYTES + name.length);
+      buffer.put(TYPE_CODES.get(column.getType())).putInt(name.length).put(name);
+    }
+    writeBuffer();
+
+    log.info("Writing to {}", file);
+  }
+}
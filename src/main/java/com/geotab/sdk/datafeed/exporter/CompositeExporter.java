@@ -0,0 +1,336 @@
+package com.geotab.sdk.datafeed.exporter;
+
+import com.geotab.sdk.datafeed.checkpoint.CheckpointStore;
+import com.geotab.sdk.datafeed.loader.DataFeedParameters;
+import com.geotab.sdk.datafeed.loader.DataFeedResult;
+import com.geotab.sdk.datafeed.metrics.LatencyHistogram;
+import com.google.common.util.concurrent.Uninterruptibles;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Exports each {@link DataFeedResult} to several exporters (sinks) concurrently.
+ *
+ * <p>Every sink has its own thread and bounded queue of batches, so a slow sink only holds up the
+ * others once its queue is full. The checkpoint is saved once a batch was exported by all sinks;
+ * as every sink exports its batches in order, and retries a failed batch until it is exported, the
+ * checkpoint never skips ahead of a sink. Should a sink still fail a batch, because it is closed
+ * while retrying, the exporter is failed for good: the checkpoint does not advance any further, and
+ * the sink does not export the later batches. Sinks which keep a checkpoint of their own, such as
+ * {@link JdbcExporter}, still do so, but the feed resumes from the checkpoint of this exporter.
+ */
+@Slf4j
+public class CompositeExporter implements Exporter, CheckpointStore {
+
+  private static final long POLL_MILLIS = 500;
+
+  private static final long RETRY_MIN_MILLIS = TimeUnit.SECONDS.toMillis(1);
+
+  private static final long RETRY_MAX_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+  private final List<Sink> sinks = new ArrayList<>();
+
+  private final CheckpointStore checkpointStore;
+
+  private final AtomicBoolean isOpen = new AtomicBoolean(true);
+
+  /**
+   * Whether a sink failed a batch; latched, as that sink has lost the batch.
+   */
+  private volatile boolean failed;
+
+  /**
+   * The sequence of the next batch, and of the last one checkpointed, guarded by {@code this}.
+   */
+  private long nextSequence;
+
+  private long savedSequence = -1;
+
+  /**
+   * Create an exporter fanning out to the given sinks.
+   *
+   * @param exporters       The sinks by name, e.g. their export type.
+   * @param checkpointStore The store of the tokens of the batches exported by all sinks.
+   * @param queueSize       The batches which may wait for each sink.
+   */
+  public CompositeExporter(Map<String, Exporter> exporters, CheckpointStore checkpointStore,
+      int queueSize) {
+    this.checkpointStore = checkpointStore;
+    exporters.forEach((name, exporter) -> sinks.add(new Sink(name, exporter, queueSize)));
+    sinks.forEach(Sink::start);
+  }
+
+  /**
+   * Queue the batch for every sink; blocks while the queue of a sink is full.
+   *
+   * @param dataFeedResult The batch.
+   */
+  @Override
+  public void export(DataFeedResult dataFeedResult) throws Exception {
+    if (!isOpen.get()) {
+      throw new IllegalStateException("Exporter is closed");
+    }
+    if (failed) {
+      throw new IllegalStateException("A sink failed a batch; no later batch is exported");
+    }
+
+    Batch batch;
+    synchronized (this) {
+      batch = new Batch(dataFeedResult, nextSequence++, sinks.size());
+    }
+    for (Sink sink : sinks) {
+      sink.queue.put(batch);
+    }
+  }
+
+  @Override
+  public Optional<DataFeedParameters> load() throws Exception {
+    return checkpointStore.load();
+  }
+
+  @Override
+  public void save(DataFeedParameters dataFeedParameters) throws Exception {
+    checkpointStore.save(dataFeedParameters);
+  }
+
+  /**
+   * Let the sinks export the queued batches, then close them.
+   */
+  @Override
+  public void close() throws IOException {
+    isOpen.set(false);
+    // every sink is closed even when interrupted, so none keeps its files or connection open
+    boolean interrupted = false;
+    for (Sink sink : sinks) {
+      if (interrupted) {
+        sink.thread.interrupt();
+      }
+      try {
+        sink.thread.join();
+      } catch (InterruptedException e) {
+        interrupted = true;
+        sink.thread.interrupt();
+        Uninterruptibles.joinUninterruptibly(sink.thread);
+      }
+      try {
+        sink.exporter.close();
+      } catch (IOException exception) {
+        log.error("Can not close sink {}", sink.name, exception);
+      }
+      log.info("Sink {}: {}", sink.name, sink);
+    }
+
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while the sinks export");
+    }
+  }
+
+  /**
+   * Get the sinks, e.g. to inspect their statistics.
+   *
+   * @return The sinks.
+   */
+  public List<Sink> getSinks() {
+    return Collections.unmodifiableList(sinks);
+  }
+
+  private void completed(Batch batch, boolean exported) {
+    if (!exported) {
+      failed = true;
+    }
+    if (batch.pendingSinks.decrementAndGet() > 0) {
+      return;
+    }
+
+    DataFeedParameters feedParameters = batch.dataFeedResult.getFeedParameters();
+    if (failed || feedParameters == null) {
+      if (failed) {
+        log.warn("Batch not exported by all sinks; checkpoint not advanced");
+      }
+      return;
+    }
+
+    // the sinks complete consecutive batches on their own threads; never save an earlier one last
+    synchronized (this) {
+      if (batch.sequence < savedSequence) {
+        return;
+      }
+      try {
+        checkpointStore.save(feedParameters);
+        savedSequence = batch.sequence;
+      } catch (Exception exception) {
+        log.error("Can not save checkpoint", exception);
+      }
+    }
+  }
+
+  /**
+   * A batch on its way through the sinks.
+   */
+  private static final class Batch {
+
+    private final DataFeedResult dataFeedResult;
+
+    private final long sequence;
+
+    private final AtomicInteger pendingSinks;
+
+    private Batch(DataFeedResult dataFeedResult, long sequence, int sinks) {
+      this.dataFeedResult = dataFeedResult;
+      this.sequence = sequence;
+      this.pendingSinks = new AtomicInteger(sinks);
+    }
+  }
+
+  /**
+   * One exporter with its queue, thread and statistics.
+   */
+  public final class Sink {
+
+    private final String name;
+
+    private final Exporter exporter;
+
+    private final BlockingQueue<Batch> queue;
+
+    private final Thread thread;
+
+    private final AtomicLong exportedBatches = new AtomicLong();
+
+    private final AtomicLong failedBatches = new AtomicLong();
+
+    private final AtomicLong lastExportMillis = new AtomicLong();
+
+    private final AtomicLong totalExportMillis = new AtomicLong();
+
+    private final LatencyHistogram exportLatency = new LatencyHistogram();
+
+    private Sink(String name, Exporter exporter, int queueSize) {
+      this.name = name;
+      this.exporter = exporter;
+      this.queue = new ArrayBlockingQueue<>(queueSize);
+      this.thread = new Thread(this::run, "data-feed-sink-" + name);
+    }
+
+    private void start() {
+      thread.start();
+    }
+
+    private void run() {
+      try {
+        // drain whatever is left in the queue once closed; after a failed batch the later ones
+        // are only completed as failed, so the other sinks and the checkpoint are not held up
+        boolean exporting = true;
+        while (isOpen.get() || !queue.isEmpty()) {
+          Batch batch = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+          if (batch != null) {
+            exporting = exporting && exportRetrying(batch);
+            completed(batch, exporting);
+          }
+        }
+      } catch (InterruptedException interruptedException) {
+        log.warn("Sink {} interrupted; {} batches not exported", name, queue.size());
+        failed = true;
+      }
+    }
+
+    /**
+     * Export a batch, retrying until it is exported or the exporter is closed.
+     */
+    private boolean exportRetrying(Batch batch) throws InterruptedException {
+      long retryMillis = RETRY_MIN_MILLIS;
+      while (!export(batch)) {
+        if (!isOpen.get()) {
+          log.error("Sink {} closed before the failed batch was exported", name);
+          return false;
+        }
+        log.warn("Sink {} retrying the batch in {} ms", name, retryMillis);
+        long retryNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(retryMillis);
+        while (isOpen.get() && System.nanoTime() < retryNanos) {
+          Thread.sleep(POLL_MILLIS);
+        }
+        retryMillis = Math.min(retryMillis * 2, RETRY_MAX_MILLIS);
+      }
+      return true;
+    }
+
+    private boolean export(Batch batch) {
+      long start = System.nanoTime();
+      try {
+        exporter.export(batch.dataFeedResult);
+        exportedBatches.incrementAndGet();
+        return true;
+      } catch (Exception exception) {
+        failedBatches.incrementAndGet();
+        log.error("Sink {} can not export batch", name, exception);
+        return false;
+      } finally {
+        long nanos = System.nanoTime() - start;
+        long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+        exportLatency.record(nanos);
+        lastExportMillis.set(millis);
+        totalExportMillis.addAndGet(millis);
+        log.debug("Sink {} exported batch in {} ms; queue depth {}", name, millis, queue.size());
+      }
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public int getQueueDepth() {
+      return queue.size();
+    }
+
+    public long getExportedBatches() {
+      return exportedBatches.get();
+    }
+
+    public long getFailedBatches() {
+      return failedBatches.get();
+    }
+
+    public long getLastExportMillis() {
+      return lastExportMillis.get();
+    }
+
+    /**
+     * Get the durations of the exports, failed ones included.
+     *
+     * @return The export latency histogram.
+     */
+    public LatencyHistogram getExportLatency() {
+      return exportLatency;
+    }
+
+    /**
+     * Get the average duration of an export, failed ones included.
+     *
+     * @return The average latency in milliseconds.
+     */
+    public long getAverageExportMillis() {
+      long batches = exportedBatches.get() + failedBatches.get();
+      return batches > 0 ? totalExportMillis.get() / batches : 0;
+    }
+
+    @Override
+    public String toString() {
+      return "exported " + exportedBatches.get() + ", failed " + failedBatches.get()
+          + ", average " + getAverageExportMillis() + " ms, last " + lastExportMillis.get()
+          + " ms, queue depth " + queue.size();
+    }
+  }
+}
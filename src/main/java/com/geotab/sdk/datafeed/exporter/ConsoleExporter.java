@@ -6,20 +6,42 @@ import com.geotab.model.entity.NameEntity;
 import com.geotab.model.entity.device.Device;
 import com.geotab.model.entity.device.GoDevice;
 import com.geotab.model.entity.diagnostic.DataDiagnostic;
+import com.geotab.model.entity.exceptionevent.ExceptionEvent;
 import com.geotab.model.entity.failuremode.FailureMode;
 import com.geotab.model.entity.failuremode.NoFailureMode;
 import com.geotab.model.entity.faultdata.FaultData;
 import com.geotab.model.entity.logrecord.LogRecord;
 import com.geotab.model.entity.statusdata.StatusData;
 import com.geotab.model.entity.trip.Trip;
-import com.geotab.model.serialization.DateTimeSerializationUtil;
 import com.geotab.sdk.datafeed.loader.DataFeedResult;
 import com.geotab.util.CollectionUtil;
+import java.io.BufferedWriter;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.nio.charset.Charset;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import lombok.extern.slf4j.Slf4j;
 
+/**
+ * Prints the data feed to the standard output.
+ *
+ * <p>The batches are handed to a background thread through a small bounded queue, which streams
+ * the rows one by one through a buffered writer, reusing a single row buffer, so printing a large
+ * batch does not build the whole batch in memory. An export returns only once its batch is
+ * printed, so the checkpoint is never saved ahead of the output.
+ */
 @Slf4j
 public class ConsoleExporter implements Exporter {
 
@@ -31,169 +53,354 @@ public class ConsoleExporter implements Exporter {
       + "Failure Mode Name, Failure Mode Source, Controller Name";
   private static final String TRIP_HEADER =
       "Vehicle Serial Number, Vin, Driver Name, Trip Start Time, Trip End Time,Trip Distance";
+  private static final String EXCEPTION_EVENT_HEADER =
+      "Vehicle Serial Number, Diagnostic Name, Driver Name, Rule Name, Active From, Active To";
 
-  public void export(DataFeedResult dataFeedResult) {
+  private static final String LINE_SEPARATOR = System.getProperty("line.separator");
 
-    StringBuilder dataFeedBuilder = new StringBuilder("\n\n\n");
+  private static final int BUFFER_SIZE = 64 * 1024;
 
-    appendLogRecords(dataFeedBuilder, dataFeedResult.getGpsRecords());
-    appendStatusData(dataFeedBuilder, dataFeedResult.getStatusData());
-    appendFaultData(dataFeedBuilder, dataFeedResult.getFaultData());
-    appendTrips(dataFeedBuilder, dataFeedResult.getTrips());
+  private static final int QUEUE_SIZE = 4;
 
-    dataFeedBuilder.append("\n\n\n");
+  private static final long POLL_MILLIS = 500;
 
-    log.info(dataFeedBuilder.toString());
+  private static final int COORDINATE_PLACES = 3;
+
+  private static final long[] POWERS_OF_TEN = {1, 10, 100, 1_000, 10_000, 100_000, 1_000_000};
+
+  private static final double MAX_SCALED = 1e9;
+
+  private static final double HALF_TOLERANCE = 1e-6;
+
+  private final BlockingQueue<Batch> queue = new ArrayBlockingQueue<>(QUEUE_SIZE);
+
+  private final AtomicBoolean isOpen = new AtomicBoolean(true);
+
+  private final Writer writer;
+
+  private final Thread thread;
+
+  private final StringBuilder row = new StringBuilder(256);
+
+  private char[] rowChars = new char[256];
+
+  public ConsoleExporter() {
+    this(new BufferedWriter(new OutputStreamWriter(
+        new FileOutputStream(FileDescriptor.out), Charset.defaultCharset()), BUFFER_SIZE));
+  }
+
+  /**
+   * Create an exporter printing to the given writer, e.g. to benchmark the formatting.
+   *
+   * @param writer The buffered writer of the output.
+   */
+  ConsoleExporter(Writer writer) {
+    this.writer = writer;
+    this.thread = new Thread(this::run, "console-exporter");
+    this.thread.start();
   }
 
-  private void appendLogRecords(StringBuilder dataFeedBuilder, List<LogRecord> logRecords) {
+  /**
+   * Queue the batch for printing and wait until it is printed.
+   *
+   * @param dataFeedResult The batch.
+   * @throws IOException if the batch could not be printed.
+   */
+  @Override
+  public void export(DataFeedResult dataFeedResult) throws IOException, InterruptedException {
+    Batch batch = new Batch(dataFeedResult);
+    // closing waits for the batch being queued, so none is left behind once the thread stops
+    synchronized (this) {
+      if (!isOpen.get()) {
+        throw new IllegalStateException("Exporter is closed");
+      }
+      queue.put(batch);
+    }
+
+    try {
+      batch.printed.get();
+    } catch (ExecutionException e) {
+      throw e.getCause() instanceof IOException ? (IOException) e.getCause()
+          : new IOException("Can not print data feed", e.getCause());
+    }
+  }
+
+  /**
+   * Print the queued batches, then stop; the standard output itself stays open.
+   */
+  @Override
+  public void close() throws IOException {
+    synchronized (this) {
+      isOpen.set(false);
+    }
+    try {
+      thread.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while printing the queued batches");
+    }
+  }
+
+  private void run() {
+    try {
+      // print whatever is left in the queue once closed
+      while (isOpen.get() || !queue.isEmpty()) {
+        Batch batch = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+        if (batch != null) {
+          try {
+            print(batch.dataFeedResult);
+            batch.printed.complete(null);
+          } catch (Exception exception) {
+            batch.printed.completeExceptionally(exception);
+          }
+        }
+      }
+    } catch (InterruptedException interruptedException) {
+      log.warn("Console exporter interrupted; {} batches not printed", queue.size());
+      for (Batch batch = queue.poll(); batch != null; batch = queue.poll()) {
+        batch.printed.completeExceptionally(interruptedException);
+      }
+    }
+  }
+
+  /**
+   * Print the batch right away. Not thread safe, as the row buffer is shared: called from the
+   * background thread, or directly while nothing is queued.
+   *
+   * @param dataFeedResult The batch.
+   * @throws IOException if the batch could not be written.
+   */
+  void print(DataFeedResult dataFeedResult) throws IOException {
+    try {
+      writer.write(LINE_SEPARATOR);
+      writeLogRecords(dataFeedResult.getGpsRecords());
+      writeStatusData(dataFeedResult.getStatusData());
+      writeFaultData(dataFeedResult.getFaultData());
+      writeTrips(dataFeedResult.getTrips());
+      writeExceptionEvents(dataFeedResult.getExceptionEvents());
+      writer.flush();
+    } finally {
+      row.setLength(0);
+    }
+  }
+
+  private void writeLogRecords(List<LogRecord> logRecords) throws IOException {
     if (CollectionUtil.isEmpty(logRecords)) {
       return;
     }
 
-    dataFeedBuilder.append("\n");
-    dataFeedBuilder.append(GPS_DATA_HEADER);
+    writeHeader(GPS_DATA_HEADER);
 
     for (LogRecord logRecord : logRecords) {
-      StringBuilder stringBuilder = new StringBuilder("\n");
-      appendDeviceValues(stringBuilder, logRecord.getDevice());
-      appendValue(stringBuilder,
-          DateTimeSerializationUtil.localDateTimeToString(logRecord.getDateTime()));
-      appendValue(stringBuilder, round(logRecord.getLongitude(), 3));
-      appendValue(stringBuilder, round(logRecord.getLatitude(), 3));
-      appendValue(stringBuilder, logRecord.getSpeed(), false);
-
-      dataFeedBuilder.append(stringBuilder.toString());
+      appendDeviceValues(logRecord.getDevice());
+      appendValue(localDateTimeToString(logRecord.getDateTime()));
+      appendCoordinate(logRecord.getLongitude());
+      appendCoordinate(logRecord.getLatitude());
+      appendValue(logRecord.getSpeed(), false);
+      writeRow();
     }
-
-    dataFeedBuilder.append("\n");
   }
 
-  private void appendStatusData(StringBuilder dataFeedBuilder, List<StatusData> statusData) {
+  private void writeStatusData(List<StatusData> statusData) throws IOException {
     if (CollectionUtil.isEmpty(statusData)) {
       return;
     }
 
-    dataFeedBuilder.append("\n");
-    dataFeedBuilder.append(STATUS_DATA_HEADER);
+    writeHeader(STATUS_DATA_HEADER);
 
     for (StatusData data : statusData) {
-      StringBuilder stringBuilder = new StringBuilder("\n");
-      appendDeviceValues(stringBuilder, data.getDevice());
-      appendValue(stringBuilder,
-          DateTimeSerializationUtil.localDateTimeToString(data.getDateTime()));
+      appendDeviceValues(data.getDevice());
+      appendValue(localDateTimeToString(data.getDateTime()));
 
-      appendName(stringBuilder, data.getDiagnostic());
-      appendName(stringBuilder, data.getDiagnostic().getSource());
+      appendName(data.getDiagnostic());
+      appendName(data.getDiagnostic().getSource());
       boolean isDataDiagnostic = data.getDiagnostic() instanceof DataDiagnostic;
-      appendValue(stringBuilder, data.getData(), isDataDiagnostic);
+      appendValue(data.getData(), isDataDiagnostic);
       if (isDataDiagnostic) {
-        appendName(stringBuilder, data.getDiagnostic().getUnitOfMeasure(), false);
+        appendName(data.getDiagnostic().getUnitOfMeasure(), false);
       }
-
-      dataFeedBuilder.append(stringBuilder.toString());
+      writeRow();
     }
-
-    dataFeedBuilder.append("\n");
   }
 
-  private void appendFaultData(StringBuilder dataFeedBuilder, List<FaultData> faultData) {
+  private void writeFaultData(List<FaultData> faultData) throws IOException {
     if (CollectionUtil.isEmpty(faultData)) {
       return;
     }
 
-    dataFeedBuilder.append("\n");
-    dataFeedBuilder.append(FAULT_DATA_HEADER);
+    writeHeader(FAULT_DATA_HEADER);
 
     for (FaultData data : faultData) {
-      StringBuilder stringBuilder = new StringBuilder("\n");
-      appendDeviceValues(stringBuilder, data.getDevice());
-      appendValue(stringBuilder,
-          DateTimeSerializationUtil.localDateTimeToString(data.getDateTime()));
+      appendDeviceValues(data.getDevice());
+      appendValue(localDateTimeToString(data.getDateTime()));
 
-      appendName(stringBuilder, data.getDiagnostic());
+      appendName(data.getDiagnostic());
 
       FailureMode failureMode = data.getFailureMode();
-      appendName(stringBuilder, failureMode);
+      appendName(failureMode);
       if (NoFailureMode.getInstance().equals(failureMode)) {
-        appendValue(stringBuilder, "None");
+        appendValue("None");
       } else {
-        appendName(stringBuilder, failureMode.getSource());
+        appendName(failureMode.getSource());
       }
-      appendName(stringBuilder, data.getController(), false);
-
-      dataFeedBuilder.append(stringBuilder.toString());
+      appendName(data.getController(), false);
+      writeRow();
     }
-
-    dataFeedBuilder.append("\n");
   }
 
-  private void appendTrips(StringBuilder dataFeedBuilder, List<Trip> trips) {
+  private void writeTrips(List<Trip> trips) throws IOException {
     if (CollectionUtil.isEmpty(trips)) {
       return;
     }
 
-    dataFeedBuilder.append("\n");
-    dataFeedBuilder.append(TRIP_HEADER);
+    writeHeader(TRIP_HEADER);
 
     for (Trip trip : trips) {
-      StringBuilder stringBuilder = new StringBuilder("\n");
-      appendDeviceValues(stringBuilder, trip.getDevice());
-      appendValue(stringBuilder, trip.getDevice() instanceof GoDevice
-          ? ((GoDevice) trip.getDevice()).getVehicleIdentificationNumber().replace(",", " ") : "");
+      appendDeviceValues(trip.getDevice());
+      if (trip.getDevice() instanceof GoDevice) {
+        appendWithoutCommas(((GoDevice) trip.getDevice()).getVehicleIdentificationNumber(), true);
+      } else {
+        appendValue("");
+      }
+
+      appendName(trip.getDriver());
+      appendValue(trip.getStart() != null ? localDateTimeToString(trip.getStart()) : "");
+      appendValue(trip.getStop() != null ? localDateTimeToString(trip.getStop()) : "");
+      appendValue(trip.getDistance() != null ? trip.getDistance() : "", false);
+      writeRow();
+    }
+  }
 
-      appendName(stringBuilder, trip.getDriver());
-      appendValue(stringBuilder,
-          trip.getStart() != null ? localDateTimeToString(trip.getStart()) : "");
-      appendValue(stringBuilder,
-          trip.getStop() != null ? localDateTimeToString(trip.getStop()) : "");
-      appendValue(stringBuilder, trip.getDistance() != null ? trip.getDistance() : "");
+  private void writeExceptionEvents(List<ExceptionEvent> exceptionEvents) throws IOException {
+    if (CollectionUtil.isEmpty(exceptionEvents)) {
+      return;
+    }
 
-      dataFeedBuilder.append(stringBuilder.toString());
+    writeHeader(EXCEPTION_EVENT_HEADER);
+
+    for (ExceptionEvent exceptionEvent : exceptionEvents) {
+      appendDeviceValues(exceptionEvent.getDevice());
+      appendName(exceptionEvent.getDiagnostic());
+      appendName(exceptionEvent.getDriver());
+      appendName(exceptionEvent.getRule());
+      appendValue(exceptionEvent.getActiveFrom() != null
+          ? localDateTimeToString(exceptionEvent.getActiveFrom()) : "");
+      appendValue(exceptionEvent.getActiveTo() != null
+          ? localDateTimeToString(exceptionEvent.getActiveTo()) : "", false);
+      writeRow();
     }
+  }
+
+  private void writeHeader(String header) throws IOException {
+    writer.write(LINE_SEPARATOR);
+    writer.write(header);
+    writer.write(LINE_SEPARATOR);
+  }
 
-    dataFeedBuilder.append("\n");
+  /**
+   * Write the row built so far and reset it for the next one.
+   */
+  private void writeRow() throws IOException {
+    row.append(LINE_SEPARATOR);
+    int length = row.length();
+    if (rowChars.length < length) {
+      rowChars = new char[Math.max(length, 2 * rowChars.length)];
+    }
+    row.getChars(0, length, rowChars, 0);
+    row.setLength(0);
+    writer.write(rowChars, 0, length);
   }
 
-  private void appendDeviceValues(StringBuilder stringBuilder, Device device) {
+  private void appendDeviceValues(Device device) {
     if (device != null) {
-      appendValue(stringBuilder, device.getSerialNumber());
+      appendValue(device.getSerialNumber());
     } else {
-      appendValue(stringBuilder, "");
-      appendValue(stringBuilder, "");
+      appendValue("");
+      appendValue("");
     }
   }
 
-  private void appendValue(StringBuilder stringBuilder, Object object) {
-    appendValue(stringBuilder, object, true);
+  private void appendValue(Object object) {
+    appendValue(object, true);
   }
 
-
-  private void appendValue(StringBuilder stringBuilder, Object object, boolean addSeparator) {
-    stringBuilder.append(object);
+  private void appendValue(Object object, boolean addSeparator) {
+    row.append(object);
     if (addSeparator) {
-      stringBuilder.append(", ");
+      row.append(", ");
     }
   }
 
-  private void appendName(StringBuilder stringBuilder, NameEntity entity) {
-    appendName(stringBuilder, entity, true);
+  private void appendName(NameEntity entity) {
+    appendName(entity, true);
+  }
+
+  private void appendName(NameEntity entity, boolean addSeparator) {
+    appendWithoutCommas(entity.isSystemEntity() ? entity.getClass().getSimpleName()
+        : entity.getName(), addSeparator);
+  }
+
+  private void appendWithoutCommas(String value, boolean addSeparator) {
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      row.append(c == ',' ? ' ' : c);
+    }
+    if (addSeparator) {
+      row.append(", ");
+    }
   }
 
-  private void appendName(StringBuilder stringBuilder, NameEntity entity, boolean addSeparator) {
-    appendValue(stringBuilder,
-        entity.isSystemEntity() ? entity.getClass().getSimpleName().replace(",", " ")
-            : entity.getName().replace(",", " "), addSeparator);
+  private void appendCoordinate(Double coordinate) {
+    if (coordinate != null) {
+      row.append(round(coordinate, COORDINATE_PLACES));
+    }
+    row.append(", ");
   }
 
-  private static double round(double value, int places) {
+  /**
+   * Round the value half up to a fixed number of decimal places, as printed by
+   * {@link Double#toString(double)}. Only values close to a half, which the binary scaling may
+   * round the wrong way, take the exact decimal path.
+   *
+   * @param value  The value; NaN and infinity are returned as is.
+   * @param places The decimal places.
+   * @return The rounded value; never negative zero.
+   */
+  static double round(double value, int places) {
     if (places < 0) {
       throw new IllegalArgumentException();
     }
 
-    BigDecimal bigDecimal = new BigDecimal(Double.toString(value));
-    bigDecimal = bigDecimal.setScale(places, RoundingMode.HALF_UP);
-    return bigDecimal.doubleValue();
+    if (places < POWERS_OF_TEN.length) {
+      double scale = POWERS_OF_TEN[places];
+      // also false for NaN and infinity
+      double scaled = Math.abs(value) * scale;
+      if (scaled < MAX_SCALED) {
+        double fraction = scaled - Math.floor(scaled);
+        if (Math.abs(fraction - 0.5) > HALF_TOLERANCE) {
+          // both the rounded value and the scale are exact, so the division is correctly rounded
+          double rounded = Math.floor(scaled + 0.5) / scale;
+          return value < 0 && rounded != 0 ? -rounded : rounded;
+        }
+      }
+    }
+
+    if (Double.isNaN(value) || Double.isInfinite(value)) {
+      return value;
+    }
+    // adding zero turns a negative zero into a positive one
+    return new BigDecimal(Double.toString(value)).setScale(places, RoundingMode.HALF_UP)
+        .doubleValue() + 0.0;
   }
 
+  private static final class Batch {
+
+    private final DataFeedResult dataFeedResult;
+
+    private final CompletableFuture<Void> printed = new CompletableFuture<>();
+
+    private Batch(DataFeedResult dataFeedResult) {
+      this.dataFeedResult = dataFeedResult;
+    }
+  }
 }
@@ -1,11 +1,12 @@
 package com.geotab.sdk.datafeed.exporter;
 
 import static com.geotab.model.serialization.DateTimeSerializationUtil.localDateTimeToString;
-import static com.geotab.model.serialization.DateTimeSerializationUtil.nowUtcLocalDateTime;
 
 import com.geotab.model.entity.NameEntity;
+import com.geotab.model.entity.device.Device;
 import com.geotab.model.entity.device.GoDevice;
 import com.geotab.model.entity.diagnostic.DataDiagnostic;
+import com.geotab.model.entity.exceptionevent.ExceptionEvent;
 import com.geotab.model.entity.failuremode.NoFailureMode;
 import com.geotab.model.entity.faultdata.FaultData;
 import com.geotab.model.entity.logrecord.LogRecord;
@@ -13,23 +14,22 @@ import com.geotab.model.entity.statusdata.StatusData;
 import com.geotab.model.entity.trip.Trip;
 import com.geotab.model.entity.user.Driver;
 import com.geotab.model.entity.user.Key;
+import com.geotab.model.entity.user.User;
 import com.geotab.sdk.datafeed.loader.DataFeedResult;
 import com.geotab.util.CollectionUtil;
-import java.io.File;
-import java.io.FileWriter;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.io.IOException;
-import java.io.Writer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
-import org.apache.commons.text.StringEscapeUtils;
 
 @Slf4j
 public class CsvExporter implements Exporter {
@@ -59,9 +59,56 @@ public class CsvExporter implements Exporter {
 
   private static final String TRIP_FILE_NAME_PREFIX = "Trips";
 
+  private static final String[] EXCEPTION_EVENT_HEADER = new String[]{"Id", "Vehicle Name",
+      "Vehicle Serial Number", "VIN", "Diagnostic Name", "Diagnostic Code", "Source Name",
+      "Driver Name", "Driver Keys", "Rule Name", "Active From", "Active To"};
+
+  private static final String EXCEPTION_EVENT_FILE_NAME_PREFIX = "Exceptions";
+
+  /**
+   * The size at which a new file is started when none is configured.
+   */
+  public static final long DEFAULT_ROTATE_SIZE = 100L * 1024 * 1024;
+
+  /**
+   * How long a file is written to when no rotate interval is configured.
+   */
+  public static final Duration DEFAULT_ROTATE_INTERVAL = Duration.ofHours(1);
+
   private String outputPath;
 
+  private final CsvFileChannel gpsChannel;
+
+  private final CsvFileChannel statusDataChannel;
+
+  private final CsvFileChannel faultDataChannel;
+
+  private final CsvFileChannel tripChannel;
+
+  private final CsvFileChannel exceptionEventChannel;
+
+  /**
+   * Flushes the files periodically; null when they are flushed after every export.
+   */
+  private ScheduledExecutorService flushExecutor;
+
   public CsvExporter(String outputPath) {
+    this(outputPath, DEFAULT_ROTATE_SIZE, DEFAULT_ROTATE_INTERVAL, Duration.ZERO, 0);
+  }
+
+  /**
+   * Create an exporter writing one CSV file per data type, kept open across exports.
+   *
+   * @param outputPath       The folder of the files.
+   * @param rotateSize       The uncompressed size in bytes at which a new file is started.
+   * @param rotateInterval   How long a file is written to before a new one is started.
+   * @param flushInterval    How often the buffered rows are written to the files; zero to write
+   *                         them at the end of every export, before its checkpoint is saved.
+   * @param compressionLevel The gzip level of the files, 1 (fastest) to 9 (smallest); 0 to write
+   *                         plain CSV files.
+   */
+  public CsvExporter(String outputPath, long rotateSize, Duration rotateInterval,
+      Duration flushInterval, int compressionLevel) {
     this.outputPath = StringUtils.isNotEmpty(outputPath) ? outputPath : ".";
 
     if (!Files.exists(Paths.get(this.outputPath))) {
@@ -71,6 +118,25 @@ public class CsvExporter implements Exporter {
         throw new RuntimeException("Failed to initialize for output path " + outputPath, e);
       }
     }
+
+    Path folder = Paths.get(this.outputPath);
+    this.gpsChannel = new CsvFileChannel(folder, GPS_FILE_NAME_PREFIX, GPS_DATA_HEADER,
+        rotateSize, rotateInterval, compressionLevel);
+    this.statusDataChannel = new CsvFileChannel(folder, STATUS_DATA_FILE_NAME_PREFIX,
+        STATUS_DATA_HEADER, rotateSize, rotateInterval, compressionLevel);
+    this.faultDataChannel = new CsvFileChannel(folder, FAULT_DATA_FILE_NAME_PREFIX,
+        FAULT_DATA_HEADER, rotateSize, rotateInterval, compressionLevel);
+    this.tripChannel = new CsvFileChannel(folder, TRIP_FILE_NAME_PREFIX, TRIP_HEADER,
+        rotateSize, rotateInterval, compressionLevel);
+    this.exceptionEventChannel = new CsvFileChannel(folder, EXCEPTION_EVENT_FILE_NAME_PREFIX,
+        EXCEPTION_EVENT_HEADER, rotateSize, rotateInterval, compressionLevel);
+
+    if (!flushInterval.isZero()) {
+      this.flushExecutor = Executors.newSingleThreadScheduledExecutor(
+          new ThreadFactoryBuilder().setNameFormat("csv-flush-%d").setDaemon(true).build());
+      this.flushExecutor.scheduleWithFixedDelay(this::flushQuietly, flushInterval.toMillis(),
+          flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
   }
 
   public void export(DataFeedResult dataFeedResult) throws Exception {
@@ -78,16 +144,59 @@ public class CsvExporter implements Exporter {
     exportStatusData(dataFeedResult.getStatusData());
     exportFaultData(dataFeedResult.getFaultData());
     exportTrips(dataFeedResult.getTrips());
+    exportExceptionEvents(dataFeedResult.getExceptionEvents());
+
+    if (flushExecutor == null) {
+      // on disk before the worker saves the checkpoint of the batch
+      flush(true);
+    }
+  }
+
+  /**
+   * Flush and close the files.
+   */
+  @Override
+  public void close() {
+    if (flushExecutor != null) {
+      flushExecutor.shutdownNow();
+    }
+
+    for (CsvFileChannel channel : channels()) {
+      try {
+        channel.close();
+      } catch (IOException e) {
+        log.error("Can not close csv file", e);
+      }
+    }
+  }
+
+  private List<CsvFileChannel> channels() {
+    return Arrays.asList(gpsChannel, statusDataChannel, faultDataChannel, tripChannel,
+        exceptionEventChannel);
+  }
+
+  private void flush(boolean force) throws IOException {
+    for (CsvFileChannel channel : channels()) {
+      channel.flush(force);
+    }
+  }
+
+  private void flushQuietly() {
+    try {
+      flush(false);
+    } catch (Exception e) {
+      log.error("Can not flush csv files", e);
+    }
   }
 
   private void exportLogRecords(List<LogRecord> logRecords) throws Exception {
     log.debug("Exporting LogRecords to csv ...");
 
-    String csvFile = generateCsv(
-        GPS_FILE_NAME_PREFIX,
-        GPS_DATA_HEADER,
-        transformLogRecords(logRecords)
-    );
+    if (CollectionUtil.isEmpty(logRecords)) {
+      return;
+    }
+
+    Path csvFile = gpsChannel.write(logRecords, this::encodeLogRecord);
 
     log.info("LogRecords exported to {}", csvFile);
   }
@@ -95,11 +204,11 @@ public class CsvExporter implements Exporter {
   private void exportStatusData(List<StatusData> statusData) throws Exception {
     log.debug("Exporting StatusData to csv ...");
 
-    String csvFile = generateCsv(
-        STATUS_DATA_FILE_NAME_PREFIX,
-        STATUS_DATA_HEADER,
-        transformStatusData(statusData)
-    );
+    if (CollectionUtil.isEmpty(statusData)) {
+      return;
+    }
+
+    Path csvFile = statusDataChannel.write(statusData, this::encodeStatusData);
 
     log.info("StatusData exported to {}", csvFile);
   }
@@ -107,11 +216,11 @@ public class CsvExporter implements Exporter {
   private void exportFaultData(List<FaultData> faultData) throws Exception {
     log.debug("Exporting FaultData to csv ...");
 
-    String csvFile = generateCsv(
-        FAULT_DATA_FILE_NAME_PREFIX,
-        FAULT_DATA_HEADER,
-        transformFaultData(faultData)
-    );
+    if (CollectionUtil.isEmpty(faultData)) {
+      return;
+    }
+
+    Path csvFile = faultDataChannel.write(faultData, this::encodeFaultData);
 
     log.info("FaultData exported to {}", csvFile);
   }
@@ -119,171 +228,127 @@ public class CsvExporter implements Exporter {
   private void exportTrips(List<Trip> trips) throws Exception {
     log.debug("Exporting Trips to csv ...");
 
-    String csvFile = generateCsv(
-        TRIP_FILE_NAME_PREFIX,
-        TRIP_HEADER,
-        transformTrips(trips)
-    );
+    if (CollectionUtil.isEmpty(trips)) {
+      return;
+    }
+
+    Path csvFile = tripChannel.write(trips, this::encodeTrip);
 
     log.info("Trips exported to {}", csvFile);
   }
 
-  private String generateCsv(String fileNamePrefix, String[] headers, List<String[]> csvRows)
-      throws Exception {
+  private void exportExceptionEvents(List<ExceptionEvent> exceptionEvents) throws Exception {
+    log.debug("Exporting ExceptionEvents to csv ...");
 
-    String reportFileName = fileNamePrefix + "-"
-        + nowUtcLocalDateTime().format(DateTimeFormatter.ofPattern("yyyy-MM-dd-HH-mm-ss"))
-        + ".csv";
-    Path reportFilePath = Paths.get(outputPath + File.separator + reportFileName);
-
-    boolean addHeaderRow = !Files.exists(reportFilePath);
+    if (CollectionUtil.isEmpty(exceptionEvents)) {
+      return;
+    }
 
-    try (Writer writer = new FileWriter(reportFilePath.toString(), true)) {
-      if (addHeaderRow) {
-        writer.append(String.join(",", headers));
-      }
+    Path csvFile = exceptionEventChannel.write(exceptionEvents, this::encodeExceptionEvent);
 
-      for (String[] row : csvRows) {
-        writer.append(System.getProperty("line.separator")).append(String.join(",", row));
-      }
-    }
+    log.info("ExceptionEvents exported to {}", csvFile);
+  }
 
-    return reportFilePath.toString();
+  private void encodeDevice(CsvRowEncoder row, Device device) {
+    row.fieldWithoutCommas(device.getName())
+        .field(device.getSerialNumber())
+        .fieldWithoutCommas(device instanceof GoDevice
+            ? ((GoDevice) device).getVehicleIdentificationNumber() : "");
   }
 
-  private List<String[]> transformLogRecords(List<LogRecord> logRecords) {
-    if (CollectionUtil.isEmpty(logRecords)) {
-      return new ArrayList<>();
-    }
+  private void encodeLogRecord(CsvRowEncoder row, LogRecord logRecord) {
+    encodeDevice(row, logRecord.getDevice());
+    row.field(localDateTimeToString(logRecord.getDateTime()))
+        .field(logRecord.getLongitude())
+        .field(logRecord.getLatitude())
+        .field(logRecord.getSpeed());
+  }
 
-    return logRecords.stream()
-        .map(logRecord -> Arrays
-            .stream(
-                new String[]{
-                    logRecord.getDevice().getName().replace(",", " "),
-                    logRecord.getDevice().getSerialNumber(),
-                    logRecord.getDevice() instanceof GoDevice
-                        ? ((GoDevice) logRecord.getDevice()).getVehicleIdentificationNumber()
-                        .replace(",", " ") : "",
-                    localDateTimeToString(logRecord.getDateTime()),
-                    logRecord.getLongitude() != null ? logRecord.getLongitude().toString() : "",
-                    logRecord.getLatitude() != null ? logRecord.getLatitude().toString() : "",
-                    logRecord.getSpeed() != null ? logRecord.getSpeed().toString() : "",
-                }
-            )
-            .map(StringEscapeUtils::escapeCsv)
-            .toArray(String[]::new)
-        )
-        .collect(Collectors.toList());
+  private void encodeStatusData(CsvRowEncoder row, StatusData data) {
+    encodeDevice(row, data.getDevice());
+    row.field(localDateTimeToString(data.getDateTime()));
+    encodeName(row, data.getDiagnostic());
+    row.field(data.getDiagnostic().getCode());
+    encodeName(row, data.getDiagnostic().getSource());
+    row.field(data.getData());
+    encodeName(row, data.getDiagnostic() instanceof DataDiagnostic
+        ? data.getDiagnostic().getUnitOfMeasure() : null);
   }
 
-  private List<String[]> transformStatusData(List<StatusData> statusData) {
-    if (CollectionUtil.isEmpty(statusData)) {
-      return new ArrayList<>();
+  private void encodeFaultData(CsvRowEncoder row, FaultData data) {
+    encodeDevice(row, data.getDevice());
+    row.field(localDateTimeToString(data.getDateTime()));
+    encodeName(row, data.getDiagnostic());
+    encodeName(row, data.getFailureMode());
+    row.field(data.getFailureMode().getCode());
+    if (NoFailureMode.getInstance().equals(data.getFailureMode())) {
+      row.field("None");
+    } else {
+      encodeName(row, data.getFailureMode().getSource());
     }
-
-    return statusData.stream()
-        .map(data -> Arrays
-            .stream(
-                new String[]{
-                    data.getDevice().getName().replace(",", " "),
-                    data.getDevice().getSerialNumber(),
-                    data.getDevice() instanceof GoDevice
-                        ? ((GoDevice) data.getDevice()).getVehicleIdentificationNumber()
-                        .replace(",", " ") : "",
-                    localDateTimeToString(data.getDateTime()),
-                    getName(data.getDiagnostic()),
-                    data.getDiagnostic().getCode() != null ? data.getDiagnostic().getCode()
-                        .toString() : "",
-                    data.getDiagnostic().getSource() != null ? getName(
-                        data.getDiagnostic().getSource()) : "",
-                    data.getData() != null ? data.getData().toString() : "",
-                    data.getDiagnostic() instanceof DataDiagnostic ? getName(
-                        data.getDiagnostic().getUnitOfMeasure()) : ""
-                }
-            )
-            .map(StringEscapeUtils::escapeCsv)
-            .toArray(String[]::new)
-        )
-        .collect(Collectors.toList());
+    encodeName(row, data.getController());
+    row.field(data.getCount())
+        .field(data.getFaultState())
+        .field(data.getMalfunctionLamp())
+        .field(data.getRedStopLamp())
+        .field(data.getAmberWarningLamp())
+        .field(data.getProtectWarningLamp())
+        .field(data.getDismissDateTime() != null
+            ? localDateTimeToString(data.getDismissDateTime()) : "")
+        .fieldWithoutCommas(data.getDismissUser() != null ? data.getDismissUser().getName() : "");
   }
 
-  private List<String[]> transformFaultData(List<FaultData> faultData) {
-    if (CollectionUtil.isEmpty(faultData)) {
-      return new ArrayList<>();
-    }
+  private void encodeTrip(CsvRowEncoder row, Trip trip) {
+    encodeDevice(row, trip.getDevice());
+    encodeName(row, trip.getDriver());
+    encodeDriverKeys(row, trip.getDriver());
+    row.field(trip.getStart() != null ? localDateTimeToString(trip.getStart()) : "")
+        .field(trip.getStop() != null ? localDateTimeToString(trip.getStop()) : "")
+        .field(trip.getDistance());
+  }
 
-    return faultData.stream()
-        .map(data -> Arrays
-            .stream(
-                new String[]{
-                    data.getDevice().getName().replace(",", " "),
-                    data.getDevice().getSerialNumber(),
-                    data.getDevice() instanceof GoDevice
-                        ? ((GoDevice) data.getDevice()).getVehicleIdentificationNumber()
-                        .replace(",", " ") : "",
-                    localDateTimeToString(data.getDateTime()),
-                    getName(data.getDiagnostic()),
-                    getName(data.getFailureMode()),
-                    data.getFailureMode().getCode() != null ? data.getFailureMode().getCode()
-                        .toString() : "",
-                    NoFailureMode.getInstance().equals(data.getFailureMode()) ? "None"
-                        : getName(data.getFailureMode().getSource()),
-                    getName(data.getController()),
-                    data.getCount() != null ? data.getCount().toString() : "",
-                    data.getFaultState() != null ? data.getFaultState().toString() : "",
-                    data.getMalfunctionLamp() != null ? data.getMalfunctionLamp().toString() : "",
-                    data.getRedStopLamp() != null ? data.getRedStopLamp().toString() : "",
-                    data.getAmberWarningLamp() != null ? data.getAmberWarningLamp().toString() : "",
-                    data.getProtectWarningLamp() != null ? data.getProtectWarningLamp().toString()
-                        : "",
-                    data.getDismissDateTime() != null ? localDateTimeToString(
-                        data.getDismissDateTime()) : "",
-                    data.getDismissUser() != null ? data.getDismissUser().getName()
-                        .replace(",", " ") : ""
-                }
-            )
-            .map(StringEscapeUtils::escapeCsv)
-            .toArray(String[]::new)
-        )
-        .collect(Collectors.toList());
+  private void encodeExceptionEvent(CsvRowEncoder row, ExceptionEvent exceptionEvent) {
+    row.field(exceptionEvent.getId() != null ? exceptionEvent.getId().getId() : "");
+    encodeDevice(row, exceptionEvent.getDevice());
+    encodeName(row, exceptionEvent.getDiagnostic());
+    row.field(exceptionEvent.getDiagnostic() != null
+        ? exceptionEvent.getDiagnostic().getCode() : null);
+    encodeName(row, exceptionEvent.getDiagnostic() != null
+        ? exceptionEvent.getDiagnostic().getSource() : null);
+    encodeName(row, exceptionEvent.getDriver());
+    encodeDriverKeys(row, exceptionEvent.getDriver());
+    encodeName(row, exceptionEvent.getRule());
+    row.field(exceptionEvent.getActiveFrom() != null
+            ? localDateTimeToString(exceptionEvent.getActiveFrom()) : "")
+        .field(exceptionEvent.getActiveTo() != null
+            ? localDateTimeToString(exceptionEvent.getActiveTo()) : "");
   }
 
-  private List<String[]> transformTrips(List<Trip> trips) {
-    if (CollectionUtil.isEmpty(trips)) {
-      return new ArrayList<>();
+  /**
+   * Append the keys of a driver separated by ~; an empty field when there are none.
+   */
+  private void encodeDriverKeys(CsvRowEncoder row, User driver) {
+    row.startField();
+    if (driver instanceof Driver && !CollectionUtil.isEmpty(((Driver) driver).getKeys())) {
+      String separator = "";
+      for (Key key : ((Driver) driver).getKeys()) {
+        row.append(separator, false).append(key.getSerialNumber(), false);
+        separator = "~";
+      }
     }
-
-    return trips.stream()
-        .map(trip -> Arrays
-            .stream(
-                new String[]{
-                    trip.getDevice().getName().replace(",", " "),
-                    trip.getDevice().getSerialNumber(),
-                    trip.getDevice() instanceof GoDevice
-                        ? ((GoDevice) trip.getDevice()).getVehicleIdentificationNumber()
-                        .replace(",", " ") : "",
-                    getName(trip.getDriver()),
-                    trip.getDriver() instanceof Driver && CollectionUtil
-                        .isEmpty(((Driver) trip.getDriver()).getKeys()) ? ""
-                        : ((Driver) trip.getDriver()).getKeys()
-                            .stream()
-                            .map(Key::getSerialNumber)
-                            .collect(Collectors.joining("~")),
-                    trip.getStart() != null ? localDateTimeToString(trip.getStart()) : "",
-                    trip.getStop() != null ? localDateTimeToString(trip.getStop()) : "",
-                    trip.getDistance() != null ? trip.getDistance().toString() : ""
-                }
-            )
-            .map(StringEscapeUtils::escapeCsv)
-            .toArray(String[]::new)
-        )
-        .collect(Collectors.toList());
+    row.endField();
   }
 
-  private String getName(NameEntity entity) {
-    return entity.isSystemEntity() ? entity.getClass().getSimpleName().replace(",", " ")
-        : entity.getName().replace(",", " ");
+  /**
+   * Append the name of an entity, or its type for system entities; an empty field for null.
+   */
+  private void encodeName(CsvRowEncoder row, NameEntity entity) {
+    if (entity == null) {
+      row.field("");
+    } else if (entity.isSystemEntity()) {
+      row.fieldWithoutCommas(entity.getClass().getSimpleName());
+    } else {
+      row.fieldWithoutCommas(entity.getName());
+    }
   }
-
 }
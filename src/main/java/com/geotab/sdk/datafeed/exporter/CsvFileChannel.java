@@ -0,0 +1,218 @@
+package com.geotab.sdk.datafeed.exporter;
+
+import static com.geotab.model.serialization.DateTimeSerializationUtil.nowUtcLocalDateTime;
+import static java.nio.file.StandardOpenOption.CREATE_NEW;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.zip.GZIPOutputStream;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Buffered CSV file of one data type which stays open across exports.
+ *
+ * <p>A new file, named after the type and the time it was opened, is started once the current one
+ * reaches the rotate size or has been open for the rotate interval. The file is only opened when
+ * there are rows to write. All methods are synchronized, so the channel may be flushed from a
+ * scheduler while rows are written.
+ *
+ * <p>With a compression level the rows are written through a gzip stream and every file is a
+ * complete gzip member, so rotated files can be shipped and decompressed on their own. Flushes use
+ * a sync flush, so all rows written so far can be decompressed even while the file is open.
+ *
+ * <p>A file is forced to disk when it is closed, and on a flush which asks for it, so the rows can
+ * not be lost after a checkpoint saved behind them.
+ */
+@Slf4j
+final class CsvFileChannel implements Closeable {
+
+  private static final String LINE_SEPARATOR = System.getProperty("line.separator");
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private static final DateTimeFormatter FILE_TIMESTAMP_FORMAT = DateTimeFormatter
+      .ofPattern("yyyy-MM-dd-HH-mm-ss");
+
+  private final Path outputPath;
+
+  private final String fileNamePrefix;
+
+  private final String[] headers;
+
+  private final long rotateSize;
+
+  private final Duration rotateInterval;
+
+  /**
+   * The gzip compression level; 0 writes plain CSV files.
+   */
+  private final int compressionLevel;
+
+  private final CsvRowEncoder encoder = new CsvRowEncoder();
+
+  private Path file;
+
+  private Writer writer;
+
+  /**
+   * The channel of the current file, kept to force the file to disk; the writer does not close it.
+   */
+  private FileChannel fileChannel;
+
+  /**
+   * The uncompressed size of the current file, counting the buffered characters as bytes.
+   */
+  private long fileSize;
+
+  private Instant rotateTime;
+
+  CsvFileChannel(Path outputPath, String fileNamePrefix, String[] headers, long rotateSize,
+      Duration rotateInterval, int compressionLevel) {
+    this.outputPath = outputPath;
+    this.fileNamePrefix = fileNamePrefix;
+    this.headers = headers;
+    this.rotateSize = rotateSize;
+    this.rotateInterval = rotateInterval;
+    this.compressionLevel = compressionLevel;
+  }
+
+  /**
+   * Append rows, rotating the file when due.
+   *
+   * @param data       The records to write; one row each.
+   * @param rowEncoder Encodes the fields of a record.
+   * @return The file the last row was written to; null when there were no rows.
+   */
+  synchronized <T> Path write(List<T> data, BiConsumer<CsvRowEncoder, T> rowEncoder)
+      throws IOException {
+    if (data.isEmpty()) {
+      return null;
+    }
+
+    if (writer == null || !Instant.now().isBefore(rotateTime)) {
+      rotate();
+    }
+
+    for (T record : data) {
+      if (fileSize >= rotateSize) {
+        rotate();
+      }
+      // encode the row before writing its line separator, so a row which fails leaves no trace
+      try {
+        rowEncoder.accept(encoder, record);
+      } catch (RuntimeException exception) {
+        encoder.reset();
+        throw exception;
+      }
+      writer.write(LINE_SEPARATOR);
+      fileSize += LINE_SEPARATOR.length() + encoder.writeTo(writer);
+    }
+
+    return file;
+  }
+
+  /**
+   * Write the buffered rows to the file.
+   *
+   * @param force Whether to also force the file to disk, e.g. before a checkpoint is saved.
+   */
+  synchronized void flush(boolean force) throws IOException {
+    if (writer != null) {
+      writer.flush();
+      if (force) {
+        fileChannel.force(false);
+      }
+    }
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    if (writer == null) {
+      return;
+    }
+
+    try {
+      writer.close();
+      fileChannel.force(false);
+    } finally {
+      log.debug("Closed {} at about {} bytes", file, fileSize);
+      writer = null;
+      fileChannel.close();
+    }
+  }
+
+  private void rotate() throws IOException {
+    close();
+
+    String fileName = fileNamePrefix + "-" + nowUtcLocalDateTime().format(FILE_TIMESTAMP_FORMAT);
+    String extension = compressionLevel > 0 ? ".csv.gz" : ".csv";
+    file = outputPath.resolve(fileName + extension);
+    // files rotated within the same second get a sequence number
+    for (int sequence = 1; Files.exists(file); sequence++) {
+      file = outputPath.resolve(fileName + "-" + sequence + extension);
+    }
+
+    fileChannel = FileChannel.open(file, CREATE_NEW, WRITE);
+    OutputStream outputStream = new UnclosedOutputStream(Channels.newOutputStream(fileChannel));
+    if (compressionLevel > 0) {
+      outputStream = new LeveledGzipOutputStream(outputStream, compressionLevel);
+    }
+    writer = new BufferedWriter(new OutputStreamWriter(outputStream, Charset.defaultCharset()),
+        BUFFER_SIZE);
+    rotateTime = Instant.now().plus(rotateInterval);
+
+    for (String header : headers) {
+      encoder.field(header);
+    }
+    fileSize = encoder.writeTo(writer);
+
+    log.info("Writing to {}", file);
+  }
+
+  /**
+   * Stream leaving the file channel open when the writer is closed, so it can still be forced.
+   */
+  private static final class UnclosedOutputStream extends FilterOutputStream {
+
+    UnclosedOutputStream(OutputStream outputStream) {
+      super(outputStream);
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+      out.write(bytes, offset, length);
+    }
+
+    @Override
+    public void close() throws IOException {
+      flush();
+    }
+  }
+
+  /**
+   * Gzip stream with a configurable compression level and sync flush.
+   */
+  private static final class LeveledGzipOutputStream extends GZIPOutputStream {
+
+    LeveledGzipOutputStream(OutputStream outputStream, int level) throws IOException {
+      super(outputStream, BUFFER_SIZE, true);
+      def.setLevel(level);
+    }
+  }
+}
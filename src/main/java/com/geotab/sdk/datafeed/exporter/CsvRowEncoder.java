@@ -0,0 +1,159 @@
+package com.geotab.sdk.datafeed.exporter;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Encodes one CSV row at a time into a reusable buffer and writes it out.
+ *
+ * <p>Fields are escaped as they are appended, the same way as {@link
+ * org.apache.commons.text.StringEscapeUtils#escapeCsv(String)}: a field containing a comma, quote,
+ * CR or LF is enclosed in quotes and its quotes are doubled. No intermediate strings or arrays are
+ * created per row or field. Not thread safe; use one encoder per writer.
+ */
+final class CsvRowEncoder {
+
+  private static final int INITIAL_CAPACITY = 512;
+
+  private final StringBuilder row = new StringBuilder(INITIAL_CAPACITY);
+
+  private char[] chars = new char[INITIAL_CAPACITY];
+
+  private int fieldCount;
+
+  private int fieldStart;
+
+  private boolean quoteField;
+
+  /**
+   * Append a field.
+   *
+   * @param value The field value; null is written as an empty field.
+   * @return This encoder.
+   */
+  CsvRowEncoder field(CharSequence value) {
+    return startField().append(value, false).endField();
+  }
+
+  /**
+   * Append a numeric field; numbers never need escaping.
+   *
+   * @param value The field value; null is written as an empty field.
+   * @return This encoder.
+   */
+  CsvRowEncoder field(Number value) {
+    startField();
+    if (value instanceof Double) {
+      row.append(value.doubleValue());
+    } else if (value instanceof Float) {
+      row.append(value.floatValue());
+    } else if (value instanceof Integer || value instanceof Long || value instanceof Short) {
+      row.append(value.longValue());
+    } else if (value != null) {
+      row.append(value);
+    }
+    return endField();
+  }
+
+  /**
+   * Append a field from the {@link Object#toString()} of a value, e.g. a boolean or an enum.
+   *
+   * @param value The field value; null is written as an empty field.
+   * @return This encoder.
+   */
+  CsvRowEncoder field(Object value) {
+    return field(value != null ? value.toString() : null);
+  }
+
+  /**
+   * Append a field with its commas replaced by spaces, as done for names.
+   *
+   * @param value The field value; null is written as an empty field.
+   * @return This encoder.
+   */
+  CsvRowEncoder fieldWithoutCommas(CharSequence value) {
+    return startField().append(value, true).endField();
+  }
+
+  /**
+   * Start a field built from several parts with {@link #append(CharSequence, boolean)}.
+   *
+   * @return This encoder.
+   */
+  CsvRowEncoder startField() {
+    if (fieldCount++ > 0) {
+      row.append(',');
+    }
+    fieldStart = row.length();
+    quoteField = false;
+    return this;
+  }
+
+  /**
+   * Append a part of the current field, escaping it in place.
+   *
+   * @param value       The part; null is ignored.
+   * @param stripCommas Whether to replace commas by spaces.
+   * @return This encoder.
+   */
+  CsvRowEncoder append(CharSequence value, boolean stripCommas) {
+    if (value == null) {
+      return this;
+    }
+
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c == ',' && stripCommas) {
+        c = ' ';
+      }
+      if (c == ',' || c == '\r' || c == '\n') {
+        quoteField = true;
+      } else if (c == '"') {
+        quoteField = true;
+        row.append('"');
+      }
+      row.append(c);
+    }
+    return this;
+  }
+
+  /**
+   * End the current field, enclosing it in quotes if needed.
+   *
+   * @return This encoder.
+   */
+  CsvRowEncoder endField() {
+    if (quoteField) {
+      row.insert(fieldStart, '"').append('"');
+    }
+    return this;
+  }
+
+  /**
+   * Write the encoded row, without a line separator, and reset the encoder for the next row.
+   *
+   * @param writer The writer.
+   * @return The number of characters written.
+   */
+  int writeTo(Writer writer) throws IOException {
+    int length = row.length();
+    if (chars.length < length) {
+      chars = new char[Math.max(length, 2 * chars.length)];
+    }
+    row.getChars(0, length, chars, 0);
+    try {
+      writer.write(chars, 0, length);
+    } finally {
+      reset();
+    }
+    return length;
+  }
+
+  /**
+   * Drop the row encoded so far, e.g. when encoding a record failed half way.
+   */
+  void reset() {
+    row.setLength(0);
+    fieldCount = 0;
+  }
+}
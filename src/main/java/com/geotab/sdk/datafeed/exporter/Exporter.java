@@ -1,18 +1,78 @@
 package com.geotab.sdk.datafeed.exporter;
 
+import com.geotab.sdk.datafeed.checkpoint.CheckpointStore;
 import com.geotab.sdk.datafeed.cli.CommandLineArguments;
 import com.geotab.sdk.datafeed.loader.DataFeedResult;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.function.Function;
+import org.apache.commons.lang3.StringUtils;
 
-public interface Exporter {
+public interface Exporter extends AutoCloseable {
 
+  /**
+   * Creates the exporter of the export type; several comma separated types are exported to
+   * concurrently by a {@link CompositeExporter}.
+   */
   Function<CommandLineArguments, Exporter> FACTORY = commandLineArguments -> {
-    if ("csv".equalsIgnoreCase(commandLineArguments.getExportType())) {
-      return new CsvExporter(commandLineArguments.getOutputPath());
+    String[] exportTypes = StringUtils.split(commandLineArguments.getExportType(), ", ");
+    if (exportTypes == null || exportTypes.length < 2) {
+      return create(commandLineArguments.getExportType(), commandLineArguments);
     }
 
-    return new ConsoleExporter();
+    Map<String, Exporter> exporters = new LinkedHashMap<>();
+    try {
+      for (String exportType : exportTypes) {
+        exporters.put(exportType, create(exportType, commandLineArguments));
+      }
+      return new CompositeExporter(exporters, CheckpointStore.FACTORY.apply(commandLineArguments),
+          Math.max(1, commandLineArguments.getExportQueueSize()));
+    } catch (RuntimeException exception) {
+      // stop the threads of the exporters created so far
+      for (Exporter exporter : exporters.values()) {
+        try {
+          exporter.close();
+        } catch (IOException closeException) {
+          exception.addSuppressed(closeException);
+        }
+      }
+      throw exception;
+    }
   };
 
+  /**
+   * Create the exporter of one export type.
+   *
+   * @param exportType           The export type: console, csv, columnar or jdbc.
+   * @param commandLineArguments The exporter settings.
+   * @return The exporter; a {@link ConsoleExporter} for unknown types.
+   */
+  static Exporter create(String exportType, CommandLineArguments commandLineArguments) {
+    if ("csv".equalsIgnoreCase(exportType)) {
+      return new CsvExporter(commandLineArguments.getOutputPath(),
+          commandLineArguments.getRotateSize(), commandLineArguments.getRotateInterval(),
+          commandLineArguments.getFlushInterval(), commandLineArguments.getCompressionLevel());
+    }
+
+    if ("columnar".equalsIgnoreCase(exportType)) {
+      return new ColumnarExporter(commandLineArguments.getOutputPath(),
+          commandLineArguments.getRotateSize(), commandLineArguments.getRotateInterval());
+    }
+
+    if ("jdbc".equalsIgnoreCase(exportType)) {
+      return new JdbcExporter(commandLineArguments.getJdbcUrl());
+    }
+
+    return new ConsoleExporter();
+  }
+
   void export(DataFeedResult dataFeedResult) throws Exception;
+
+  /**
+   * Release the resources held across exports, e.g. open files.
+   */
+  @Override
+  default void close() throws IOException {
+  }
 }
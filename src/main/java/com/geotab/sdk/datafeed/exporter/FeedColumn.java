@@ -0,0 +1,74 @@
+package com.geotab.sdk.datafeed.exporter;
+
+import java.time.LocalDateTime;
+import java.util.function.Function;
+
+/**
+ * A typed column of an exported data type: its name, type and how to get its value from a record.
+ */
+final class FeedColumn<T> {
+
+  /**
+   * The type of a column value.
+   */
+  enum Type {
+    /**
+     * A {@link LocalDateTime} in UTC.
+     */
+    TIMESTAMP,
+    FLOAT64,
+    INT32,
+    BOOLEAN,
+    STRING
+  }
+
+  private final String name;
+
+  private final Type type;
+
+  private final Function<T, ?> value;
+
+  private FeedColumn(String name, Type type, Function<T, ?> value) {
+    this.name = name;
+    this.type = type;
+    this.value = value;
+  }
+
+  static <T> FeedColumn<T> timestamp(String name, Function<T, LocalDateTime> value) {
+    return new FeedColumn<>(name, Type.TIMESTAMP, value);
+  }
+
+  static <T> FeedColumn<T> float64(String name, Function<T, ? extends Number> value) {
+    return new FeedColumn<>(name, Type.FLOAT64, value);
+  }
+
+  static <T> FeedColumn<T> int32(String name, Function<T, ? extends Number> value) {
+    return new FeedColumn<>(name, Type.INT32, value);
+  }
+
+  static <T> FeedColumn<T> bool(String name, Function<T, Boolean> value) {
+    return new FeedColumn<>(name, Type.BOOLEAN, value);
+  }
+
+  static <T> FeedColumn<T> string(String name, Function<T, ?> value) {
+    return new FeedColumn<>(name, Type.STRING, value);
+  }
+
+  String getName() {
+    return name;
+  }
+
+  Type getType() {
+    return type;
+  }
+
+  /**
+   * Get the value of this column for a record.
+   *
+   * @param record The record.
+   * @return The value; null when the record has none.
+   */
+  Object valueOf(T record) {
+    return value.apply(record);
+  }
+}
@@ -0,0 +1,143 @@
+package com.geotab.sdk.datafeed.exporter;
+
+import static com.geotab.sdk.datafeed.exporter.FeedColumn.bool;
+import static com.geotab.sdk.datafeed.exporter.FeedColumn.float64;
+import static com.geotab.sdk.datafeed.exporter.FeedColumn.int32;
+import static com.geotab.sdk.datafeed.exporter.FeedColumn.string;
+import static com.geotab.sdk.datafeed.exporter.FeedColumn.timestamp;
+
+import com.geotab.model.entity.NameEntity;
+import com.geotab.model.entity.device.Device;
+import com.geotab.model.entity.device.GoDevice;
+import com.geotab.model.entity.diagnostic.DataDiagnostic;
+import com.geotab.model.entity.exceptionevent.ExceptionEvent;
+import com.geotab.model.entity.failuremode.NoFailureMode;
+import com.geotab.model.entity.faultdata.FaultData;
+import com.geotab.model.entity.logrecord.LogRecord;
+import com.geotab.model.entity.statusdata.StatusData;
+import com.geotab.model.entity.trip.Trip;
+import com.geotab.model.entity.user.Driver;
+import com.geotab.model.entity.user.Key;
+import com.geotab.model.entity.user.User;
+import com.geotab.util.CollectionUtil;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * The typed columns of the exported data types, shared by the exporters which keep the data typed
+ * instead of formatting it as text. They carry the fields of the CSV output; the names avoid SQL
+ * keywords, so they can be used as database columns as they are.
+ */
+final class FeedColumns {
+
+  static final List<FeedColumn<LogRecord>> GPS_DATA = Arrays.asList(
+      deviceName(LogRecord::getDevice),
+      deviceSerialNumber(LogRecord::getDevice),
+      vin(LogRecord::getDevice),
+      timestamp("date_time", LogRecord::getDateTime),
+      float64("longitude", LogRecord::getLongitude),
+      float64("latitude", LogRecord::getLatitude),
+      float64("speed", LogRecord::getSpeed)
+  );
+
+  static final List<FeedColumn<StatusData>> STATUS_DATA = Arrays.asList(
+      deviceName(StatusData::getDevice),
+      deviceSerialNumber(StatusData::getDevice),
+      vin(StatusData::getDevice),
+      timestamp("date_time", StatusData::getDateTime),
+      string("diagnostic_name", data -> name(data.getDiagnostic())),
+      int32("diagnostic_code", data -> data.getDiagnostic().getCode()),
+      string("source_name", data -> name(data.getDiagnostic().getSource())),
+      float64("data_value", StatusData::getData),
+      string("units", data -> data.getDiagnostic() instanceof DataDiagnostic
+          ? name(data.getDiagnostic().getUnitOfMeasure()) : null)
+  );
+
+  static final List<FeedColumn<FaultData>> FAULT_DATA = Arrays.asList(
+      deviceName(FaultData::getDevice),
+      deviceSerialNumber(FaultData::getDevice),
+      vin(FaultData::getDevice),
+      timestamp("date_time", FaultData::getDateTime),
+      string("diagnostic_name", data -> name(data.getDiagnostic())),
+      string("failure_mode_name", data -> name(data.getFailureMode())),
+      int32("failure_mode_code", data -> data.getFailureMode().getCode()),
+      string("failure_mode_source",
+          data -> NoFailureMode.getInstance().equals(data.getFailureMode()) ? "None"
+              : name(data.getFailureMode().getSource())),
+      string("controller_name", data -> name(data.getController())),
+      int32("fault_count", FaultData::getCount),
+      string("fault_state", FaultData::getFaultState),
+      bool("malfunction_lamp", FaultData::getMalfunctionLamp),
+      bool("red_stop_lamp", FaultData::getRedStopLamp),
+      bool("amber_warning_lamp", FaultData::getAmberWarningLamp),
+      bool("protect_lamp", FaultData::getProtectWarningLamp),
+      timestamp("dismiss_date", FaultData::getDismissDateTime),
+      string("dismiss_user",
+          data -> data.getDismissUser() != null ? data.getDismissUser().getName() : null)
+  );
+
+  static final List<FeedColumn<Trip>> TRIPS = Arrays.asList(
+      deviceName(Trip::getDevice),
+      deviceSerialNumber(Trip::getDevice),
+      vin(Trip::getDevice),
+      string("driver_name", trip -> name(trip.getDriver())),
+      string("driver_keys", trip -> driverKeys(trip.getDriver())),
+      timestamp("trip_start", Trip::getStart),
+      timestamp("trip_stop", Trip::getStop),
+      float64("distance", Trip::getDistance)
+  );
+
+  static final List<FeedColumn<ExceptionEvent>> EXCEPTION_EVENTS = Arrays.asList(
+      string("exception_id", event -> event.getId() != null ? event.getId().getId() : null),
+      deviceName(ExceptionEvent::getDevice),
+      deviceSerialNumber(ExceptionEvent::getDevice),
+      vin(ExceptionEvent::getDevice),
+      string("diagnostic_name", event -> name(event.getDiagnostic())),
+      int32("diagnostic_code",
+          event -> event.getDiagnostic() != null ? event.getDiagnostic().getCode() : null),
+      string("source_name",
+          event -> event.getDiagnostic() != null ? name(event.getDiagnostic().getSource()) : null),
+      string("driver_name", event -> name(event.getDriver())),
+      string("driver_keys", event -> driverKeys(event.getDriver())),
+      string("rule_name", event -> name(event.getRule())),
+      timestamp("active_from", ExceptionEvent::getActiveFrom),
+      timestamp("active_to", ExceptionEvent::getActiveTo)
+  );
+
+  private FeedColumns() {
+  }
+
+  private static <T> FeedColumn<T> deviceName(Function<T, Device> device) {
+    return string("vehicle_name", record -> device.apply(record).getName());
+  }
+
+  private static <T> FeedColumn<T> deviceSerialNumber(Function<T, Device> device) {
+    return string("vehicle_serial_number", record -> device.apply(record).getSerialNumber());
+  }
+
+  private static <T> FeedColumn<T> vin(Function<T, Device> device) {
+    return string("vin", record -> device.apply(record) instanceof GoDevice
+        ? ((GoDevice) device.apply(record)).getVehicleIdentificationNumber() : null);
+  }
+
+  private static String driverKeys(User driver) {
+    if (!(driver instanceof Driver) || CollectionUtil.isEmpty(((Driver) driver).getKeys())) {
+      return null;
+    }
+    return ((Driver) driver).getKeys().stream()
+        .map(Key::getSerialNumber)
+        .collect(Collectors.joining("~"));
+  }
+
+  /**
+   * Get the name of an entity, or its type for system entities.
+   */
+  private static String name(NameEntity entity) {
+    if (entity == null) {
+      return null;
+    }
+    return entity.isSystemEntity() ? entity.getClass().getSimpleName() : entity.getName();
+  }
+}
@@ -0,0 +1,350 @@
+package com.geotab.sdk.datafeed.exporter;
+
+import com.geotab.sdk.datafeed.checkpoint.CheckpointStore;
+import com.geotab.sdk.datafeed.loader.DataFeedParameters;
+import com.geotab.sdk.datafeed.loader.DataFeedResult;
+import com.geotab.util.CollectionUtil;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Exports the data feed to a database through JDBC, e.g. an embedded H2 database.
+ *
+ * <p>Each data type has its own table with the typed columns of {@link FeedColumns}, created on
+ * first use. The rows are inserted with prepared multi-row inserts, sent in JDBC batches, and every
+ * {@link DataFeedResult} is written in one transaction together with the tokens it reached. This
+ * exporter is therefore also the {@link CheckpointStore} of the feed: a batch and its checkpoint
+ * are committed or rolled back together. As the worker retries a batch which was rolled back before
+ * it exports the next one, the data is loaded exactly once.
+ */
+@Slf4j
+public class JdbcExporter implements Exporter, CheckpointStore {
+
+  private static final String GPS_DATA_TABLE = "gps_data";
+
+  private static final String STATUS_DATA_TABLE = "status_data";
+
+  private static final String FAULT_DATA_TABLE = "fault_data";
+
+  private static final String TRIP_TABLE = "trips";
+
+  private static final String EXCEPTION_EVENT_TABLE = "exception_events";
+
+  private static final String CHECKPOINT_TABLE = "feed_checkpoint";
+
+  /**
+   * The rows inserted by one statement.
+   */
+  private static final int ROWS_PER_INSERT = 100;
+
+  /**
+   * The statements sent to the database in one JDBC batch.
+   */
+  private static final int INSERTS_PER_BATCH = 50;
+
+  private final Connection connection;
+
+  /**
+   * The prepared statements by SQL, reused across exports: a full and a single row insert per
+   * table, and those of the checkpoint.
+   */
+  private final Map<String, PreparedStatement> statements = new HashMap<>();
+
+  public JdbcExporter(String jdbcUrl) {
+    try {
+      this.connection = DriverManager.getConnection(jdbcUrl);
+      this.connection.setAutoCommit(false);
+      createTables();
+    } catch (SQLException e) {
+      throw new RuntimeException("Failed to initialize database " + jdbcUrl, e);
+    }
+
+    log.info("Exporting to {}", jdbcUrl);
+  }
+
+  @Override
+  public void export(DataFeedResult dataFeedResult) throws Exception {
+    try {
+      int rows = insert(GPS_DATA_TABLE, FeedColumns.GPS_DATA, dataFeedResult.getGpsRecords())
+          + insert(STATUS_DATA_TABLE, FeedColumns.STATUS_DATA, dataFeedResult.getStatusData())
+          + insert(FAULT_DATA_TABLE, FeedColumns.FAULT_DATA, dataFeedResult.getFaultData())
+          + insert(TRIP_TABLE, FeedColumns.TRIPS, dataFeedResult.getTrips())
+          + insert(EXCEPTION_EVENT_TABLE, FeedColumns.EXCEPTION_EVENTS,
+              dataFeedResult.getExceptionEvents());
+      if (dataFeedResult.getFeedParameters() != null) {
+        updateCheckpoint(dataFeedResult.getFeedParameters());
+      }
+      connection.commit();
+
+      log.info("{} rows exported", rows);
+    } catch (Exception exception) {
+      // the batch is retried; none of its rows may be left queued in a statement
+      for (PreparedStatement statement : statements.values()) {
+        try {
+          statement.clearBatch();
+        } catch (SQLException clearException) {
+          exception.addSuppressed(clearException);
+        }
+      }
+      try {
+        connection.rollback();
+      } catch (SQLException rollbackException) {
+        exception.addSuppressed(rollbackException);
+      }
+      throw exception;
+    }
+  }
+
+  /**
+   * Load the tokens committed with the last exported batch.
+   *
+   * @return The saved tokens, if any.
+   */
+  @Override
+  public Optional<DataFeedParameters> load() throws SQLException {
+    String sql = "SELECT gps_data_token, status_data_token, fault_data_token, trip_token,"
+        + " exception_token FROM " + CHECKPOINT_TABLE + " WHERE id = 1";
+    try (Statement statement = connection.createStatement();
+        ResultSet resultSet = statement.executeQuery(sql)) {
+      if (!resultSet.next()) {
+        log.info("No checkpoint found in {}", CHECKPOINT_TABLE);
+        return Optional.empty();
+      }
+
+      return Optional.of(DataFeedParameters.builder()
+          .lastGpsDataToken(resultSet.getString(1))
+          .lastStatusDataToken(resultSet.getString(2))
+          .lastFaultDataToken(resultSet.getString(3))
+          .lastTripToken(resultSet.getString(4))
+          .lastExceptionToken(resultSet.getString(5))
+          .build());
+    } finally {
+      connection.commit();
+    }
+  }
+
+  /**
+   * Save the tokens in a transaction of their own. {@link #export(DataFeedResult)} already saves
+   * them with the data, so this is only needed to move the checkpoint without exporting.
+   *
+   * @param dataFeedParameters The tokens to save.
+   */
+  @Override
+  public void save(DataFeedParameters dataFeedParameters) throws SQLException {
+    try {
+      updateCheckpoint(dataFeedParameters);
+      connection.commit();
+    } catch (SQLException exception) {
+      connection.rollback();
+      throw exception;
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    SQLException closeException = null;
+    for (PreparedStatement statement : statements.values()) {
+      try {
+        statement.close();
+      } catch (SQLException e) {
+        closeException = e;
+      }
+    }
+    try {
+      connection.close();
+    } catch (SQLException e) {
+      closeException = e;
+    }
+
+    if (closeException != null) {
+      throw new IOException("Can not close the database connection", closeException);
+    }
+  }
+
+  private <T> int insert(String table, List<FeedColumn<T>> columns, List<T> data)
+      throws SQLException {
+    if (CollectionUtil.isEmpty(data)) {
+      return 0;
+    }
+
+    int fullInserts = data.size() / ROWS_PER_INSERT;
+    if (fullInserts > 0) {
+      PreparedStatement statement = prepareInsert(table, columns, ROWS_PER_INSERT);
+      for (int insert = 0; insert < fullInserts; insert++) {
+        bindRows(statement, columns, data, insert * ROWS_PER_INSERT, ROWS_PER_INSERT);
+        statement.addBatch();
+        if ((insert + 1) % INSERTS_PER_BATCH == 0) {
+          statement.executeBatch();
+        }
+      }
+      statement.executeBatch();
+    }
+
+    if (data.size() > fullInserts * ROWS_PER_INSERT) {
+      // the remaining rows are batched one per insert, so there is one remainder statement per
+      // table instead of one per remainder size
+      PreparedStatement statement = prepareInsert(table, columns, 1);
+      for (int row = fullInserts * ROWS_PER_INSERT; row < data.size(); row++) {
+        bindRows(statement, columns, data, row, 1);
+        statement.addBatch();
+      }
+      statement.executeBatch();
+    }
+
+    return data.size();
+  }
+
+  private PreparedStatement prepareInsert(String table, List<? extends FeedColumn<?>> columns,
+      int rows) throws SQLException {
+    String row = columns.stream()
+        .map(column -> "?")
+        .collect(Collectors.joining(", ", "(", ")"));
+    String sql = "INSERT INTO " + table + " ("
+        + columns.stream().map(column -> column.getName()).collect(Collectors.joining(", "))
+        + ") VALUES " + String.join(", ", Collections.nCopies(rows, row));
+    return prepare(sql);
+  }
+
+  private PreparedStatement prepare(String sql) throws SQLException {
+    PreparedStatement statement = statements.get(sql);
+    if (statement == null) {
+      statement = connection.prepareStatement(sql);
+      statements.put(sql, statement);
+    }
+    return statement;
+  }
+
+  private static <T> void bindRows(PreparedStatement statement, List<FeedColumn<T>> columns,
+      List<T> data, int fromRow, int rows) throws SQLException {
+    int parameter = 1;
+    for (int row = fromRow; row < fromRow + rows; row++) {
+      T record = data.get(row);
+      for (FeedColumn<T> column : columns) {
+        bind(statement, parameter++, column.getType(), column.valueOf(record));
+      }
+    }
+  }
+
+  private static void bind(PreparedStatement statement, int parameter, FeedColumn.Type type,
+      Object value) throws SQLException {
+    switch (type) {
+      case TIMESTAMP:
+        if (value == null) {
+          statement.setNull(parameter, Types.TIMESTAMP);
+        } else {
+          statement.setTimestamp(parameter, Timestamp.valueOf((LocalDateTime) value));
+        }
+        break;
+      case FLOAT64:
+        if (value == null) {
+          statement.setNull(parameter, Types.DOUBLE);
+        } else {
+          statement.setDouble(parameter, ((Number) value).doubleValue());
+        }
+        break;
+      case INT32:
+        if (value == null) {
+          statement.setNull(parameter, Types.INTEGER);
+        } else {
+          statement.setInt(parameter, ((Number) value).intValue());
+        }
+        break;
+      case BOOLEAN:
+        if (value == null) {
+          statement.setNull(parameter, Types.BOOLEAN);
+        } else {
+          statement.setBoolean(parameter, (Boolean) value);
+        }
+        break;
+      default:
+        statement.setString(parameter, value != null ? value.toString() : null);
+    }
+  }
+
+  private void updateCheckpoint(DataFeedParameters dataFeedParameters) throws SQLException {
+    PreparedStatement update = prepare("UPDATE " + CHECKPOINT_TABLE
+        + " SET gps_data_token = ?, status_data_token = ?, fault_data_token = ?, trip_token = ?,"
+        + " exception_token = ? WHERE id = 1");
+    bindCheckpoint(update, dataFeedParameters);
+    if (update.executeUpdate() == 0) {
+      PreparedStatement insert = prepare("INSERT INTO " + CHECKPOINT_TABLE
+          + " (gps_data_token, status_data_token, fault_data_token, trip_token, exception_token,"
+          + " id) VALUES (?, ?, ?, ?, ?, 1)");
+      bindCheckpoint(insert, dataFeedParameters);
+      insert.executeUpdate();
+    }
+  }
+
+  private static void bindCheckpoint(PreparedStatement statement,
+      DataFeedParameters dataFeedParameters) throws SQLException {
+    statement.setString(1, dataFeedParameters.getLastGpsDataToken());
+    statement.setString(2, dataFeedParameters.getLastStatusDataToken());
+    statement.setString(3, dataFeedParameters.getLastFaultDataToken());
+    statement.setString(4, dataFeedParameters.getLastTripToken());
+    statement.setString(5, dataFeedParameters.getLastExceptionToken());
+  }
+
+  private void createTables() throws SQLException {
+    createTable(GPS_DATA_TABLE, columnDefinitions(FeedColumns.GPS_DATA));
+    createTable(STATUS_DATA_TABLE, columnDefinitions(FeedColumns.STATUS_DATA));
+    createTable(FAULT_DATA_TABLE, columnDefinitions(FeedColumns.FAULT_DATA));
+    createTable(TRIP_TABLE, columnDefinitions(FeedColumns.TRIPS));
+    createTable(EXCEPTION_EVENT_TABLE, columnDefinitions(FeedColumns.EXCEPTION_EVENTS));
+    createTable(CHECKPOINT_TABLE, "id INTEGER PRIMARY KEY, gps_data_token VARCHAR(64),"
+        + " status_data_token VARCHAR(64), fault_data_token VARCHAR(64), trip_token VARCHAR(64),"
+        + " exception_token VARCHAR(64)");
+    connection.commit();
+  }
+
+  private void createTable(String table, String columnDefinitions) throws SQLException {
+    DatabaseMetaData metaData = connection.getMetaData();
+    String tableName = metaData.storesUpperCaseIdentifiers() ? table.toUpperCase() : table;
+    try (ResultSet tables = metaData.getTables(null, null, tableName, null)) {
+      if (tables.next()) {
+        return;
+      }
+    }
+
+    try (Statement statement = connection.createStatement()) {
+      statement.execute("CREATE TABLE " + table + " (" + columnDefinitions + ")");
+    }
+    log.info("Created table {}", table);
+  }
+
+  private static String columnDefinitions(List<? extends FeedColumn<?>> columns) {
+    return columns.stream()
+        .map(column -> column.getName() + " " + sqlType(column.getType()))
+        .collect(Collectors.joining(", "));
+  }
+
+  private static String sqlType(FeedColumn.Type type) {
+    switch (type) {
+      case TIMESTAMP:
+        return "TIMESTAMP";
+      case FLOAT64:
+        return "DOUBLE PRECISION";
+      case INT32:
+        return "INTEGER";
+      case BOOLEAN:
+        return "BOOLEAN";
+      default:
+        return "VARCHAR(1024)";
+    }
+  }
+}
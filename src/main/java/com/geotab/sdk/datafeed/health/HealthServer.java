@@ -0,0 +1,277 @@
+package com.geotab.sdk.datafeed.health;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.geotab.sdk.datafeed.metrics.CacheSummary;
+import com.geotab.sdk.datafeed.metrics.DataFeedMetrics;
+import com.geotab.sdk.datafeed.metrics.LatencyHistogram;
+import com.geotab.sdk.datafeed.worker.DataFeedWorker;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Embedded HTTP endpoint to probe a running data feed, e.g. by a supervisor or Prometheus.
+ *
+ * <ul>
+ *   <li>{@code /health/live}: 200 while the loading loop goes round, 503 once it stopped or hung
+ *   for {@link #STALLED_MILLIS}.</li>
+ *   <li>{@code /health/ready}: 200 once the entity caches are warm and the feed data is populated,
+ *   503 before.</li>
+ *   <li>{@code /status}: JSON with the loaded and exported tokens, the lag and records of each feed
+ *   type and the batch counts.</li>
+ *   <li>{@code /metrics}: the {@link DataFeedMetrics} in the Prometheus text format.</li>
+ * </ul>
+ *
+ * <p>The requests are served by a thread of its own and only read counters and snapshots, so a
+ * scrape never blocks loading or exporting, and a hung feed still answers its probes.
+ */
+@Slf4j
+public class HealthServer implements AutoCloseable {
+
+  /**
+   * How long the loading loop may not go round before the feed is not live. A single load may
+   * take this long at most when the server is slow and the rate limiter waits.
+   */
+  static final long STALLED_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+  private static final String TEXT = "text/plain; charset=utf-8";
+
+  private static final String PROMETHEUS_TEXT = "text/plain; version=0.0.4; charset=utf-8";
+
+  private static final double[] QUANTILES = {0.5, 0.9, 0.99};
+
+  private static final ObjectMapper MAPPER = new ObjectMapper()
+      .enable(SerializationFeature.INDENT_OUTPUT);
+
+  private final DataFeedWorker worker;
+
+  private final DataFeedMetrics metrics;
+
+  private final HttpServer server;
+
+  private final ExecutorService executor;
+
+  /**
+   * Create the endpoint and start serving.
+   *
+   * @param port   The port to listen on, on all interfaces; 0 for any free port.
+   * @param worker The worker of the feed.
+   */
+  public HealthServer(int port, DataFeedWorker worker) throws IOException {
+    this.worker = worker;
+    this.metrics = worker.getMetrics();
+    this.executor = Executors.newSingleThreadExecutor(
+        new ThreadFactoryBuilder().setNameFormat("data-feed-health").setDaemon(true).build());
+    this.server = HttpServer.create(new InetSocketAddress(port), 0);
+    server.setExecutor(executor);
+    server.createContext("/health/live", handler(this::live));
+    server.createContext("/health/ready", handler(this::ready));
+    server.createContext("/status", handler(this::status));
+    server.createContext("/metrics", handler(this::prometheus));
+    server.start();
+
+    log.info("Health endpoint listening on port {}", getPort());
+  }
+
+  public int getPort() {
+    return server.getAddress().getPort();
+  }
+
+  @Override
+  public void close() {
+    server.stop(0);
+    executor.shutdownNow();
+  }
+
+  private boolean isLive() {
+    return worker.isProcessing() && worker.getMillisSinceLastCycle() < STALLED_MILLIS;
+  }
+
+  private Response live() {
+    return isLive() ? Response.ok(TEXT, "live")
+        : Response.unavailable("not live; last cycle " + worker.getMillisSinceLastCycle()
+            + " ms ago");
+  }
+
+  private Response ready() {
+    return isLive() && worker.isCachesWarmedUp() ? Response.ok(TEXT, "ready")
+        : Response.unavailable("not ready");
+  }
+
+  private Response status() throws IOException {
+    Map<String, Object> status = new LinkedHashMap<>();
+    status.put("live", isLive());
+    status.put("ready", isLive() && worker.isCachesWarmedUp());
+    status.put("millisSinceLastCycle", worker.getMillisSinceLastCycle());
+    status.put("loadedBatches", worker.getLoadedBatches());
+    status.put("exportedBatches", worker.getExportedBatches());
+    status.put("queueDepth", worker.getQueueDepth());
+    status.put("loadedTokens", worker.getLoadedParameters());
+    status.put("exportedTokens", worker.getExportedParameters());
+    status.put("lagMillis", metrics.getFeedLagMillis());
+    status.put("records", metrics.getFeedRecords());
+    status.put("exportedRecords", metrics.getExportedRecords());
+    return Response.ok("application/json; charset=utf-8", MAPPER.writeValueAsString(status));
+  }
+
+  private Response prometheus() {
+    StringBuilder text = new StringBuilder(4_096);
+
+    gauge(text, "datafeed_live", "Whether the loading loop goes round.");
+    text.append("datafeed_live ").append(isLive() ? 1 : 0).append('\n');
+    gauge(text, "datafeed_ready", "Whether the entity caches are warm.");
+    text.append("datafeed_ready ").append(worker.isCachesWarmedUp() ? 1 : 0).append('\n');
+    counter(text, "datafeed_loaded_batches_total", "The batches loaded.");
+    text.append("datafeed_loaded_batches_total ").append(worker.getLoadedBatches()).append('\n');
+    counter(text, "datafeed_exported_batches_total", "The batches exported.");
+    text.append("datafeed_exported_batches_total ").append(worker.getExportedBatches())
+        .append('\n');
+    gauge(text, "datafeed_export_queue_depth", "The batches waiting to be exported.");
+    text.append("datafeed_export_queue_depth ").append(worker.getQueueDepth()).append('\n');
+
+    counter(text, "datafeed_records_total", "The records loaded by feed type.");
+    metrics.getFeedRecords().forEach((type, records) ->
+        sample(text, "datafeed_records_total", "type", type, records));
+    counter(text, "datafeed_exported_records_total", "The records exported.");
+    text.append("datafeed_exported_records_total ").append(metrics.getExportedRecords())
+        .append('\n');
+    gauge(text, "datafeed_lag_seconds",
+        "The time between now and the newest record loaded by feed type.");
+    metrics.getFeedLagMillis().forEach((type, lagMillis) ->
+        sample(text, "datafeed_lag_seconds", "type", type, lagMillis / 1_000d));
+
+    summary(text, "datafeed_getfeed_duration_seconds", "The GetFeed call latency by feed type.",
+        "type", metrics.getFeedLatency());
+    summary(text, "datafeed_export_duration_seconds", "The export latency by exporter.",
+        "exporter", metrics.getExportLatency());
+
+    Map<String, CacheSummary> caches = metrics.getCaches();
+    counter(text, "datafeed_cache_lookups_total", "The entity cache lookups by result.");
+    caches.forEach((cache, summary) -> {
+      cacheSample(text, "datafeed_cache_lookups_total", cache, "snapshot_hit",
+          summary.getSnapshotHits());
+      cacheSample(text, "datafeed_cache_lookups_total", cache, "hit", summary.getHits());
+      cacheSample(text, "datafeed_cache_lookups_total", cache, "miss", summary.getMisses());
+    });
+    counter(text, "datafeed_cache_load_failures_total", "The entity cache loads which failed.");
+    caches.forEach((cache, summary) -> sample(text, "datafeed_cache_load_failures_total",
+        "cache", cache, summary.getLoadFailures()));
+    counter(text, "datafeed_cache_evictions_total", "The entity cache evictions.");
+    caches.forEach((cache, summary) -> sample(text, "datafeed_cache_evictions_total",
+        "cache", cache, summary.getEvictions()));
+
+    return Response.ok(PROMETHEUS_TEXT, text.toString());
+  }
+
+  private static void summary(StringBuilder text, String name, String help, String label,
+      Map<String, LatencyHistogram.Snapshot> latencies) {
+    text.append("# HELP ").append(name).append(' ').append(help).append('\n');
+    text.append("# TYPE ").append(name).append(" summary\n");
+    latencies.forEach((value, latency) -> {
+      for (double quantile : QUANTILES) {
+        text.append(name).append('{').append(label).append("=\"").append(value)
+            .append("\",quantile=\"").append(quantile).append("\"} ")
+            .append(format(latency.percentileMillis(quantile * 100) / 1_000)).append('\n');
+      }
+      sample(text, name + "_sum", label, value, latency.getTotalMillis() / 1_000);
+      sample(text, name + "_count", label, value, latency.getCount());
+    });
+  }
+
+  private static void gauge(StringBuilder text, String name, String help) {
+    text.append("# HELP ").append(name).append(' ').append(help).append('\n');
+    text.append("# TYPE ").append(name).append(" gauge\n");
+  }
+
+  private static void counter(StringBuilder text, String name, String help) {
+    text.append("# HELP ").append(name).append(' ').append(help).append('\n');
+    text.append("# TYPE ").append(name).append(" counter\n");
+  }
+
+  private static void sample(StringBuilder text, String name, String label, String value,
+      long sample) {
+    text.append(name).append('{').append(label).append("=\"").append(value).append("\"} ")
+        .append(sample).append('\n');
+  }
+
+  private static void sample(StringBuilder text, String name, String label, String value,
+      double sample) {
+    text.append(name).append('{').append(label).append("=\"").append(value).append("\"} ")
+        .append(format(sample)).append('\n');
+  }
+
+  private static void cacheSample(StringBuilder text, String name, String cache, String result,
+      long sample) {
+    text.append(name).append("{cache=\"").append(cache).append("\",result=\"").append(result)
+        .append("\"} ").append(sample).append('\n');
+  }
+
+  private static String format(double value) {
+    return String.format(Locale.ROOT, "%.6f", value);
+  }
+
+  private static HttpHandler handler(ResponseSupplier supplier) {
+    return exchange -> {
+      Response response;
+      try {
+        response = supplier.get();
+      } catch (Exception exception) {
+        log.warn("Can not answer {}", exchange.getRequestURI(), exception);
+        response = new Response(500, TEXT, String.valueOf(exception.getMessage()));
+      }
+      respond(exchange, response);
+    };
+  }
+
+  private static void respond(HttpExchange exchange, Response response) throws IOException {
+    byte[] body = response.body.getBytes(StandardCharsets.UTF_8);
+    exchange.getResponseHeaders().set("Content-Type", response.contentType);
+    exchange.getResponseHeaders().set("Cache-Control", "no-store");
+    exchange.sendResponseHeaders(response.status, body.length);
+    try (OutputStream outputStream = exchange.getResponseBody()) {
+      outputStream.write(body);
+    }
+  }
+
+  @FunctionalInterface
+  private interface ResponseSupplier {
+
+    Response get() throws Exception;
+  }
+
+  private static final class Response {
+
+    private final int status;
+
+    private final String contentType;
+
+    private final String body;
+
+    private Response(int status, String contentType, String body) {
+      this.status = status;
+      this.contentType = contentType;
+      this.body = body;
+    }
+
+    private static Response ok(String contentType, String body) {
+      return new Response(200, contentType, body);
+    }
+
+    private static Response unavailable(String body) {
+      return new Response(503, TEXT, body);
+    }
+  }
+}
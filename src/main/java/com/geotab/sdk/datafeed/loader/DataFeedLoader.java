@@ -6,29 +6,57 @@ import com.geotab.http.exception.OverLimitException;
 import com.geotab.http.invoker.ServerInvoker;
 import com.geotab.http.request.AuthenticatedRequest;
 import com.geotab.http.request.param.GetFeedParameters;
+import com.geotab.http.response.GetFeedExceptionEventResponse;
 import com.geotab.http.response.GetFeedFaultDataResponse;
 import com.geotab.http.response.GetFeedLogRecordResponse;
 import com.geotab.http.response.GetFeedStatusDataResponse;
 import com.geotab.http.response.GetFeedTripResponse;
 import com.geotab.model.FeedResult;
 import com.geotab.model.entity.Entity;
+import com.geotab.model.entity.exceptionevent.ExceptionEvent;
 import com.geotab.model.entity.faultdata.FaultData;
 import com.geotab.model.entity.logrecord.LogRecord;
 import com.geotab.model.entity.statusdata.StatusData;
 import com.geotab.model.entity.trip.Trip;
 import com.geotab.model.login.Credentials;
+import com.geotab.sdk.common.RateLimitedGeotabApi;
 import com.geotab.sdk.datafeed.cache.ControllerCache;
 import com.geotab.sdk.datafeed.cache.DeviceCache;
 import com.geotab.sdk.datafeed.cache.DiagnosticCache;
 import com.geotab.sdk.datafeed.cache.DriverCache;
 import com.geotab.sdk.datafeed.cache.FailureModeCache;
+import com.geotab.sdk.datafeed.cache.GeotabEntityCache;
+import com.geotab.sdk.datafeed.cache.RuleCache;
 import com.geotab.sdk.datafeed.cache.UnitOfMeasureCache;
+import com.geotab.sdk.datafeed.cli.CommandLineArguments;
+import com.geotab.sdk.datafeed.metrics.DataFeedMetrics;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.hc.core5.http.HttpException;
 
@@ -43,8 +71,27 @@ public class DataFeedLoader {
       .put(StatusData.class, GetFeedStatusDataResponse.class)
       .put(FaultData.class, GetFeedFaultDataResponse.class)
       .put(Trip.class, GetFeedTripResponse.class)
+      .put(ExceptionEvent.class, GetFeedExceptionEventResponse.class)
       .build();
 
+  /**
+   * How long a parallel load waits for the in-flight feeds; slower feeds are carried over to the
+   * next cycle.
+   */
+  private static final long PARALLEL_FEED_WAIT_SECONDS = 30;
+
+  /**
+   * The records GetFeed returns at most per call unless a results limit is given; a page this large
+   * means the feed is behind.
+   */
+  public static final int DEFAULT_RESULTS_LIMIT = 50_000;
+
+  private static final Duration DB_UNAVAILABLE_DELAY = Duration.ofMinutes(5);
+
+  private static final Duration OVER_LIMIT_DELAY = Duration.ofMinutes(1);
+
+  private static final Duration ERROR_DELAY = Duration.ofSeconds(5);
+
   private GeotabApi geotabApi;
 
   private DataFeedParameters dataFeedParameters;
@@ -61,19 +108,118 @@ public class DataFeedLoader {
 
   private DriverCache driverCache;
 
+  private RuleCache ruleCache;
+
   private LocalDateTime cacheReloadTime;
 
+  private LocalDateTime cacheStatsTime;
+
+  private LocalDateTime cacheRefreshTime;
+
+  /**
+   * Whether the GetFeed calls of all types are issued concurrently. Otherwise the types are loaded
+   * one after another, while the exception events load next to them.
+   */
+  private boolean parallelFeed;
+
+  /**
+   * The records requested per GetFeed call; null for the server default.
+   */
+  private Integer resultsLimit;
+
+  /**
+   * Whether a feed type which is behind is drained page after page before the other types load.
+   */
+  private boolean catchUp;
+
+  /**
+   * Executor issuing the concurrent GetFeed calls; a thread per type at most, as each type keeps at
+   * most one call in flight. Null unless the feeds are loaded in parallel.
+   */
+  private ExecutorService feedExecutor;
+
+  /**
+   * The in-flight feed loads by entity type.
+   */
+  private final Map<Class<?>, Future<?>> pendingFeeds = new HashMap<>();
+
+  /**
+   * When the GetFeed call of each entity type is due.
+   */
+  private final Map<Class<?>, FeedPollSchedule> pollSchedules = new HashMap<>();
+
+  /**
+   * Executor reloading and refreshing the caches in the background.
+   */
+  private final ExecutorService cacheExecutor = Executors.newFixedThreadPool(4,
+      new ThreadFactoryBuilder().setNameFormat("cache-reload-%d").setDaemon(true).build());
+
+  /**
+   * Completes once the caches are loaded for the first time; the feed data is only populated after
+   * that, while the first GetFeed calls may already run.
+   */
+  private CompletableFuture<Void> cacheWarmUp;
+
+  /**
+   * The folder the caches are saved to and restored from; null when they are not persisted.
+   */
+  private Path cacheSnapshotDir;
+
+  private final DataFeedMetrics metrics = new DataFeedMetrics(FEED_RESULT_TYPE.keySet().stream()
+      .map(type -> type.getSimpleName())
+      .collect(Collectors.toList()));
+
+  public DataFeedLoader(CommandLineArguments commandLineArguments) {
+    this(commandLineArguments.getServer(), commandLineArguments.getCredentials(),
+        commandLineArguments.getDataFeedParameters(), commandLineArguments::getCacheSpec,
+        commandLineArguments.getApiQuotas());
+    this.parallelFeed = commandLineArguments.isParallelFeed();
+    if (parallelFeed) {
+      this.feedExecutor = Executors.newCachedThreadPool(
+          new ThreadFactoryBuilder().setNameFormat("data-feed-%d").setDaemon(true).build());
+    }
+    this.resultsLimit = commandLineArguments.getResultsLimit();
+    this.catchUp = commandLineArguments.isCatchUp();
+    createPollSchedules();
+    if (commandLineArguments.getCacheSnapshotDir() != null) {
+      this.cacheSnapshotDir = Paths.get(commandLineArguments.getCacheSnapshotDir());
+      restoreCacheSnapshots();
+    }
+  }
+
   public DataFeedLoader(String serverUrl, Credentials credentials,
       DataFeedParameters feedParameters) {
-    this.geotabApi = new GeotabApi(credentials, serverUrl, ServerInvoker.DEFAULT_TIMEOUT);
+    this(serverUrl, credentials, feedParameters,
+        entityType -> GeotabEntityCache.DEFAULT_CACHE_SPEC, RateLimitedGeotabApi.DEFAULT_QUOTAS);
+    createPollSchedules();
+  }
+
+  private DataFeedLoader(String serverUrl, Credentials credentials,
+      DataFeedParameters feedParameters, Function<String, String> cacheSpecs,
+      Map<String, Integer> apiQuotas) {
+    // one rate limited api shared by the feeds and the caches, so they share the quotas
+    this.geotabApi = new RateLimitedGeotabApi(credentials, serverUrl,
+        ServerInvoker.DEFAULT_TIMEOUT, apiQuotas);
     this.dataFeedParameters = feedParameters;
     this.cacheReloadTime = LocalDateTime.now().minusMinutes(1);
-    this.controllerCache = new ControllerCache(geotabApi);
-    this.unitOfMeasureCache = new UnitOfMeasureCache(geotabApi);
-    this.diagnosticCache = new DiagnosticCache(geotabApi, controllerCache, unitOfMeasureCache);
-    this.failureModeCache = new FailureModeCache(geotabApi);
-    this.deviceCache = new DeviceCache(geotabApi);
-    this.driverCache = new DriverCache(geotabApi);
+    this.cacheStatsTime = LocalDateTime.now().plusMinutes(10);
+    this.cacheRefreshTime = LocalDateTime.now().minusMinutes(1);
+    this.controllerCache = new ControllerCache(geotabApi, cacheSpecs.apply("Controller"));
+    this.unitOfMeasureCache = new UnitOfMeasureCache(geotabApi,
+        cacheSpecs.apply("UnitOfMeasure"));
+    this.diagnosticCache = new DiagnosticCache(geotabApi, controllerCache, unitOfMeasureCache,
+        cacheSpecs.apply("Diagnostic"));
+    this.failureModeCache = new FailureModeCache(geotabApi, cacheSpecs.apply("FailureMode"));
+    this.deviceCache = new DeviceCache(geotabApi, cacheSpecs.apply("Device"));
+    this.driverCache = new DriverCache(geotabApi, cacheSpecs.apply("Driver"));
+    this.ruleCache = new RuleCache(geotabApi, cacheSpecs.apply("Rule"));
+    entityCaches().forEach(metrics::registerCache);
+  }
+
+  private void createPollSchedules() {
+    int fullPageSize = resultsLimit != null ? resultsLimit : DEFAULT_RESULTS_LIMIT;
+    FEED_RESULT_TYPE.keySet().forEach(type -> pollSchedules.put(type,
+        new FeedPollSchedule(type.getSimpleName(), fullPageSize)));
   }
 
   public DataFeedResult load() {
@@ -81,150 +227,583 @@ public class DataFeedLoader {
 
     try {
       reloadCaches();
+      logCacheStats();
+
+      Optional<Class<?>> catchUpType = catchUpType();
+      if (catchUpType.isPresent()) {
+        return loadCatchUp(catchUpType.get());
+      }
+
+      if (parallelFeed) {
+        return loadParallel();
+      }
 
-      List<LogRecord> logRecords = loadLogRecords();
-      List<StatusData> statusData = loadStatusData();
-      List<FaultData> faultData = loadFaultData();
-      List<Trip> trips = loadTrips();
-      // TODO loadExceptionEvents()
+      List<LogRecord> logRecords = loadFeed(LogRecord.class, this::loadLogRecords,
+          dataFeedParameters::setLastGpsDataToken);
+      List<StatusData> statusData = loadFeed(StatusData.class, this::loadStatusData,
+          dataFeedParameters::setLastStatusDataToken);
+      List<FaultData> faultData = loadFeed(FaultData.class, this::loadFaultData,
+          dataFeedParameters::setLastFaultDataToken);
+      List<Trip> trips = loadFeed(Trip.class, this::loadTrips,
+          dataFeedParameters::setLastTripToken);
+      List<ExceptionEvent> exceptionEvents = loadFeed(ExceptionEvent.class,
+          this::loadExceptionEvents, dataFeedParameters::setLastExceptionToken);
 
       return DataFeedResult.builder()
           .gpsRecords(logRecords)
           .statusData(statusData)
           .faultData(faultData)
           .trips(trips)
+          .exceptionEvents(exceptionEvents)
+          .feedParameters(dataFeedParameters.toBuilder().build())
           .build();
 
-    } catch (DbUnavailableException dbUnavailableException) {
-      log.error("Db unavailable - ", dbUnavailableException);
-      try {
-        Thread.sleep(5 * 60 * 1000);
-      } catch (InterruptedException e) {
-        log.warn("Can not sleep due to DbUnavailableException", e);
-      }
-    } catch (OverLimitException overLimitException) {
-      log.error("OverLimitException ({}); sleeping for 1 minute ...  ",
-          overLimitException.getMessage());
-      try {
-        Thread.sleep(60 * 1000);
-      } catch (InterruptedException e) {
-        log.warn("Can not sleep due to OverLimitException", e);
-      }
-    } catch (HttpException httpException) {
-      log.error("Http exception - ", httpException);
-      try {
-        Thread.sleep(5 * 1000);
-      } catch (InterruptedException e) {
-        log.warn("Can not sleep due to HttpException", e);
-      }
     } catch (Exception exception) {
       log.error("Can not load data feed", exception);
     }
 
+    return emptyResult().build();
+  }
+
+  private static DataFeedResult.DataFeedResultBuilder emptyResult() {
     return DataFeedResult.builder()
         .gpsRecords(new ArrayList<>())
         .statusData(new ArrayList<>())
         .faultData(new ArrayList<>())
         .trips(new ArrayList<>())
+        .exceptionEvents(new ArrayList<>());
+  }
+
+  /**
+   * Get the feed type to catch up on: the first type whose last page was full and moved its token
+   * forward, unless its next page is already in flight.
+   */
+  private Optional<Class<?>> catchUpType() {
+    if (!catchUp) {
+      return Optional.empty();
+    }
+    return FEED_RESULT_TYPE.keySet().stream()
+        .filter(type -> pollSchedules.get(type).isBehind() && !pendingFeeds.containsKey(type))
+        .findFirst()
+        .map(type -> (Class<?>) type);
+  }
+
+  /**
+   * Load the next page of a feed type which is behind, and only that, so it drains page after page
+   * without waiting for the other types. They load again once it reached the head of its feed.
+   *
+   * @param type The entity type to catch up on.
+   * @return The page, with the tokens of all types.
+   */
+  private DataFeedResult loadCatchUp(Class<?> type) {
+    log.debug("Catching up on the {} data feed", type.getSimpleName());
+
+    DataFeedResult.DataFeedResultBuilder result = emptyResult();
+    if (type == LogRecord.class) {
+      result.gpsRecords(loadFeed(LogRecord.class, this::loadLogRecords,
+          dataFeedParameters::setLastGpsDataToken));
+    } else if (type == StatusData.class) {
+      result.statusData(loadFeed(StatusData.class, this::loadStatusData,
+          dataFeedParameters::setLastStatusDataToken));
+    } else if (type == FaultData.class) {
+      result.faultData(loadFeed(FaultData.class, this::loadFaultData,
+          dataFeedParameters::setLastFaultDataToken));
+    } else if (type == Trip.class) {
+      result.trips(loadFeed(Trip.class, this::loadTrips, dataFeedParameters::setLastTripToken));
+    } else if (type == ExceptionEvent.class) {
+      result.exceptionEvents(loadFeed(ExceptionEvent.class, this::loadExceptionEvents,
+          dataFeedParameters::setLastExceptionToken));
+    }
+
+    return result
+        .feedParameters(dataFeedParameters.toBuilder().build())
         .build();
   }
 
   public void stop() {
+    if (feedExecutor != null) {
+      feedExecutor.shutdownNow();
+    }
+    saveCacheSnapshots();
+    cacheExecutor.shutdownNow();
     geotabApi.disconnect();
   }
 
+  /**
+   * Get the metrics of the feed: GetFeed latencies, records and lag by feed type and the caches.
+   *
+   * @return The metrics.
+   */
+  public DataFeedMetrics getMetrics() {
+    return metrics;
+  }
+
+  /**
+   * Get how long until the GetFeed call of some type is due, so the caller does not poll the feeds
+   * before there is anything to load.
+   *
+   * @return The wait in milliseconds; 0 when a call is due or still to be collected.
+   */
+  public long getNextPollDelayMillis() {
+    if (!pendingFeeds.isEmpty()) {
+      return 0;
+    }
+    return pollSchedules.values().stream()
+        .mapToLong(FeedPollSchedule::getDelayMillis)
+        .min()
+        .orElse(0);
+  }
+
+  /**
+   * Issue the due GetFeed calls of all types concurrently. Each type keeps at most one call in
+   * flight; a type which fails returns no data for this cycle without advancing its token, and a
+   * type which is still loading after {@link #PARALLEL_FEED_WAIT_SECONDS} is collected by a later
+   * cycle.
+   *
+   * @return The data of the feeds which completed.
+   */
+  private DataFeedResult loadParallel() throws InterruptedException {
+    submitFeed(LogRecord.class, this::loadLogRecords);
+    submitFeed(StatusData.class, this::loadStatusData);
+    submitFeed(FaultData.class, this::loadFaultData);
+    submitFeed(Trip.class, this::loadTrips);
+    submitFeed(ExceptionEvent.class, this::loadExceptionEvents);
+
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(PARALLEL_FEED_WAIT_SECONDS);
+
+    return DataFeedResult.builder()
+        .gpsRecords(collectFeed(LogRecord.class, deadline,
+            dataFeedParameters::setLastGpsDataToken))
+        .statusData(collectFeed(StatusData.class, deadline,
+            dataFeedParameters::setLastStatusDataToken))
+        .faultData(collectFeed(FaultData.class, deadline,
+            dataFeedParameters::setLastFaultDataToken))
+        .trips(collectFeed(Trip.class, deadline, dataFeedParameters::setLastTripToken))
+        .exceptionEvents(collectFeed(ExceptionEvent.class, deadline,
+            dataFeedParameters::setLastExceptionToken))
+        .feedParameters(dataFeedParameters.toBuilder().build())
+        .build();
+  }
+
+  /**
+   * Load a due feed on this thread. A type which fails returns no data without advancing its token.
+   */
+  private <T extends Entity> List<T> loadFeed(Class<T> type,
+      Callable<Optional<FeedResult<T>>> feedLoader, Consumer<String> tokenSetter) {
+    if (!pollSchedules.get(type).isDue()) {
+      return new ArrayList<>();
+    }
+
+    try {
+      return applyFeed(type, feedLoader.call(), tokenSetter);
+    } catch (Exception exception) {
+      handleLoadException(type, exception);
+    }
+
+    return new ArrayList<>();
+  }
+
+  private <T extends Entity> void submitFeed(Class<T> type,
+      Callable<Optional<FeedResult<T>>> feedLoader) {
+    if (!pendingFeeds.containsKey(type) && pollSchedules.get(type).isDue()) {
+      pendingFeeds.put(type, feedExecutor.submit(feedLoader));
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private <T extends Entity> List<T> collectFeed(Class<T> type, long deadline,
+      Consumer<String> tokenSetter) throws InterruptedException {
+    Future<Optional<FeedResult<T>>> pendingFeed =
+        (Future<Optional<FeedResult<T>>>) pendingFeeds.get(type);
+    if (pendingFeed == null) {
+      return new ArrayList<>();
+    }
+
+    try {
+      Optional<FeedResult<T>> feedResult = pendingFeed
+          .get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+      pendingFeeds.remove(type);
+      return applyFeed(type, feedResult, tokenSetter);
+    } catch (TimeoutException timeoutException) {
+      log.info("Data feed for {} is still loading; it will be collected by the next cycle",
+          type.getSimpleName());
+    } catch (ExecutionException executionException) {
+      pendingFeeds.remove(type);
+      Throwable cause = executionException.getCause();
+      handleLoadException(type, cause instanceof Exception ? (Exception) cause
+          : executionException);
+    }
+
+    return new ArrayList<>();
+  }
+
+  /**
+   * Move the feed token forward, schedule the next call of the type by the size of the page and
+   * return the loaded data. The tokens are only updated from the thread calling {@link #load()}, so
+   * a token never runs ahead of the data handed out.
+   *
+   * @param type        The entity type of the feed.
+   * @param feedResult  The loaded feed.
+   * @param tokenSetter Setter of the matching token in {@link DataFeedParameters}.
+   * @return The feed data.
+   */
+  private <T extends Entity> List<T> applyFeed(Class<T> type, Optional<FeedResult<T>> feedResult,
+      Consumer<String> tokenSetter) {
+    List<T> data = new ArrayList<>();
+    String toVersion = null;
+    if (feedResult.isPresent()) {
+      toVersion = feedResult.get().getToVersion();
+      tokenSetter.accept(toVersion);
+      data.addAll(feedResult.get().getData());
+    }
+    pollSchedules.get(type).polled(data.size(), toVersion);
+    metrics.recordRecords(type.getSimpleName(), data.size(), newestRecordTime(data));
+    return data;
+  }
+
+  /**
+   * Get the time of the newest record of a feed page: when it was logged, or when the trip or
+   * exception event ended.
+   *
+   * @return The time; null for an empty page.
+   */
+  private static Instant newestRecordTime(List<? extends Entity> data) {
+    LocalDateTime newest = null;
+    for (Entity entity : data) {
+      LocalDateTime recordTime = recordTime(entity);
+      if (recordTime != null && (newest == null || recordTime.isAfter(newest))) {
+        newest = recordTime;
+      }
+    }
+    // the Geotab dates are in UTC
+    return newest != null ? newest.toInstant(ZoneOffset.UTC) : null;
+  }
+
+  private static LocalDateTime recordTime(Entity entity) {
+    if (entity instanceof LogRecord) {
+      return ((LogRecord) entity).getDateTime();
+    }
+    if (entity instanceof StatusData) {
+      return ((StatusData) entity).getDateTime();
+    }
+    if (entity instanceof FaultData) {
+      return ((FaultData) entity).getDateTime();
+    }
+    if (entity instanceof Trip) {
+      return ((Trip) entity).getStop();
+    }
+    if (entity instanceof ExceptionEvent) {
+      return ((ExceptionEvent) entity).getActiveTo();
+    }
+    return null;
+  }
+
+  /**
+   * Back off the feed of the type; the longer when the server is unavailable or throttles.
+   */
+  private void handleLoadException(Class<?> type, Exception exception) {
+    FeedPollSchedule pollSchedule = pollSchedules.get(type);
+    if (exception instanceof DbUnavailableException) {
+      log.error("Db unavailable - ", exception);
+      pollSchedule.failed(DB_UNAVAILABLE_DELAY);
+    } else if (exception instanceof OverLimitException) {
+      log.error("OverLimitException ({}) loading {}", exception.getMessage(),
+          type.getSimpleName());
+      pollSchedule.failed(OVER_LIMIT_DELAY);
+    } else if (exception instanceof HttpException) {
+      log.error("Http exception - ", exception);
+      pollSchedule.failed(ERROR_DELAY);
+    } else {
+      log.error("Can not load {}", type.getSimpleName(), exception);
+      pollSchedule.failed(ERROR_DELAY);
+    }
+  }
+
+  private void logCacheStats() {
+    if (LocalDateTime.now().isAfter(cacheStatsTime)) {
+      controllerCache.logStats();
+      unitOfMeasureCache.logStats();
+      diagnosticCache.logStats();
+      failureModeCache.logStats();
+      deviceCache.logStats();
+      driverCache.logStats();
+      ruleCache.logStats();
+
+      cacheStatsTime = LocalDateTime.now().plusMinutes(10);
+    }
+  }
+
+  /**
+   * Whether the caches completed their first load.
+   *
+   * @return True once the data feed can be populated from warm caches.
+   */
+  public boolean isCachesWarmedUp() {
+    return cacheWarmUp != null && cacheWarmUp.isDone();
+  }
+
+  /**
+   * Start the due cache reloads and refreshes in the background. The independent caches load
+   * concurrently; the diagnostics load once the controllers and units of measure they refer to are
+   * loaded. Readers keep using the previous cache snapshots until the reloads complete.
+   */
   private void reloadCaches() {
-    if (LocalDateTime.now().isAfter(cacheReloadTime)) {
+    List<CompletableFuture<?>> reloads = new ArrayList<>();
+    boolean fullReload = LocalDateTime.now().isAfter(cacheReloadTime);
+
+    if (fullReload) {
       log.debug("Reloading caches");
 
-      controllerCache.reloadAll();
-      unitOfMeasureCache.reloadAll();
-      diagnosticCache.reloadAll();
-      failureModeCache.reloadAll();
-      deviceCache.reloadAll();
-      driverCache.reloadAll();
-      //TODO ruleCache
+      CompletableFuture<Void> controllers = runAsync(controllerCache::reloadAll);
+      CompletableFuture<Void> unitsOfMeasure = runAsync(unitOfMeasureCache::reloadAll);
+      reloads.add(CompletableFuture.allOf(controllers, unitsOfMeasure)
+          .thenRunAsync(diagnosticCache::reloadAll, cacheExecutor));
+      reloads.add(runAsync(failureModeCache::reloadAll));
+      reloads.add(runAsync(ruleCache::reloadAll));
 
       cacheReloadTime = LocalDateTime.now().plusHours(12);
     }
+
+    // change tracking caches apply the changes since their last refresh instead of reloading
+    if (LocalDateTime.now().isAfter(cacheRefreshTime)) {
+      log.debug("Refreshing caches");
+
+      reloads.add(runAsync(deviceCache::refresh));
+      reloads.add(runAsync(driverCache::refresh));
+
+      cacheRefreshTime = LocalDateTime.now().plusMinutes(5);
+    }
+
+    if (cacheWarmUp == null) {
+      long start = System.nanoTime();
+      cacheWarmUp = CompletableFuture.allOf(reloads.toArray(new CompletableFuture<?>[0]))
+          .thenRun(() -> log.info("Caches warmed up in {} ms",
+              TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)));
+    }
+
+    if (fullReload && cacheSnapshotDir != null) {
+      CompletableFuture.allOf(reloads.toArray(new CompletableFuture<?>[0]))
+          .thenRunAsync(this::saveCacheSnapshots, cacheExecutor);
+    }
+  }
+
+  private Map<String, GeotabEntityCache<?>> entityCaches() {
+    return ImmutableMap.<String, GeotabEntityCache<?>>builder()
+        .put("Controller", controllerCache)
+        .put("UnitOfMeasure", unitOfMeasureCache)
+        .put("Diagnostic", diagnosticCache)
+        .put("FailureMode", failureModeCache)
+        .put("Device", deviceCache)
+        .put("Driver", driverCache)
+        .put("Rule", ruleCache)
+        .build();
+  }
+
+  private Path cacheSnapshotFile(String entityType) {
+    return cacheSnapshotDir.resolve(entityType + ".json.gz");
+  }
+
+  /**
+   * Restore the caches from their snapshot files. When all of them are restored the feed data is
+   * populated right away: the change tracking caches catch up from their saved version in the
+   * background, and the other caches are reloaded once their oldest snapshot is 12 hours old.
+   */
+  private void restoreCacheSnapshots() {
+    boolean restored = true;
+    for (Map.Entry<String, GeotabEntityCache<?>> entry : entityCaches().entrySet()) {
+      restored &= entry.getValue().restoreSnapshot(cacheSnapshotFile(entry.getKey()));
+    }
+    if (!restored) {
+      log.info("Not all caches restored from {}; loading them from Geotab", cacheSnapshotDir);
+      return;
+    }
+
+    Optional<Instant> oldestSnapshot = entityCaches().values().stream()
+        .filter(cache -> !cache.isChangeTracking())
+        .map(GeotabEntityCache::getSnapshotTime)
+        .filter(Optional::isPresent)
+        .map(Optional::get)
+        .min(Instant::compareTo);
+    oldestSnapshot.ifPresent(snapshotTime -> cacheReloadTime = LocalDateTime
+        .ofInstant(snapshotTime, ZoneId.systemDefault()).plusHours(12));
+    cacheWarmUp = CompletableFuture.completedFuture(null);
+
+    log.info("Caches restored from {}; next full reload at {}", cacheSnapshotDir, cacheReloadTime);
   }
 
-  private List<LogRecord> loadLogRecords() throws Exception {
+  private void saveCacheSnapshots() {
+    if (cacheSnapshotDir == null) {
+      return;
+    }
+
+    entityCaches().forEach((entityType, cache) ->
+        cache.saveSnapshot(cacheSnapshotFile(entityType)));
+  }
+
+  private CompletableFuture<Void> runAsync(Runnable reload) {
+    return CompletableFuture.runAsync(reload, cacheExecutor);
+  }
+
+  /**
+   * Wait until the caches completed their first load before populating feed data from them.
+   */
+  private void awaitCacheWarmUp() throws Exception {
+    if (!cacheWarmUp.isDone()) {
+      log.debug("Waiting for the caches to warm up ...");
+    }
+    cacheWarmUp.get();
+  }
+
+  private Optional<FeedResult<LogRecord>> loadLogRecords() throws Exception {
     Optional<FeedResult<LogRecord>> logRecordFeedResult = getFeed(LogRecord.class,
         dataFeedParameters.getLastGpsDataToken());
 
-    List<LogRecord> logRecords = new ArrayList<>();
-    if (logRecordFeedResult.isPresent()) {
-      dataFeedParameters.setLastGpsDataToken(logRecordFeedResult.get().getToVersion());
-      logRecordFeedResult.get().getData()
-          .forEach(logRecord -> {
-            // Populate relevant LogRecord fields.
-            logRecord.setDevice(deviceCache.get(logRecord.getDevice().getId().getId()));
-            logRecords.add(logRecord);
-          });
-    }
+    awaitCacheWarmUp();
+    logRecordFeedResult.ifPresent(feedResult -> populateLogRecords(feedResult.getData()));
+
+    return logRecordFeedResult;
+  }
 
-    return logRecords;
+  /**
+   * Populate the entities referenced by the LogRecords from the caches.
+   *
+   * @param logRecords The LogRecords of a feed page.
+   */
+  void populateLogRecords(List<LogRecord> logRecords) {
+    deviceCache.preload(referencedIds(logRecords, LogRecord::getDevice));
+    logRecords.forEach(logRecord -> {
+      // Populate relevant LogRecord fields.
+      logRecord.setDevice(deviceCache.get(logRecord.getDevice().getId().getId()));
+    });
   }
 
-  private List<StatusData> loadStatusData() throws Exception {
+  private Optional<FeedResult<StatusData>> loadStatusData() throws Exception {
     Optional<FeedResult<StatusData>> statusDataFeedResult = getFeed(StatusData.class,
         dataFeedParameters.getLastStatusDataToken());
 
-    List<StatusData> statusData = new ArrayList<>();
-    if (statusDataFeedResult.isPresent()) {
-      dataFeedParameters.setLastStatusDataToken(statusDataFeedResult.get().getToVersion());
-      statusDataFeedResult.get().getData()
-          .forEach(data -> {
-            // Populate relevant StatusData fields.
-            data.setDevice(deviceCache.get(data.getDevice().getId().getId()));
-            data.setDiagnostic(diagnosticCache.get(data.getDiagnostic().getId().getId()));
-            data.setController(controllerCache.get(data.getController().getId().getId()));
-            statusData.add(data);
-          });
-    }
+    awaitCacheWarmUp();
+    statusDataFeedResult.ifPresent(feedResult -> populateStatusData(feedResult.getData()));
 
-    return statusData;
+    return statusDataFeedResult;
   }
 
-  private List<FaultData> loadFaultData() throws Exception {
+  /**
+   * Populate the entities referenced by the StatusData from the caches.
+   *
+   * @param statusData The StatusData of a feed page.
+   */
+  void populateStatusData(List<StatusData> statusData) {
+    deviceCache.preload(referencedIds(statusData, StatusData::getDevice));
+    diagnosticCache.preload(referencedIds(statusData, StatusData::getDiagnostic));
+    controllerCache.preload(referencedIds(statusData, StatusData::getController));
+    statusData.forEach(data -> {
+      // Populate relevant StatusData fields.
+      data.setDevice(deviceCache.get(data.getDevice().getId().getId()));
+      data.setDiagnostic(diagnosticCache.get(data.getDiagnostic().getId().getId()));
+      data.setController(controllerCache.get(data.getController().getId().getId()));
+    });
+  }
+
+  private Optional<FeedResult<FaultData>> loadFaultData() throws Exception {
     Optional<FeedResult<FaultData>> faultDataFeedResult = getFeed(FaultData.class,
         dataFeedParameters.getLastFaultDataToken());
 
-    List<FaultData> faultData = new ArrayList<>();
-    if (faultDataFeedResult.isPresent()) {
-      dataFeedParameters.setLastFaultDataToken(faultDataFeedResult.get().getToVersion());
-      faultDataFeedResult.get().getData()
-          .forEach(data -> {
-            // Populate relevant FaultData fields.
-            data.setDevice(deviceCache.get(data.getDevice().getId().getId()));
-            data.setDiagnostic(diagnosticCache.get(data.getDiagnostic().getId().getId()));
-            data.setController(controllerCache.get(data.getController().getId().getId()));
-            data.setFailureMode(failureModeCache.get(data.getFailureMode().getId().getId()));
-            faultData.add(data);
-          });
-    }
+    awaitCacheWarmUp();
+    faultDataFeedResult.ifPresent(feedResult -> populateFaultData(feedResult.getData()));
 
-    return faultData;
+    return faultDataFeedResult;
   }
 
-  private List<Trip> loadTrips() throws Exception {
+  /**
+   * Populate the entities referenced by the FaultData from the caches.
+   *
+   * @param faultData The FaultData of a feed page.
+   */
+  void populateFaultData(List<FaultData> faultData) {
+    deviceCache.preload(referencedIds(faultData, FaultData::getDevice));
+    diagnosticCache.preload(referencedIds(faultData, FaultData::getDiagnostic));
+    controllerCache.preload(referencedIds(faultData, FaultData::getController));
+    failureModeCache.preload(referencedIds(faultData, FaultData::getFailureMode));
+    faultData.forEach(data -> {
+      // Populate relevant FaultData fields.
+      data.setDevice(deviceCache.get(data.getDevice().getId().getId()));
+      data.setDiagnostic(diagnosticCache.get(data.getDiagnostic().getId().getId()));
+      data.setController(controllerCache.get(data.getController().getId().getId()));
+      data.setFailureMode(failureModeCache.get(data.getFailureMode().getId().getId()));
+    });
+  }
+
+  private Optional<FeedResult<Trip>> loadTrips() throws Exception {
     Optional<FeedResult<Trip>> tripFeedResult = getFeed(Trip.class,
         dataFeedParameters.getLastTripToken());
 
-    List<Trip> trips = new ArrayList<>();
-    if (tripFeedResult.isPresent()) {
-      dataFeedParameters.setLastTripToken(tripFeedResult.get().getToVersion());
-      tripFeedResult.get().getData()
-          .forEach(trip -> {
-            // Populate relevant Trip fields.
-            trip.setDevice(deviceCache.get(trip.getDevice().getId().getId()));
-            trip.setDriver(driverCache.get(trip.getDriver().getId().getId()));
-            trips.add(trip);
-          });
-    }
+    awaitCacheWarmUp();
+    tripFeedResult.ifPresent(feedResult -> populateTrips(feedResult.getData()));
+
+    return tripFeedResult;
+  }
+
+  /**
+   * Populate the entities referenced by the Trips from the caches.
+   *
+   * @param trips The Trips of a feed page.
+   */
+  void populateTrips(List<Trip> trips) {
+    deviceCache.preload(referencedIds(trips, Trip::getDevice));
+    driverCache.preload(referencedIds(trips, Trip::getDriver));
+    trips.forEach(trip -> {
+      // Populate relevant Trip fields.
+      trip.setDevice(deviceCache.get(trip.getDevice().getId().getId()));
+      trip.setDriver(driverCache.get(trip.getDriver().getId().getId()));
+    });
+  }
+
+  private Optional<FeedResult<ExceptionEvent>> loadExceptionEvents() throws Exception {
+    Optional<FeedResult<ExceptionEvent>> exceptionEventFeedResult = getFeed(ExceptionEvent.class,
+        dataFeedParameters.getLastExceptionToken());
+
+    awaitCacheWarmUp();
+    exceptionEventFeedResult.ifPresent(feedResult ->
+        populateExceptionEvents(feedResult.getData()));
 
-    return trips;
+    return exceptionEventFeedResult;
+  }
+
+  /**
+   * Populate the entities referenced by the ExceptionEvents from the caches.
+   *
+   * @param exceptionEvents The ExceptionEvents of a feed page.
+   */
+  void populateExceptionEvents(List<ExceptionEvent> exceptionEvents) {
+    deviceCache.preload(referencedIds(exceptionEvents, ExceptionEvent::getDevice));
+    diagnosticCache.preload(referencedIds(exceptionEvents, ExceptionEvent::getDiagnostic));
+    driverCache.preload(referencedIds(exceptionEvents, ExceptionEvent::getDriver));
+    ruleCache.preload(referencedIds(exceptionEvents, ExceptionEvent::getRule));
+    exceptionEvents.forEach(exceptionEvent -> {
+      // Populate relevant ExceptionEvent fields; the diagnostic and driver are optional.
+      exceptionEvent.setDevice(deviceCache.get(id(exceptionEvent.getDevice())));
+      exceptionEvent.setDiagnostic(diagnosticCache.get(id(exceptionEvent.getDiagnostic())));
+      exceptionEvent.setDriver(driverCache.get(id(exceptionEvent.getDriver())));
+      exceptionEvent.setRule(ruleCache.get(id(exceptionEvent.getRule())));
+    });
+  }
+
+  private static String id(Entity entity) {
+    return entity != null && entity.getId() != null ? entity.getId().getId() : null;
+  }
+
+  /**
+   * Collect the ids of the entities referenced by the feed data, so all cache misses of a feed page
+   * are resolved together before the data is populated.
+   */
+  private static <T> Set<String> referencedIds(List<T> data,
+      Function<T, ? extends Entity> reference) {
+    return data.stream()
+        .map(reference)
+        .filter(entity -> entity != null && entity.getId() != null)
+        .map(entity -> entity.getId().getId())
+        .filter(Objects::nonNull)
+        .collect(Collectors.toSet());
   }
 
   private <T extends Entity> Optional<FeedResult<T>> getFeed(Class<T> type, String fromVersion)
@@ -243,10 +822,16 @@ public class DataFeedLoader {
         .params(GetFeedParameters.getFeedParamsBuilder()
             .typeName(type.getSimpleName())
             .fromVersion(fromVersion)
+            .resultsLimit(resultsLimit)
             .build())
         .build();
 
-    return geotabApi.call(request, responseType);
+    long start = System.nanoTime();
+    try {
+      return geotabApi.call(request, responseType);
+    } finally {
+      metrics.recordGetFeed(type.getSimpleName(), start);
+    }
   }
 
 }
@@ -1,5 +1,6 @@
 package com.geotab.sdk.datafeed.loader;
 
+import com.geotab.model.entity.exceptionevent.ExceptionEvent;
 import com.geotab.model.entity.faultdata.FaultData;
 import com.geotab.model.entity.logrecord.LogRecord;
 import com.geotab.model.entity.statusdata.StatusData;
@@ -27,5 +28,11 @@ public class DataFeedResult {
 
   private List<Trip> trips;
 
-  // TODO private List<ExceptionEvent> exceptionEvents;
+  private List<ExceptionEvent> exceptionEvents;
+
+  /**
+   * The feed tokens reached by this batch; checkpointed once the batch is exported. Null when the
+   * batch is not safe to checkpoint.
+   */
+  private DataFeedParameters feedParameters;
 }
@@ -0,0 +1,138 @@
+package com.geotab.sdk.datafeed.loader;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Decides when the GetFeed call of one data type is due again.
+ *
+ * <p>A full page which moved the token forward means the feed is behind, so the next page is
+ * requested right away; the feed caught up once a page is partial. A partial page waits {@link
+ * #BASE_DELAY}. Every empty page doubles the wait, up to {@link #MAX_IDLE_DELAY}, and a failure
+ * doubles it as well, starting at the minimum given for the failure, up to {@link
+ * #MAX_FAILURE_DELAY}. Each wait is spread by {@link #JITTER} either way, so the feeds do
+ * not all call the server at the same moment. Not thread safe; used from the loading thread only.
+ */
+@Slf4j
+final class FeedPollSchedule {
+
+  static final Duration BASE_DELAY = Duration.ofSeconds(1);
+
+  static final Duration MAX_IDLE_DELAY = Duration.ofSeconds(30);
+
+  static final Duration MAX_FAILURE_DELAY = Duration.ofMinutes(10);
+
+  /**
+   * The fraction by which a wait is randomly lengthened or shortened.
+   */
+  static final double JITTER = 0.2;
+
+  private final String feedName;
+
+  private final int fullPageSize;
+
+  /**
+   * The wait before the next call, without jitter; zero while pages come back full.
+   */
+  private long delayMillis;
+
+  private long nextPollNanos = System.nanoTime();
+
+  private String lastToVersion;
+
+  private boolean behind;
+
+  /**
+   * The full pages loaded since the feed fell behind.
+   */
+  private long catchUpPages;
+
+  /**
+   * Create the schedule of a feed, due right away.
+   *
+   * @param feedName     The data type, for logging.
+   * @param fullPageSize The number of records of a full page, i.e. the GetFeed results limit.
+   */
+  FeedPollSchedule(String feedName, int fullPageSize) {
+    this.feedName = feedName;
+    this.fullPageSize = fullPageSize;
+  }
+
+  boolean isDue() {
+    return getDelayMillis() == 0;
+  }
+
+  /**
+   * Get how long until the feed is due.
+   *
+   * @return The wait in milliseconds; 0 when due.
+   */
+  long getDelayMillis() {
+    return Math.max(0, TimeUnit.NANOSECONDS.toMillis(nextPollNanos - System.nanoTime()));
+  }
+
+  /**
+   * Whether the last page was full and moved the token forward, i.e. more data is waiting.
+   *
+   * @return True while the feed is behind its head.
+   */
+  boolean isBehind() {
+    return behind;
+  }
+
+  /**
+   * Schedule the next call after a page was loaded.
+   *
+   * @param records   The records of the page.
+   * @param toVersion The token the page reached; null when nothing was loaded.
+   */
+  void polled(int records, String toVersion) {
+    boolean advanced = toVersion != null && !toVersion.equals(lastToVersion);
+    if (toVersion != null) {
+      lastToVersion = toVersion;
+    }
+
+    boolean wasBehind = behind;
+    behind = records >= fullPageSize && advanced;
+    if (behind) {
+      catchUpPages++;
+    } else if (wasBehind) {
+      log.info("{} data feed caught up after {} full pages", feedName, catchUpPages);
+      catchUpPages = 0;
+    }
+
+    if (behind) {
+      delayMillis = 0;
+    } else if (records > 0) {
+      delayMillis = BASE_DELAY.toMillis();
+    } else {
+      delayMillis = Math.min(Math.max(BASE_DELAY.toMillis(), 2 * delayMillis),
+          MAX_IDLE_DELAY.toMillis());
+    }
+    schedule();
+  }
+
+  /**
+   * Back off after a failed call.
+   *
+   * @param minimumDelay The least wait this kind of failure calls for.
+   */
+  void failed(Duration minimumDelay) {
+    behind = false;
+    delayMillis = Math.min(Math.max(minimumDelay.toMillis(), 2 * delayMillis),
+        Math.max(minimumDelay.toMillis(), MAX_FAILURE_DELAY.toMillis()));
+    schedule();
+
+    log.info("Next {} data feed call in {} ms", feedName, getDelayMillis());
+  }
+
+  private void schedule() {
+    long jitteredMillis = delayMillis == 0 ? 0 : Math.round(delayMillis
+        * (1 + ThreadLocalRandom.current().nextDouble(-JITTER, JITTER)));
+    nextPollNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(jitteredMillis);
+
+    log.debug("Next {} data feed call in {} ms", feedName, jitteredMillis);
+  }
+}
@@ -0,0 +1,66 @@
+package com.geotab.sdk.datafeed.metrics;
+
+import com.geotab.sdk.datafeed.cache.GeotabEntityCache;
+import com.google.common.cache.CacheStats;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * The hits, misses and load times of an entity cache at one time.
+ */
+@Getter
+@AllArgsConstructor
+public final class CacheSummary {
+
+  /**
+   * The lookups answered by the snapshot of the last full load or change feed page.
+   */
+  private final long snapshotHits;
+
+  /**
+   * The lookups answered by the Guava cache behind the snapshot.
+   */
+  private final long hits;
+
+  /**
+   * The lookups loaded from Geotab, one by one or in bulk.
+   */
+  private final long misses;
+
+  private final long loadFailures;
+
+  private final long evictions;
+
+  /**
+   * The average time to load the misses.
+   */
+  private final double averageLoadMillis;
+
+  /**
+   * The full reloads and change feed refreshes.
+   */
+  private final LatencyHistogram.Snapshot reloads;
+
+  /**
+   * Get the summary of a cache.
+   *
+   * @param cache The cache.
+   * @return The summary; the Guava counts are 0 unless its cache spec contains recordStats.
+   */
+  public static CacheSummary of(GeotabEntityCache<?> cache) {
+    CacheStats stats = cache.stats();
+    return new CacheSummary(cache.snapshotHitCount(), stats.hitCount(), stats.missCount(),
+        stats.loadExceptionCount(), stats.evictionCount(), stats.averageLoadPenalty() / 1_000_000,
+        cache.getReloadLatency().snapshot());
+  }
+
+  /**
+   * Get the fraction of the lookups answered without loading.
+   *
+   * @return The hit ratio; 1 when nothing was looked up.
+   */
+  public double getHitRatio() {
+    long lookups = snapshotHits + hits + misses;
+    return lookups > 0 ? (double) (snapshotHits + hits) / lookups : 1;
+  }
+}
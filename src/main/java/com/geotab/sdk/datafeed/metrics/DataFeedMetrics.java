@@ -0,0 +1,225 @@
+package com.geotab.sdk.datafeed.metrics;
+
+import com.geotab.sdk.datafeed.cache.GeotabEntityCache;
+import com.google.common.collect.ImmutableMap;
+import java.lang.management.ManagementFactory;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * The metrics of a data feed: GetFeed latencies, records and lag by feed type, the entity caches
+ * and the export latencies by exporter.
+ *
+ * <p>Recording is lock-free and allocation free, as it happens on the loading and exporting
+ * threads: a {@link LatencyHistogram} per feed type and exporter, and counters. The caches are not
+ * instrumented any further; their own statistics are read when the metrics are. The metrics are
+ * read over JMX once {@link #register()}ed, and dumped periodically by a {@link MetricsReporter}.
+ */
+@Slf4j
+public class DataFeedMetrics implements DataFeedMetricsMxBean {
+
+  public static final String OBJECT_NAME = "com.geotab.sdk.datafeed:type=DataFeedMetrics";
+
+  private final long startNanos = System.nanoTime();
+
+  /**
+   * The metrics by feed type; fixed at creation, so the hot path looks them up without locking.
+   */
+  private final Map<String, FeedMetrics> feeds;
+
+  private final Map<String, GeotabEntityCache<?>> caches = new ConcurrentSkipListMap<>();
+
+  private final Map<String, LatencyHistogram> exportLatency = new ConcurrentSkipListMap<>();
+
+  private final LongAdder exportedRecords = new LongAdder();
+
+  private ObjectName objectName;
+
+  /**
+   * Create the metrics of the given feed types.
+   *
+   * @param feedTypes The feed types, e.g. LogRecord.
+   */
+  public DataFeedMetrics(List<String> feedTypes) {
+    ImmutableMap.Builder<String, FeedMetrics> builder = ImmutableMap.builder();
+    feedTypes.forEach(feedType -> builder.put(feedType, new FeedMetrics()));
+    this.feeds = builder.build();
+  }
+
+  /**
+   * Record the latency of a GetFeed call.
+   *
+   * @param feedType   The feed type.
+   * @param startNanos The start of the call, from {@link System#nanoTime()}.
+   */
+  public void recordGetFeed(String feedType, long startNanos) {
+    FeedMetrics feed = feeds.get(feedType);
+    if (feed != null) {
+      feed.latency.recordSince(startNanos);
+    }
+  }
+
+  /**
+   * Record the records of a feed page.
+   *
+   * @param feedType         The feed type.
+   * @param records          The records of the page.
+   * @param newestRecordTime The time of the newest record of the page; null when it has none.
+   */
+  public void recordRecords(String feedType, int records, Instant newestRecordTime) {
+    FeedMetrics feed = feeds.get(feedType);
+    if (feed == null) {
+      return;
+    }
+    feed.records.add(records);
+    if (newestRecordTime != null) {
+      feed.newestRecordMillis.accumulateAndGet(newestRecordTime.toEpochMilli(), Math::max);
+    }
+  }
+
+  /**
+   * Record the records of an exported batch.
+   *
+   * @param records The records, of all feed types.
+   */
+  public void recordExported(int records) {
+    exportedRecords.add(records);
+  }
+
+  /**
+   * Include the statistics of an entity cache.
+   *
+   * @param entityType The entity type of the cache, e.g. Device.
+   * @param cache      The cache.
+   */
+  public void registerCache(String entityType, GeotabEntityCache<?> cache) {
+    caches.put(entityType, cache);
+  }
+
+  /**
+   * Include the export latencies of an exporter.
+   *
+   * @param exporter The exporter name, e.g. csv.
+   * @param latency  The histogram the exporter records its exports to.
+   */
+  public void registerExporter(String exporter, LatencyHistogram latency) {
+    exportLatency.put(exporter, latency);
+  }
+
+  /**
+   * Register the metrics with the platform MBean server. Only one data feed per JVM is registered;
+   * the metrics of others are still recorded and reported.
+   *
+   * @return Whether the metrics were registered.
+   */
+  public synchronized boolean register() {
+    try {
+      MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+      ObjectName name = new ObjectName(OBJECT_NAME);
+      if (server.isRegistered(name)) {
+        log.warn("Data feed metrics already registered as {}; not registering again", name);
+        return false;
+      }
+      server.registerMBean(this, name);
+      objectName = name;
+      return true;
+    } catch (Exception exception) {
+      log.warn("Can not register data feed metrics", exception);
+      return false;
+    }
+  }
+
+  /**
+   * Unregister the metrics from the platform MBean server, if registered.
+   */
+  public synchronized void unregister() {
+    if (objectName == null) {
+      return;
+    }
+    try {
+      ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+    } catch (Exception exception) {
+      log.warn("Can not unregister data feed metrics", exception);
+    }
+    objectName = null;
+  }
+
+  @Override
+  public Map<String, LatencyHistogram.Snapshot> getFeedLatency() {
+    Map<String, LatencyHistogram.Snapshot> latency = new LinkedHashMap<>();
+    feeds.forEach((feedType, feed) -> latency.put(feedType, feed.latency.snapshot()));
+    return latency;
+  }
+
+  @Override
+  public Map<String, Long> getFeedRecords() {
+    Map<String, Long> records = new LinkedHashMap<>();
+    feeds.forEach((feedType, feed) -> records.put(feedType, feed.records.sum()));
+    return records;
+  }
+
+  @Override
+  public Map<String, Double> getFeedRecordsPerSecond() {
+    double seconds = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos))
+        / 1_000d;
+    Map<String, Double> rates = new LinkedHashMap<>();
+    feeds.forEach((feedType, feed) -> rates.put(feedType, feed.records.sum() / seconds));
+    return rates;
+  }
+
+  @Override
+  public Map<String, Long> getFeedLagMillis() {
+    long now = System.currentTimeMillis();
+    Map<String, Long> lag = new LinkedHashMap<>();
+    feeds.forEach((feedType, feed) -> {
+      long newestRecordMillis = feed.newestRecordMillis.get();
+      if (newestRecordMillis > 0) {
+        lag.put(feedType, Math.max(0, now - newestRecordMillis));
+      }
+    });
+    return lag;
+  }
+
+  @Override
+  public Map<String, CacheSummary> getCaches() {
+    Map<String, CacheSummary> summaries = new LinkedHashMap<>();
+    caches.forEach((entityType, cache) -> summaries.put(entityType, CacheSummary.of(cache)));
+    return summaries;
+  }
+
+  @Override
+  public Map<String, LatencyHistogram.Snapshot> getExportLatency() {
+    Map<String, LatencyHistogram.Snapshot> latency = new LinkedHashMap<>();
+    exportLatency.forEach((exporter, histogram) -> latency.put(exporter, histogram.snapshot()));
+    return latency;
+  }
+
+  @Override
+  public long getExportedRecords() {
+    return exportedRecords.sum();
+  }
+
+  /**
+   * The metrics of one feed type.
+   */
+  private static final class FeedMetrics {
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    private final LongAdder records = new LongAdder();
+
+    /**
+     * The time of the newest record loaded, in epoch milliseconds; 0 until then.
+     */
+    private final AtomicLong newestRecordMillis = new AtomicLong();
+  }
+}
@@ -0,0 +1,61 @@
+package com.geotab.sdk.datafeed.metrics;
+
+import java.util.Map;
+import javax.management.MXBean;
+
+/**
+ * The data feed metrics as seen over JMX, e.g. in JConsole or VisualVM, under {@value
+ * DataFeedMetrics#OBJECT_NAME}. The latencies are in milliseconds, since the feed started.
+ */
+@MXBean
+public interface DataFeedMetricsMxBean {
+
+  /**
+   * Get the latencies of the GetFeed calls by feed type, the wait for the API quota included.
+   *
+   * @return The latencies by feed type, e.g. LogRecord.
+   */
+  Map<String, LatencyHistogram.Snapshot> getFeedLatency();
+
+  /**
+   * Get the records loaded by feed type.
+   *
+   * @return The record counts by feed type.
+   */
+  Map<String, Long> getFeedRecords();
+
+  /**
+   * Get the records loaded per second by feed type, on average since the feed started.
+   *
+   * @return The record rates by feed type.
+   */
+  Map<String, Double> getFeedRecordsPerSecond();
+
+  /**
+   * Get how far behind each feed type is: the time between now and the newest record loaded.
+   *
+   * @return The lag in milliseconds by feed type; types without records yet are left out.
+   */
+  Map<String, Long> getFeedLagMillis();
+
+  /**
+   * Get the hits, misses and load times of the entity caches.
+   *
+   * @return The summaries by entity type, e.g. Device.
+   */
+  Map<String, CacheSummary> getCaches();
+
+  /**
+   * Get the durations of the exports by exporter.
+   *
+   * @return The latencies by exporter, e.g. csv.
+   */
+  Map<String, LatencyHistogram.Snapshot> getExportLatency();
+
+  /**
+   * Get the records exported, of all feed types.
+   *
+   * @return The record count.
+   */
+  long getExportedRecords();
+}
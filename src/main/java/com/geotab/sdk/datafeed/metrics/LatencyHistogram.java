@@ -0,0 +1,203 @@
+package com.geotab.sdk.datafeed.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of latencies, in the manner of HdrHistogram: the values are counted in
+ * log-linear buckets of microseconds, 16 per power of two, so any percentile is read back within
+ * 1/16 of its value whatever the range, from a microsecond to hours, in a fixed 8 KB.
+ *
+ * <p>{@link #record(long)} is two atomic increments and an add, cheap enough for every call of the
+ * hot path. The histogram is never reset: readers take a {@link Snapshot} and subtract the previous
+ * one to get the latencies of an interval.
+ */
+public final class LatencyHistogram {
+
+  /**
+   * The buckets per power of two, as bits.
+   */
+  private static final int SUB_BUCKET_BITS = 4;
+
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+  private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+  private final LongAdder totalMicros = new LongAdder();
+
+  private final AtomicLong maxMicros = new AtomicLong();
+
+  /**
+   * Record a latency.
+   *
+   * @param nanos The latency in nanoseconds, e.g. the difference of two {@link System#nanoTime()}.
+   */
+  public void record(long nanos) {
+    long micros = Math.max(0, TimeUnit.NANOSECONDS.toMicros(nanos));
+    counts.incrementAndGet(bucket(micros));
+    totalMicros.add(micros);
+    if (micros > maxMicros.get()) {
+      maxMicros.accumulateAndGet(micros, Math::max);
+    }
+  }
+
+  /**
+   * Record the latency since a start time.
+   *
+   * @param startNanos The start, from {@link System#nanoTime()}.
+   */
+  public void recordSince(long startNanos) {
+    record(System.nanoTime() - startNanos);
+  }
+
+  /**
+   * Get the counts recorded so far. The counts of concurrent records may be missing.
+   *
+   * @return The snapshot.
+   */
+  public Snapshot snapshot() {
+    long[] bucketCounts = new long[BUCKETS];
+    long count = 0;
+    for (int bucket = 0; bucket < BUCKETS; bucket++) {
+      bucketCounts[bucket] = counts.get(bucket);
+      count += bucketCounts[bucket];
+    }
+    return new Snapshot(bucketCounts, count, totalMicros.sum(), maxMicros.get());
+  }
+
+  static int bucket(long micros) {
+    if (micros < SUB_BUCKETS) {
+      return (int) micros;
+    }
+    int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(micros);
+    int subBucket = (int) (micros >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+    return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+  }
+
+  /**
+   * Get the highest value counted in a bucket.
+   */
+  static long bucketMaxMicros(int bucket) {
+    if (bucket < SUB_BUCKETS) {
+      return bucket;
+    }
+    int shift = bucket / SUB_BUCKETS - 1;
+    long subBucket = SUB_BUCKETS + bucket % SUB_BUCKETS;
+    return ((subBucket + 1) << shift) - 1;
+  }
+
+  /**
+   * The counts of a {@link LatencyHistogram} at one time; immutable.
+   */
+  public static final class Snapshot {
+
+    private static final Snapshot EMPTY = new Snapshot(new long[BUCKETS], 0, 0, 0);
+
+    private final long[] counts;
+
+    private final long count;
+
+    private final long totalMicros;
+
+    private final long maxMicros;
+
+    private Snapshot(long[] counts, long count, long totalMicros, long maxMicros) {
+      this.counts = counts;
+      this.count = count;
+      this.totalMicros = totalMicros;
+      this.maxMicros = maxMicros;
+    }
+
+    /**
+     * Get the snapshot of a histogram without any value.
+     *
+     * @return The empty snapshot.
+     */
+    public static Snapshot empty() {
+      return EMPTY;
+    }
+
+    /**
+     * Get the latencies recorded since an earlier snapshot of the same histogram.
+     *
+     * @param earlier The earlier snapshot.
+     * @return The difference; its maximum is the highest bucket of the interval.
+     */
+    public Snapshot minus(Snapshot earlier) {
+      long[] difference = new long[BUCKETS];
+      long highestMicros = 0;
+      for (int bucket = 0; bucket < BUCKETS; bucket++) {
+        difference[bucket] = counts[bucket] - earlier.counts[bucket];
+        if (difference[bucket] > 0) {
+          highestMicros = bucketMaxMicros(bucket);
+        }
+      }
+      return new Snapshot(difference, count - earlier.count, totalMicros - earlier.totalMicros,
+          Math.min(highestMicros, maxMicros));
+    }
+
+    public long getCount() {
+      return count;
+    }
+
+    public double getTotalMillis() {
+      return totalMicros / 1_000d;
+    }
+
+    public double getMeanMillis() {
+      return count > 0 ? totalMicros / 1_000d / count : 0;
+    }
+
+    public double getMaxMillis() {
+      return maxMicros / 1_000d;
+    }
+
+    public double getP50Millis() {
+      return percentileMillis(50);
+    }
+
+    public double getP90Millis() {
+      return percentileMillis(90);
+    }
+
+    public double getP99Millis() {
+      return percentileMillis(99);
+    }
+
+    public double getP999Millis() {
+      return percentileMillis(99.9);
+    }
+
+    /**
+     * Get a percentile of the latencies.
+     *
+     * @param percentile The percentile, 0 to 100.
+     * @return The highest latency of the bucket holding the percentile, in milliseconds; 0 when
+     *     nothing was recorded.
+     */
+    public double percentileMillis(double percentile) {
+      if (count == 0) {
+        return 0;
+      }
+      long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+      long seen = 0;
+      for (int bucket = 0; bucket < BUCKETS; bucket++) {
+        seen += counts[bucket];
+        if (seen >= rank) {
+          return Math.min(bucketMaxMicros(bucket), maxMicros) / 1_000d;
+        }
+      }
+      return getMaxMillis();
+    }
+
+    @Override
+    public String toString() {
+      return String.format("count %d, mean %.1f ms, p50 %.1f ms, p99 %.1f ms, max %.1f ms", count,
+          getMeanMillis(), getP50Millis(), getP99Millis(), getMaxMillis());
+    }
+  }
+}
@@ -0,0 +1,176 @@
+package com.geotab.sdk.datafeed.metrics;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Dumps the {@link DataFeedMetrics} periodically to the log, and to a CSV file if given, from a
+ * thread of its own. Each dump covers the interval since the previous one: the records per second
+ * and the latency percentiles are those of the interval, the lag that of the moment.
+ *
+ * <p>The CSV file is appended to, one row per value: {@code time,metric,value}, with dotted metric
+ * names such as {@code feed.LogRecord.p99Millis}, so it loads into any spreadsheet or database.
+ */
+@Slf4j
+public class MetricsReporter implements AutoCloseable {
+
+  private static final String CSV_HEADER = "time,metric,value";
+
+  private final DataFeedMetrics metrics;
+
+  private final Path csvFile;
+
+  private final ScheduledExecutorService executor;
+
+  private long lastReportNanos = System.nanoTime();
+
+  private Map<String, Long> lastRecords = new HashMap<>();
+
+  private Map<String, LatencyHistogram.Snapshot> lastFeedLatency = new HashMap<>();
+
+  private Map<String, LatencyHistogram.Snapshot> lastExportLatency = new HashMap<>();
+
+  /**
+   * Create a reporter and start it.
+   *
+   * @param metrics  The metrics to dump.
+   * @param interval How often to dump them.
+   * @param csvFile  The CSV file to append them to; null to only log them.
+   */
+  public MetricsReporter(DataFeedMetrics metrics, Duration interval, Path csvFile) {
+    this.metrics = metrics;
+    this.csvFile = csvFile;
+    this.executor = Executors.newSingleThreadScheduledExecutor(
+        new ThreadFactoryBuilder().setNameFormat("data-feed-metrics").setDaemon(true).build());
+    executor.scheduleAtFixedRate(this::report, interval.toMillis(), interval.toMillis(),
+        TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Stop dumping, after a last dump of the interval so far.
+   */
+  @Override
+  public void close() {
+    executor.shutdownNow();
+    try {
+      executor.awaitTermination(5, TimeUnit.SECONDS);
+    } catch (InterruptedException exception) {
+      Thread.currentThread().interrupt();
+    }
+    report();
+  }
+
+  private synchronized void report() {
+    try {
+      long now = System.nanoTime();
+      double seconds = Math.max(1, TimeUnit.NANOSECONDS.toMillis(now - lastReportNanos)) / 1_000d;
+      lastReportNanos = now;
+
+      Map<String, Double> values = new LinkedHashMap<>();
+      Map<String, Long> records = metrics.getFeedRecords();
+      Map<String, LatencyHistogram.Snapshot> feedLatency = metrics.getFeedLatency();
+      Map<String, Long> lag = metrics.getFeedLagMillis();
+      for (Map.Entry<String, Long> entry : records.entrySet()) {
+        String feedType = entry.getKey();
+        double recordsPerSecond =
+            (entry.getValue() - lastRecords.getOrDefault(feedType, 0L)) / seconds;
+        LatencyHistogram.Snapshot latency = interval(feedLatency, lastFeedLatency, feedType);
+        Long lagMillis = lag.get(feedType);
+        log.info("{}: {} records/s; GetFeed {}; lag {}", feedType,
+            format(recordsPerSecond), latency, lagMillis != null ? lagMillis + " ms" : "unknown");
+
+        String prefix = "feed." + feedType + ".";
+        values.put(prefix + "records", entry.getValue().doubleValue());
+        values.put(prefix + "recordsPerSecond", recordsPerSecond);
+        putLatency(values, prefix, latency);
+        if (lagMillis != null) {
+          values.put(prefix + "lagMillis", lagMillis.doubleValue());
+        }
+      }
+
+      metrics.getCaches().forEach((entityType, cache) -> {
+        log.info("{} cache: hit ratio {}, snapshot hits {}, hits {}, misses {}, average load {} ms,"
+                + " reloads {}", entityType, format(cache.getHitRatio()), cache.getSnapshotHits(),
+            cache.getHits(), cache.getMisses(), format(cache.getAverageLoadMillis()),
+            cache.getReloads());
+
+        String prefix = "cache." + entityType + ".";
+        values.put(prefix + "hitRatio", cache.getHitRatio());
+        values.put(prefix + "snapshotHits", (double) cache.getSnapshotHits());
+        values.put(prefix + "hits", (double) cache.getHits());
+        values.put(prefix + "misses", (double) cache.getMisses());
+        values.put(prefix + "averageLoadMillis", cache.getAverageLoadMillis());
+        values.put(prefix + "reloadP99Millis", cache.getReloads().getP99Millis());
+      });
+
+      Map<String, LatencyHistogram.Snapshot> exportLatency = metrics.getExportLatency();
+      for (String exporter : exportLatency.keySet()) {
+        LatencyHistogram.Snapshot latency = interval(exportLatency, lastExportLatency, exporter);
+        log.info("Export {}: {}", exporter, latency);
+        putLatency(values, "export." + exporter + ".", latency);
+      }
+      values.put("export.records", (double) metrics.getExportedRecords());
+
+      lastRecords = records;
+      lastFeedLatency = feedLatency;
+      lastExportLatency = exportLatency;
+
+      if (csvFile != null) {
+        writeCsv(values);
+      }
+    } catch (Exception exception) {
+      // never let a failure cancel the next dumps
+      log.error("Can not report data feed metrics", exception);
+    }
+  }
+
+  private static LatencyHistogram.Snapshot interval(Map<String, LatencyHistogram.Snapshot> current,
+      Map<String, LatencyHistogram.Snapshot> previous, String name) {
+    return current.get(name)
+        .minus(previous.getOrDefault(name, LatencyHistogram.Snapshot.empty()));
+  }
+
+  private static void putLatency(Map<String, Double> values, String prefix,
+      LatencyHistogram.Snapshot latency) {
+    values.put(prefix + "count", (double) latency.getCount());
+    values.put(prefix + "meanMillis", latency.getMeanMillis());
+    values.put(prefix + "p50Millis", latency.getP50Millis());
+    values.put(prefix + "p99Millis", latency.getP99Millis());
+    values.put(prefix + "maxMillis", latency.getMaxMillis());
+  }
+
+  private void writeCsv(Map<String, Double> values) throws IOException {
+    boolean newFile = !Files.exists(csvFile);
+    String time = Instant.now().toString();
+    try (Writer writer = Files.newBufferedWriter(csvFile, StandardCharsets.UTF_8,
+        StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+      if (newFile) {
+        writer.write(CSV_HEADER);
+        writer.write(System.lineSeparator());
+      }
+      for (Map.Entry<String, Double> entry : values.entrySet()) {
+        writer.write(time + "," + entry.getKey() + "," + format(entry.getValue()));
+        writer.write(System.lineSeparator());
+      }
+    }
+  }
+
+  private static String format(double value) {
+    return String.format(Locale.ROOT, "%.3f", value);
+  }
+}
@@ -1,28 +1,148 @@
 package com.geotab.sdk.datafeed.worker;
 
+import com.geotab.sdk.datafeed.checkpoint.CheckpointStore;
 import com.geotab.sdk.datafeed.cli.CommandLineArguments;
+import com.geotab.sdk.datafeed.exporter.CompositeExporter;
 import com.geotab.sdk.datafeed.exporter.Exporter;
 import com.geotab.sdk.datafeed.loader.DataFeedLoader;
+import com.geotab.sdk.datafeed.loader.DataFeedParameters;
 import com.geotab.sdk.datafeed.loader.DataFeedResult;
+import com.geotab.sdk.datafeed.metrics.DataFeedMetrics;
+import com.geotab.sdk.datafeed.metrics.LatencyHistogram;
+import com.geotab.sdk.datafeed.metrics.MetricsReporter;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import lombok.extern.slf4j.Slf4j;
 
+/**
+ * Loads the data feed and exports it.
+ *
+ * <p>When an export queue size is configured, loading (the producer stage, on this thread) and
+ * exporting (the consumer stage, on a dedicated thread) are joined by a bounded queue of {@link
+ * DataFeedResult} batches, so the next feed page is fetched while the previous one is exported. A
+ * full queue blocks the producer until the exporter catches up. With a queue size of 0 both stages
+ * run on this thread, one after another.
+ *
+ * <p>The tokens reached by a batch are saved to the {@link CheckpointStore} only after that batch
+ * was exported, and restored from it on start, so a restarted feed resumes without reloading data.
+ * An exporter which is a {@link CheckpointStore} itself saves the tokens together with the batch.
+ * A batch which fails to export is retried with a growing backoff until it is exported: the next
+ * batch is never exported, nor its tokens saved, before it, so no batch is skipped. Should the
+ * worker be stopped meanwhile, the batches not exported are dropped and loaded again on restart.
+ *
+ * <p>The loader is only called once the feed of some type is due, see {@link
+ * DataFeedLoader#getNextPollDelayMillis()}, so an idle or throttled feed is not polled in a loop.
+ *
+ * <p>The {@link DataFeedMetrics} of the loader, with the export latencies added, are registered
+ * over JMX while running, and dumped periodically when a metrics interval is configured.
+ */
 @Slf4j
 public class DataFeedWorker extends Thread {
 
+  private static final long EXPORT_POLL_MILLIS = 500;
+
+  /**
+   * The longest single wait for the next feed call, so a shutdown is not held up by an idle feed.
+   */
+  private static final long IDLE_POLL_MILLIS = 500;
+
+  private static final long EXPORT_RETRY_MIN_MILLIS = TimeUnit.SECONDS.toMillis(1);
+
+  private static final long EXPORT_RETRY_MAX_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
   private AtomicBoolean isAlive = new AtomicBoolean(true);
   private AtomicBoolean isProccessing = new AtomicBoolean(false);
+  private AtomicBoolean isLoading = new AtomicBoolean(false);
+
+  /**
+   * Whether to keep loading; otherwise the feed is loaded once, as soon as it is due.
+   */
+  private boolean feedContinuously;
 
   private DataFeedLoader loader;
   private Exporter exporter;
+  private CheckpointStore checkpointStore;
+
+  /**
+   * Whether the exporter saves the checkpoint itself, in the same transaction as the data.
+   */
+  private boolean exporterCheckpoints;
+
+  private BlockingQueue<DataFeedResult> exportQueue;
+  private Thread exportThread;
 
-  public DataFeedWorker(CommandLineArguments commandLineArguments) {
-    this.loader = new DataFeedLoader(
-        commandLineArguments.getServer(),
-        commandLineArguments.getCredentials(),
-        commandLineArguments.getDataFeedParameters()
-    );
+  private final AtomicLong loadedBatches = new AtomicLong();
+  private final AtomicLong exportedBatches = new AtomicLong();
+  private final AtomicLong lastLoadMillis = new AtomicLong();
+  private final AtomicLong lastHandOffMillis = new AtomicLong();
+  private final AtomicLong lastExportMillis = new AtomicLong();
+
+  private final LatencyHistogram exportLatency = new LatencyHistogram();
+
+  /**
+   * When the loading loop last went round, loading or waiting for a feed to be due.
+   */
+  private volatile long lastCycleNanos = System.nanoTime();
+
+  private volatile DataFeedParameters loadedParameters;
+  private volatile DataFeedParameters exportedParameters;
+
+  private DataFeedMetrics metrics;
+  private Duration metricsInterval;
+  private String metricsFile;
+  private MetricsReporter metricsReporter;
+
+  public DataFeedWorker(CommandLineArguments commandLineArguments) throws Exception {
     this.exporter = Exporter.FACTORY.apply(commandLineArguments);
+    try {
+      this.exporterCheckpoints = exporter instanceof CheckpointStore;
+      this.checkpointStore = exporterCheckpoints ? (CheckpointStore) exporter
+          : CheckpointStore.FACTORY.apply(commandLineArguments);
+      restoreTokens(commandLineArguments.getDataFeedParameters());
+      this.loader = new DataFeedLoader(commandLineArguments);
+      if (commandLineArguments.getExportQueueSize() > 0) {
+        this.exportQueue = new ArrayBlockingQueue<>(commandLineArguments.getExportQueueSize());
+      }
+      this.metrics = loader.getMetrics();
+      this.metricsInterval = commandLineArguments.getMetricsInterval();
+      this.metricsFile = commandLineArguments.getMetricsFile();
+      this.feedContinuously = commandLineArguments.isFeedContinuously();
+      registerExporters(commandLineArguments.getExportType());
+    } catch (Exception exception) {
+      // the exporter may run threads of its own, which would keep the application alive
+      closeExporter();
+      throw exception;
+    }
+  }
+
+  /**
+   * Create a worker of the given stages, feeding continuously without reporting metrics, e.g. to
+   * test the checkpointing.
+   *
+   * @param loader          The loader of the batches.
+   * @param exporter        The exporter of the batches.
+   * @param checkpointStore The store of the exported tokens.
+   * @param exportQueueSize The export queue size; 0 to export on the loading thread.
+   */
+  DataFeedWorker(DataFeedLoader loader, Exporter exporter, CheckpointStore checkpointStore,
+      int exportQueueSize) {
+    this.loader = loader;
+    this.exporter = exporter;
+    this.checkpointStore = checkpointStore;
+    if (exportQueueSize > 0) {
+      this.exportQueue = new ArrayBlockingQueue<>(exportQueueSize);
+    }
+    this.metrics = loader.getMetrics();
+    this.metricsInterval = Duration.ZERO;
+    this.feedContinuously = true;
+    registerExporters(null);
   }
 
   @Override
@@ -31,23 +151,66 @@ public class DataFeedWorker extends Thread {
 
     try {
       isProccessing.set(true);
+      isLoading.set(true);
+      startMetrics();
+      startExporter();
 
       while (isAlive.get()) {
+        lastCycleNanos = System.nanoTime();
         try {
+          long pollDelay = loader.getNextPollDelayMillis();
+          if (pollDelay > 0) {
+            Thread.sleep(Math.min(pollDelay, IDLE_POLL_MILLIS));
+            continue;
+          }
+
+          if (!feedContinuously) {
+            isAlive.set(false);
+          }
+
+          long start = System.nanoTime();
           DataFeedResult dataFeedResult = loader.load();
-          exporter.export(dataFeedResult);
+          lastLoadMillis.set(elapsedMillis(start));
+          loadedBatches.incrementAndGet();
+          if (dataFeedResult.getFeedParameters() != null) {
+            loadedParameters = dataFeedResult.getFeedParameters();
+          }
+
+          if (exportQueue == null) {
+            if (!export(dataFeedResult)) {
+              break;
+            }
+          } else {
+            handOff(dataFeedResult);
+          }
+        } catch (InterruptedException interruptedException) {
+          log.warn("Worker interrupted while processing");
+          Thread.currentThread().interrupt();
+          break;
         } catch (Exception exception) {
           log.error("Worker exception while processing", exception);
         }
       }
 
     } finally {
+      isLoading.set(false);
+      stopExporter();
+      closeExporter();
       loader.stop();
+      stopMetrics();
       isProccessing.set(false);
       log.debug("Processing stopped.");
     }
   }
 
+  /**
+   * Close the exporter of a worker which is not started, e.g. when the application fails to start,
+   * so its threads do not keep the application alive; a started worker closes it once it stops.
+   */
+  public void release() {
+    closeExporter();
+  }
+
   public void shutdown() {
     log.debug("Signal to stop processing ...");
     isAlive.set(false);
@@ -56,4 +219,280 @@ public class DataFeedWorker extends Thread {
   public boolean isProcessing() {
     return isProccessing.get();
   }
+
+  /**
+   * Get how long ago the loading loop last went round; it goes round at least every {@link
+   * #IDLE_POLL_MILLIS} unless a load is stuck.
+   *
+   * @return The time since the last cycle in milliseconds.
+   */
+  public long getMillisSinceLastCycle() {
+    return elapsedMillis(lastCycleNanos);
+  }
+
+  /**
+   * Whether the entity caches completed their first load, so the feed data can be populated.
+   *
+   * @return True once the caches are warm.
+   */
+  public boolean isCachesWarmedUp() {
+    return loader.isCachesWarmedUp();
+  }
+
+  /**
+   * Get the tokens reached by the last loaded batch.
+   *
+   * @return The tokens; null until a batch is loaded.
+   */
+  public DataFeedParameters getLoadedParameters() {
+    return loadedParameters;
+  }
+
+  /**
+   * Get the tokens reached by the last exported batch, i.e. those checkpointed.
+   *
+   * @return The tokens; null until a batch is exported.
+   */
+  public DataFeedParameters getExportedParameters() {
+    return exportedParameters;
+  }
+
+  /**
+   * Get the metrics of the feed, the export latencies included.
+   *
+   * @return The metrics.
+   */
+  public DataFeedMetrics getMetrics() {
+    return metrics;
+  }
+
+  /**
+   * Get the number of batches waiting to be exported.
+   *
+   * @return The export queue depth; always 0 when loading and exporting share a thread.
+   */
+  public int getQueueDepth() {
+    return exportQueue != null ? exportQueue.size() : 0;
+  }
+
+  public long getLoadedBatches() {
+    return loadedBatches.get();
+  }
+
+  public long getExportedBatches() {
+    return exportedBatches.get();
+  }
+
+  /**
+   * Get the duration of the last {@link DataFeedLoader#load()}.
+   *
+   * @return The load stage latency in milliseconds.
+   */
+  public long getLastLoadMillis() {
+    return lastLoadMillis.get();
+  }
+
+  /**
+   * Get how long the last batch waited for room in the export queue.
+   *
+   * @return The producer backpressure wait in milliseconds.
+   */
+  public long getLastHandOffMillis() {
+    return lastHandOffMillis.get();
+  }
+
+  /**
+   * Get the duration of the last {@link Exporter#export(DataFeedResult)}.
+   *
+   * @return The export stage latency in milliseconds.
+   */
+  public long getLastExportMillis() {
+    return lastExportMillis.get();
+  }
+
+  private void handOff(DataFeedResult dataFeedResult) throws InterruptedException {
+    long start = System.nanoTime();
+    exportQueue.put(dataFeedResult);
+    lastHandOffMillis.set(elapsedMillis(start));
+
+    log.debug("Batch loaded in {} ms, queued after {} ms; export queue depth {}",
+        lastLoadMillis.get(), lastHandOffMillis.get(), exportQueue.size());
+  }
+
+  /**
+   * Export a batch, retrying until it is exported or the worker is stopped.
+   *
+   * @return Whether the batch was exported; false when the worker was stopped before.
+   */
+  private boolean export(DataFeedResult dataFeedResult) throws InterruptedException {
+    long retryMillis = EXPORT_RETRY_MIN_MILLIS;
+    while (!tryExport(dataFeedResult)) {
+      if (!isAlive.get()) {
+        log.error("Worker stopped before the failed batch was exported; checkpoint not advanced");
+        return false;
+      }
+      log.warn("Retrying the export of the batch in {} ms", retryMillis);
+      long retryNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(retryMillis);
+      while (isAlive.get() && System.nanoTime() < retryNanos) {
+        Thread.sleep(IDLE_POLL_MILLIS);
+      }
+      retryMillis = Math.min(retryMillis * 2, EXPORT_RETRY_MAX_MILLIS);
+    }
+    return true;
+  }
+
+  private boolean tryExport(DataFeedResult dataFeedResult) {
+    long start = System.nanoTime();
+    try {
+      exporter.export(dataFeedResult);
+    } catch (Exception exception) {
+      log.error("Worker exception while exporting; checkpoint not advanced", exception);
+      return false;
+    } finally {
+      lastExportMillis.set(elapsedMillis(start));
+      exportLatency.recordSince(start);
+    }
+
+    exportedBatches.incrementAndGet();
+    metrics.recordExported(records(dataFeedResult));
+    log.debug("Batch exported in {} ms; export queue depth {}",
+        lastExportMillis.get(), getQueueDepth());
+
+    if (dataFeedResult.getFeedParameters() != null) {
+      exportedParameters = dataFeedResult.getFeedParameters();
+      if (!exporterCheckpoints) {
+        try {
+          checkpointStore.save(dataFeedResult.getFeedParameters());
+        } catch (Exception exception) {
+          // a later batch saves its tokens; until then a restart exports this batch again
+          log.error("Can not save checkpoint", exception);
+        }
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Fill in the tokens not passed on the command line from the last checkpoint.
+   */
+  private void restoreTokens(DataFeedParameters feedParameters) throws Exception {
+    Optional<DataFeedParameters> checkpoint = checkpointStore.load();
+    if (!checkpoint.isPresent()) {
+      return;
+    }
+
+    DataFeedParameters saved = checkpoint.get();
+    if (feedParameters.getLastGpsDataToken() == null) {
+      feedParameters.setLastGpsDataToken(saved.getLastGpsDataToken());
+    }
+    if (feedParameters.getLastStatusDataToken() == null) {
+      feedParameters.setLastStatusDataToken(saved.getLastStatusDataToken());
+    }
+    if (feedParameters.getLastFaultDataToken() == null) {
+      feedParameters.setLastFaultDataToken(saved.getLastFaultDataToken());
+    }
+    if (feedParameters.getLastTripToken() == null) {
+      feedParameters.setLastTripToken(saved.getLastTripToken());
+    }
+    if (feedParameters.getLastExceptionToken() == null) {
+      feedParameters.setLastExceptionToken(saved.getLastExceptionToken());
+    }
+
+    log.info("Resuming data feed from {}", feedParameters);
+  }
+
+  private void startExporter() {
+    if (exportQueue == null) {
+      return;
+    }
+
+    exportThread = new Thread(() -> {
+      log.debug("Exporting ...");
+      try {
+        // drain whatever is left in the queue once loading stopped; once a batch could not be
+        // exported the later ones are dropped, so the loader is not blocked on a full queue
+        boolean exporting = true;
+        int dropped = 0;
+        while (isLoading.get() || !exportQueue.isEmpty()) {
+          DataFeedResult dataFeedResult = exportQueue.poll(EXPORT_POLL_MILLIS,
+              TimeUnit.MILLISECONDS);
+          if (dataFeedResult != null && exporting) {
+            exporting = export(dataFeedResult);
+          } else if (dataFeedResult != null) {
+            dropped++;
+          }
+        }
+        if (dropped > 0) {
+          log.warn("{} batches after the failed one not exported", dropped);
+        }
+      } catch (InterruptedException interruptedException) {
+        log.warn("Exporter interrupted; {} batches not exported", exportQueue.size());
+      }
+      log.debug("Exporting stopped.");
+    }, "data-feed-exporter");
+    exportThread.start();
+  }
+
+  private void stopExporter() {
+    if (exportThread == null) {
+      return;
+    }
+
+    try {
+      exportThread.join();
+    } catch (InterruptedException e) {
+      log.error("Can not join exporter thread");
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void closeExporter() {
+    try {
+      exporter.close();
+    } catch (Exception exception) {
+      log.error("Can not close exporter", exception);
+    }
+  }
+
+  /**
+   * Include the export latencies in the metrics: those of each sink of a composite exporter, as
+   * its own export only queues the batch for them.
+   */
+  private void registerExporters(String exportType) {
+    if (exporter instanceof CompositeExporter) {
+      ((CompositeExporter) exporter).getSinks()
+          .forEach(sink -> metrics.registerExporter(sink.getName(), sink.getExportLatency()));
+    } else {
+      metrics.registerExporter(exportType != null ? exportType : "console", exportLatency);
+    }
+  }
+
+  private void startMetrics() {
+    metrics.register();
+    if (!metricsInterval.isZero()) {
+      metricsReporter = new MetricsReporter(metrics, metricsInterval,
+          metricsFile != null ? Paths.get(metricsFile) : null);
+    }
+  }
+
+  private void stopMetrics() {
+    if (metricsReporter != null) {
+      metricsReporter.close();
+    }
+    metrics.unregister();
+  }
+
+  private static int records(DataFeedResult dataFeedResult) {
+    return size(dataFeedResult.getGpsRecords()) + size(dataFeedResult.getStatusData())
+        + size(dataFeedResult.getFaultData()) + size(dataFeedResult.getTrips())
+        + size(dataFeedResult.getExceptionEvents());
+  }
+
+  private static int size(List<?> data) {
+    return data != null ? data.size() : 0;
+  }
+
+  private static long elapsedMillis(long startNanos) {
+    return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+  }
 }
@@ -0,0 +1,12 @@
+package com.geotab.sdk.importdevices;
+
+import com.geotab.http.response.BaseResponse;
+import com.geotab.model.Id;
+import java.util.List;
+
+/**
+ * The response of an ExecuteMultiCall of Add calls: the id of each entity added, in call order.
+ */
+public class IdListResponse extends BaseResponse<List<Id>> {
+
+}
@@ -5,6 +5,7 @@ import static com.geotab.http.invoker.ServerInvoker.DEFAULT_TIMEOUT;
 import com.geotab.api.GeotabApi;
 import com.geotab.http.exception.DbUnavailableException;
 import com.geotab.http.exception.InvalidUserException;
+import com.geotab.http.exception.OverLimitException;
 import com.geotab.http.request.AuthenticatedRequest;
 import com.geotab.http.request.param.EntityParameters;
 import com.geotab.http.request.param.SearchParameters;
@@ -21,33 +22,80 @@ import com.geotab.model.entity.user.User;
 import com.geotab.model.entity.worktime.WorkTimeStandardHours;
 import com.geotab.model.login.Credentials;
 import com.geotab.model.login.LoginResult;
+import com.geotab.model.search.DeviceSearch;
 import com.geotab.model.search.UserSearch;
+import com.geotab.sdk.common.MultiCallParameters;
+import com.geotab.sdk.common.RateLimitedGeotabApi;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 
+/**
+ * Imports the devices of a csv file.
+ *
+ * <p>The devices are added in batches of Add calls, one ExecuteMultiCall per batch, with several
+ * batches in flight at once; all calls share one rate limiter, so the server does not throttle the
+ * import. A batch which fails is retried device by device, so each row gets its own outcome: the
+ * rows which can not be added are written to a reject file, in the csv layout, to be imported again
+ * once fixed.
+ */
 @Slf4j
 public class ImportDevicesApp {
 
+  private static final int DEFAULT_BATCH_SIZE = 100;
+
+  private static final int DEFAULT_CONCURRENT_BATCHES = 4;
+
+  private static final int DEFAULT_CALLS_PER_MINUTE = 60;
+
+  /**
+   * The attempts of a batch the server throttles, before it is retried device by device.
+   */
+  private static final int OVER_LIMIT_ATTEMPTS = 3;
+
   public static void main(String[] args) throws Exception {
     try {
-      if (args.length != 5) {
+      if (args.length < 5 || args.length > 8) {
         System.out.println("Command line parameters:");
         System.out.println(
             "java -cp 'sdk-java-samples-1.0-SNAPSHOT.jar;./lib/*'"
                 + " com.geotab.sdk.importdevices.ImportDevicesApp"
-                + " 'my.geotab.com' 'database' 'user@email.com' 'password' 'inputFileLocation'");
+                + " 'my.geotab.com' 'database' 'user@email.com' 'password' 'inputFileLocation'"
+                + " ['batchSize'] ['concurrentBatches'] ['callsPerMinute']");
         System.out.println("server             - The server name (Example: my.geotab.com)");
         System.out.println("database           - The database name (Example: G560)");
         System.out.println("username           - The Geotab user name");
         System.out.println("password           - The Geotab password");
         System.out.println("inputFileLocation  - Location of the CSV file to import.");
+        System.out.println("batchSize          - [optional] The devices added per multi-call."
+            + " Defaults to " + DEFAULT_BATCH_SIZE + ".");
+        System.out.println("concurrentBatches  - [optional] The multi-calls in flight at once."
+            + " Defaults to " + DEFAULT_CONCURRENT_BATCHES + ".");
+        System.out.println("callsPerMinute     - [optional] The multi-calls per minute the server"
+            + " allows; kept 10% below. Defaults to " + DEFAULT_CALLS_PER_MINUTE + ".");
         System.exit(1);
       }
 
@@ -57,6 +105,14 @@ public class ImportDevicesApp {
       String username = args[2];
       String password = args[3];
       String filePath = args[4];
+      int batchSize = args.length > 5 ? Integer.parseInt(args[5]) : DEFAULT_BATCH_SIZE;
+      int concurrentBatches =
+          args.length > 6 ? Integer.parseInt(args[6]) : DEFAULT_CONCURRENT_BATCHES;
+      int callsPerMinute = args.length > 7 ? Integer.parseInt(args[7]) : DEFAULT_CALLS_PER_MINUTE;
+      if (batchSize < 1 || concurrentBatches < 1 || callsPerMinute < 1) {
+        log.error("The batch size, concurrent batches and calls per minute must be positive");
+        System.exit(1);
+      }
 
       Credentials credentials = Credentials.builder()
           .database(database)
@@ -70,7 +126,9 @@ public class ImportDevicesApp {
       // Create the Geotab API object used to make calls to the server
       // Note: server name should be the generic server as DBs can be moved without notice.
       // For example; use "my.geotab.com" rather than "my3.geotab.com".
-      try (GeotabApi api = new GeotabApi(credentials, server, DEFAULT_TIMEOUT)) {
+      // The multi-calls, and the Add calls of the batches retried device by device, are limited.
+      try (GeotabApi api = new RateLimitedGeotabApi(credentials, server, DEFAULT_TIMEOUT,
+          ImmutableMap.of("ExecuteMultiCall", callsPerMinute, "Add", callsPerMinute * batchSize))) {
 
         // Authenticate user
         authenticate(api);
@@ -79,7 +137,8 @@ public class ImportDevicesApp {
         User apiUser = getApiUser(api, username);
 
         // Start import
-        importDevices(api, apiUser, deviceEntries);
+        importDevices(api, apiUser, deviceEntries, batchSize, concurrentBatches,
+            rejectFilePath(filePath));
       }
 
     } catch (Exception exception) {
@@ -174,21 +233,35 @@ public class ImportDevicesApp {
     return apiUser;
   }
 
+  private static Path rejectFilePath(String filePath) {
+    Path inputFile = Paths.get(filePath);
+    String fileName = inputFile.getFileName().toString().replaceFirst("(?i)\\.csv$", "");
+    return inputFile.resolveSibling(fileName + "-rejected.csv");
+  }
+
   private static void importDevices(GeotabApi api, User apiUser,
-      List<CsvDeviceEntry> deviceEntries) {
+      List<CsvDeviceEntry> deviceEntries, int batchSize, int concurrentBatches,
+      Path rejectFilePath) {
     log.debug("Start importing devices ...");
 
+    List<RowResult> rejects = new ArrayList<>();
+    List<PendingDevice> pendingDevices = new ArrayList<>();
+    int existing = 0;
+
     try {
-      List<Device> existingDevices = getExistingDevices(api);
+      // Serial numbers of the existing devices, and of the rows added so far.
+      Set<String> serialNumbers = getExistingDevices(api).stream()
+          .map(Device::getSerialNumber)
+          .collect(Collectors.toCollection(HashSet::new));
       List<Group> existingGroups = getExistingGroups(api);
 
       // We only want to be able to assign Org Group if the API user has this in their scope.
       boolean hasOrgGroupScope = apiUser.getCompanyGroups().stream()
           .anyMatch(group -> group instanceof CompanyGroup || group instanceof RootGroup);
 
-      // Add devices
+      // Create the devices
       for (CsvDeviceEntry deviceEntry : deviceEntries) {
-        boolean deviceRejected = false;
+        String rejectReason = null;
         List<Group> deviceGroups = new ArrayList<>();
 
         // A devices and nodes have a many to many relationship.
@@ -214,9 +287,7 @@ public class ImportDevicesApp {
             Optional<Group> existingGroup = findGroup(existingGroups, groupName);
 
             if (!existingGroup.isPresent()) {
-              log.warn("Device Rejected - {} . Group {} does not exist.",
-                  deviceEntry.getDescription(), groupName);
-              deviceRejected = true;
+              rejectReason = "Group " + groupName + " does not exist";
               break;
             }
 
@@ -226,59 +297,240 @@ public class ImportDevicesApp {
         }
 
         // If the device is rejected, move on the the next device row.
-        if (deviceRejected) {
+        if (rejectReason != null) {
+          log.warn("Device Rejected - {} . {}.", deviceEntry.getDescription(), rejectReason);
+          rejects.add(RowResult.rejected(deviceEntry, rejectReason));
           continue;
         }
 
-        // Check for an existing device.
-        boolean deviceExists = existingDevices
-            .stream()
-            .anyMatch(device -> device.getSerialNumber()
-                .equals(deviceEntry.getSerialNumber().replace("-", "")));
-        if (deviceExists) {
+        // Check for an existing device, or one earlier in the file.
+        String serialNumber = deviceEntry.getSerialNumber().replace("-", "");
+        if (!serialNumbers.add(serialNumber)) {
           log.warn("Device already exists - {} . Ignoring it.", deviceEntry.getDescription());
+          existing++;
           continue;
         }
 
         try {
           // Create the device object.
           Device newDevice = Device.fromSerialNumber(deviceEntry.getSerialNumber());
-          newDevice.setSerialNumber(deviceEntry.getSerialNumber().replace("-", ""));
+          newDevice.setSerialNumber(serialNumber);
           newDevice.populateDefaults();
           newDevice.setName(deviceEntry.getDescription());
           newDevice.setGroups(deviceGroups);
           newDevice.setWorkTime(new WorkTimeStandardHours());
+          pendingDevices.add(new PendingDevice(deviceEntry, newDevice));
+        } catch (Exception exception) {
+          // Catch and display any error that occur when creating the device, e.g. a bad serial
+          log.warn("Device Rejected - {} . {}", deviceEntry.getDescription(),
+              exception.getMessage());
+          rejects.add(RowResult.rejected(deviceEntry, exception.getMessage()));
+        }
+      }
+    } catch (Exception exception) {
+      log.error("Failed to get import devices", exception);
+      System.exit(1);
+    }
 
-          // Add the device.
-          AuthenticatedRequest<?> request = AuthenticatedRequest.authRequestBuilder()
-              .method("Add")
-              .params(EntityParameters.entityParamsBuilder()
-                  .typeName("Device")
-                  .entity(newDevice)
-                  .build())
-              .build();
+    // Add the devices, batch by batch
+    List<List<PendingDevice>> batches = Lists.partition(pendingDevices, batchSize);
+    log.info("Adding {} devices in {} batches of up to {}, {} at once ...",
+        pendingDevices.size(), batches.size(), batchSize, concurrentBatches);
+
+    ExecutorService executor = Executors.newFixedThreadPool(concurrentBatches,
+        new ThreadFactoryBuilder().setNameFormat("import-devices-%d").setDaemon(true).build());
+    int added = 0;
+    try {
+      List<Future<List<RowResult>>> batchResults = new ArrayList<>();
+      for (List<PendingDevice> batch : batches) {
+        batchResults.add(executor.submit(() -> addBatch(api, batch)));
+      }
 
-          Optional<Id> response = api.call(request, IdResponse.class);
+      // Report the rows in file order, as their batches complete
+      boolean interrupted = false;
+      for (int i = 0; i < batches.size(); i++) {
+        List<RowResult> rowResults;
+        try {
+          rowResults = interrupted ? rejectBatch(batches.get(i), "import interrupted")
+              : batchResults.get(i).get();
+        } catch (InterruptedException exception) {
+          log.error("Import interrupted; the remaining devices are rejected");
+          Thread.currentThread().interrupt();
+          interrupted = true;
+          rowResults = rejectBatch(batches.get(i), "import interrupted");
+        } catch (ExecutionException exception) {
+          log.error("Failed to import a batch of devices", exception.getCause());
+          rowResults = rejectBatch(batches.get(i), String.valueOf(exception.getCause()));
+        }
 
-          if (response.isPresent()) {
-            log.info("Device {} added with id {} .",
-                deviceEntry.getDescription(), response.get().getId());
+        for (RowResult rowResult : rowResults) {
+          if (rowResult.getId() != null) {
+            log.info("Device {} added with id {} .", rowResult.getEntry().getDescription(),
+                rowResult.getId());
+            added++;
           } else {
-            log.warn("Device {} not added; no id returned", deviceEntry.getDescription());
+            log.error("Failed to import device {} : {}", rowResult.getEntry().getDescription(),
+                rowResult.getReason());
+            rejects.add(rowResult);
           }
-        } catch (Exception exception) {
-          // Catch and display any error that occur when adding the device
-          log.error("Failed to import device {}", deviceEntry.getDescription(), exception);
         }
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    log.info("Devices imported: {} added, {} already existing, {} rejected.", added, existing,
+        rejects.size());
+    if (!rejects.isEmpty()) {
+      writeRejects(rejectFilePath, rejects);
+    }
+  }
+
+  /**
+   * Add a batch of devices with one ExecuteMultiCall. Should the multi-call fail, the devices are
+   * added one by one to find out which of them can not be added.
+   *
+   * @param api   The API.
+   * @param batch The devices.
+   * @return The result of each device, in batch order.
+   */
+  private static List<RowResult> addBatch(GeotabApi api, List<PendingDevice> batch)
+      throws InterruptedException {
+    MultiCallParameters.MultiCallParametersBuilder params =
+        MultiCallParameters.multiCallParamsBuilder();
+    for (PendingDevice pendingDevice : batch) {
+      params.call(new MultiCallParameters.Call("Add", addDeviceParams(pendingDevice)));
+    }
+    AuthenticatedRequest<?> request = AuthenticatedRequest.authRequestBuilder()
+        .method("ExecuteMultiCall")
+        .params(params.build())
+        .build();
+
+    // whether the devices before a failing call of the multi-call may have been added
+    boolean partiallyAdded = false;
+    for (int attempt = 1; ; attempt++) {
+      try {
+        List<Id> ids = api.call(request, IdListResponse.class).orElse(new ArrayList<>());
+        if (ids.size() == batch.size()) {
+          List<RowResult> results = new ArrayList<>(batch.size());
+          for (int i = 0; i < batch.size(); i++) {
+            results.add(RowResult.added(batch.get(i).getEntry(), ids.get(i).getId()));
+          }
+          return results;
+        }
+        log.warn("Batch of {} devices returned {} ids; adding them one by one", batch.size(),
+            ids.size());
+        partiallyAdded = true;
+        break;
+      } catch (OverLimitException exception) {
+        // throttled before any device was added; the rate limiter has slowed down meanwhile
+        if (attempt == OVER_LIMIT_ATTEMPTS) {
+          log.warn("Batch of {} devices throttled {} times; adding them one by one",
+              batch.size(), attempt);
+          break;
+        }
+        TimeUnit.SECONDS.sleep(attempt * 10L);
+      } catch (Exception exception) {
+        log.warn("Batch of {} devices failed: {}; adding them one by one", batch.size(),
+            exception.getMessage());
+        partiallyAdded = true;
+        break;
+      }
+    }
+
+    List<RowResult> results = new ArrayList<>(batch.size());
+    for (PendingDevice pendingDevice : batch) {
+      RowResult result = addDevice(api, pendingDevice);
+      if (result.getId() == null && partiallyAdded) {
+        // The calls before the failing one were added, and now fail as duplicates.
+        result = findAddedDevice(api, pendingDevice).orElse(result);
+      }
+      results.add(result);
+    }
+    return results;
+  }
+
+  /**
+   * Look up a device of a failed multi-call by its serial number. As the existing serial numbers
+   * were skipped before adding, a device found was added by the multi-call.
+   *
+   * @return The result of the device if it was added.
+   */
+  private static Optional<RowResult> findAddedDevice(GeotabApi api, PendingDevice pendingDevice) {
+    try {
+      AuthenticatedRequest<?> request = AuthenticatedRequest.authRequestBuilder()
+          .method("Get")
+          .params(SearchParameters.searchParamsBuilder()
+              .search(DeviceSearch.builder()
+                  .serialNumber(pendingDevice.getDevice().getSerialNumber())
+                  .build())
+              .typeName("Device")
+              .resultsLimit(1)
+              .build())
+          .build();
 
+      Optional<List<Device>> devices = api.call(request, DeviceListResponse.class);
+      if (devices.isPresent() && !devices.get().isEmpty()) {
+        return Optional.of(RowResult.added(pendingDevice.getEntry(),
+            devices.get().get(0).getId().getId()));
       }
+    } catch (Exception exception) {
+      log.warn("Can not look up device {}", pendingDevice.getEntry().getDescription(), exception);
+    }
+    return Optional.empty();
+  }
+
+  private static List<RowResult> rejectBatch(List<PendingDevice> batch, String reason) {
+    return batch.stream()
+        .map(pendingDevice -> RowResult.rejected(pendingDevice.getEntry(), reason))
+        .collect(Collectors.toList());
+  }
+
+  private static RowResult addDevice(GeotabApi api, PendingDevice pendingDevice) {
+    try {
+      AuthenticatedRequest<?> request = AuthenticatedRequest.authRequestBuilder()
+          .method("Add")
+          .params(addDeviceParams(pendingDevice))
+          .build();
 
-      log.info("Devices imported.");
+      Optional<Id> response = api.call(request, IdResponse.class);
+      return response.isPresent()
+          ? RowResult.added(pendingDevice.getEntry(), response.get().getId())
+          : RowResult.rejected(pendingDevice.getEntry(), "no id returned");
     } catch (Exception exception) {
-      log.error("Failed to get import devices", exception);
-      System.exit(1);
+      return RowResult.rejected(pendingDevice.getEntry(), exception.getMessage());
     }
+  }
 
+  private static EntityParameters addDeviceParams(PendingDevice pendingDevice) {
+    return EntityParameters.entityParamsBuilder()
+        .typeName("Device")
+        .entity(pendingDevice.getDevice())
+        .build();
+  }
+
+  /**
+   * Write the rejected rows in the csv layout, each preceded by its reason as a comment, so the
+   * file can be imported again once the rows are fixed.
+   */
+  private static void writeRejects(Path rejectFilePath, List<RowResult> rejects) {
+    try (BufferedWriter writer = Files.newBufferedWriter(rejectFilePath,
+        StandardCharsets.UTF_8)) {
+      writer.write("# Structure: <description>, <serialNumber>, <group1|group2>, <vin>");
+      writer.newLine();
+      for (RowResult reject : rejects) {
+        CsvDeviceEntry entry = reject.getEntry();
+        writer.write("# " + String.valueOf(reject.getReason()).replaceAll("[\\r\\n]+", " "));
+        writer.newLine();
+        writer.write(String.join(",", entry.getDescription(), entry.getSerialNumber(),
+            StringUtils.defaultString(entry.getNodeName()),
+            StringUtils.defaultString(entry.getVin())));
+        writer.newLine();
+      }
+      log.info("Rejected rows written to {}", rejectFilePath);
+    } catch (IOException exception) {
+      log.error("Failed to write the rejected rows to {}", rejectFilePath, exception);
+    }
   }
 
   private static List<Device> getExistingDevices(GeotabApi api) {
@@ -328,4 +580,38 @@ public class ImportDevicesApp {
 
     return Optional.empty();
   }
+
+  /**
+   * A row to add, with its device.
+   */
+  @Getter
+  @AllArgsConstructor
+  private static class PendingDevice {
+
+    private final CsvDeviceEntry entry;
+
+    private final Device device;
+  }
+
+  /**
+   * The outcome of a row: the id of the device added, or why it was not.
+   */
+  @Getter
+  @AllArgsConstructor(access = AccessLevel.PRIVATE)
+  private static class RowResult {
+
+    private final CsvDeviceEntry entry;
+
+    private final String id;
+
+    private final String reason;
+
+    private static RowResult added(CsvDeviceEntry entry, String id) {
+      return new RowResult(entry, id, null);
+    }
+
+    private static RowResult rejected(CsvDeviceEntry entry, String reason) {
+      return new RowResult(entry, null, reason);
+    }
+  }
 }
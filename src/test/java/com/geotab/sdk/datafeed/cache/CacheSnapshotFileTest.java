@@ -0,0 +1,115 @@
+package com.geotab.sdk.datafeed.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.geotab.model.Id;
+import com.geotab.model.entity.device.Device;
+import com.geotab.model.entity.device.GoDevice;
+import com.geotab.model.entity.user.Driver;
+import com.geotab.model.entity.user.Key;
+import com.geotab.model.entity.user.User;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class CacheSnapshotFileTest {
+
+  private static final Instant LOAD_TIME = Instant.ofEpochMilli(1_600_000_000_000L);
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void subclassesAreReadBackWithTheirFields() throws Exception {
+    Device device = new Device();
+    device.setId(new Id("b1"));
+    device.setName("Trailer");
+    device.setSerialNumber("000-000-0001");
+    GoDevice goDevice = new GoDevice();
+    goDevice.setId(new Id("b2"));
+    goDevice.setName("Truck");
+    goDevice.setSerialNumber("GT8000000002");
+    goDevice.setVehicleIdentificationNumber("1FUJGBDV8CLBP8834");
+    Path file = directory.resolve("Device.json.gz");
+
+    CacheSnapshotFile.write(file, LOAD_TIME, "0000000000000abc", Arrays.asList(device, goDevice));
+    CacheSnapshotFile.Contents<Device> contents = CacheSnapshotFile.read(file, Device.class);
+
+    assertEquals(LOAD_TIME, contents.getLoadTime());
+    assertEquals("0000000000000abc", contents.getChangeVersion());
+    assertEquals(2, contents.getEntities().size());
+    Device readDevice = contents.getEntities().get(0);
+    assertEquals(Device.class, readDevice.getClass());
+    assertEquals("b1", readDevice.getId().getId());
+    assertEquals("Trailer", readDevice.getName());
+    assertEquals("000-000-0001", readDevice.getSerialNumber());
+    assertEquals(GoDevice.class, contents.getEntities().get(1).getClass());
+    GoDevice readGoDevice = (GoDevice) contents.getEntities().get(1);
+    assertEquals("b2", readGoDevice.getId().getId());
+    assertEquals("GT8000000002", readGoDevice.getSerialNumber());
+    assertEquals("1FUJGBDV8CLBP8834", readGoDevice.getVehicleIdentificationNumber());
+  }
+
+  @Test
+  void nestedValuesAreReadBack() throws Exception {
+    Key key = new Key();
+    key.setSerialNumber("0123456789");
+    Driver driver = new Driver();
+    driver.setId(new Id("b3"));
+    driver.setName("driver@example.com");
+    driver.setKeys(Collections.singletonList(key));
+    Path file = directory.resolve("Driver.json.gz");
+
+    CacheSnapshotFile.write(file, LOAD_TIME, null, Collections.singletonList(driver));
+    CacheSnapshotFile.Contents<Driver> contents = CacheSnapshotFile.read(file, Driver.class);
+
+    assertNull(contents.getChangeVersion());
+    Driver readDriver = contents.getEntities().get(0);
+    assertEquals("driver@example.com", readDriver.getName());
+    assertEquals(1, readDriver.getKeys().size());
+    assertEquals("0123456789", readDriver.getKeys().get(0).getSerialNumber());
+  }
+
+  @Test
+  void writeReplacesPreviousSnapshot() throws Exception {
+    Path file = directory.resolve("Device.json.gz");
+    CacheSnapshotFile.write(file, LOAD_TIME, "1", Collections.singletonList(new Device()));
+
+    CacheSnapshotFile.write(file, LOAD_TIME.plusSeconds(60), "2", Collections.emptyList());
+    CacheSnapshotFile.Contents<Device> contents = CacheSnapshotFile.read(file, Device.class);
+
+    assertEquals(LOAD_TIME.plusSeconds(60), contents.getLoadTime());
+    assertEquals("2", contents.getChangeVersion());
+    assertEquals(0, contents.getEntities().size());
+    try (Stream<Path> files = Files.list(directory)) {
+      assertEquals(1, files.count());
+    }
+  }
+
+  @Test
+  void entitiesOfAnotherTypeAreRejected() throws Exception {
+    User user = new User();
+    user.setId(new Id("b4"));
+    Path file = directory.resolve("User.json.gz");
+    CacheSnapshotFile.write(file, LOAD_TIME, null, Collections.singletonList(user));
+
+    assertThrows(IOException.class, () -> CacheSnapshotFile.read(file, Device.class));
+  }
+
+  @Test
+  void fileWhichIsNotSnapshotIsRejected() throws Exception {
+    Path file = directory.resolve("Device.json.gz");
+    Files.write(file, "{}".getBytes(StandardCharsets.UTF_8));
+
+    assertThrows(IOException.class, () -> CacheSnapshotFile.read(file, Device.class));
+  }
+}
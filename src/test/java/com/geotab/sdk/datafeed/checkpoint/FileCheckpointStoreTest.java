@@ -0,0 +1,97 @@
+package com.geotab.sdk.datafeed.checkpoint;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import com.geotab.sdk.datafeed.loader.DataFeedParameters;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class FileCheckpointStoreTest {
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void loadWithoutCheckpointIsEmpty() throws Exception {
+    FileCheckpointStore store = new FileCheckpointStore(checkpointFile().toString());
+
+    assertFalse(store.load().isPresent());
+  }
+
+  @Test
+  void savedTokensAreLoadedBack() throws Exception {
+    DataFeedParameters tokens = DataFeedParameters.builder()
+        .lastGpsDataToken("1")
+        .lastStatusDataToken("2")
+        .lastFaultDataToken("3")
+        .lastTripToken("4")
+        .lastExceptionToken("5")
+        .build();
+
+    new FileCheckpointStore(checkpointFile().toString()).save(tokens);
+
+    assertEquals(tokens, new FileCheckpointStore(checkpointFile().toString()).load().get());
+  }
+
+  @Test
+  void tokensNotSavedAreLoadedAsNull() throws Exception {
+    FileCheckpointStore store = new FileCheckpointStore(checkpointFile().toString());
+    store.save(DataFeedParameters.builder().lastTripToken("4").build());
+
+    DataFeedParameters loaded = store.load().get();
+
+    assertEquals("4", loaded.getLastTripToken());
+    assertNull(loaded.getLastGpsDataToken());
+    assertNull(loaded.getLastExceptionToken());
+  }
+
+  @Test
+  void saveReplacesExistingCheckpoint() throws Exception {
+    FileCheckpointStore store = new FileCheckpointStore(checkpointFile().toString());
+    store.save(DataFeedParameters.builder().lastGpsDataToken("1").lastTripToken("4").build());
+
+    store.save(DataFeedParameters.builder().lastGpsDataToken("10").build());
+
+    assertEquals(DataFeedParameters.builder().lastGpsDataToken("10").build(),
+        store.load().get());
+    assertNoTempFiles();
+  }
+
+  @Test
+  void saveReplacesFileNotWrittenByStore() throws Exception {
+    Files.write(checkpointFile(), "lastGpsDataToken=1\ngarbage".getBytes(StandardCharsets.UTF_8));
+    FileCheckpointStore store = new FileCheckpointStore(checkpointFile().toString());
+
+    store.save(DataFeedParameters.builder().lastStatusDataToken("2").build());
+
+    assertEquals(DataFeedParameters.builder().lastStatusDataToken("2").build(),
+        store.load().get());
+    assertNoTempFiles();
+  }
+
+  @Test
+  void saveCreatesMissingDirectories() throws Exception {
+    Path checkpointFile = directory.resolve("nested").resolve("checkpoint.properties");
+    FileCheckpointStore store = new FileCheckpointStore(checkpointFile.toString());
+
+    store.save(DataFeedParameters.builder().lastFaultDataToken("3").build());
+
+    assertEquals("3", store.load().get().getLastFaultDataToken());
+  }
+
+  private Path checkpointFile() {
+    return directory.resolve("checkpoint.properties");
+  }
+
+  private void assertNoTempFiles() throws Exception {
+    try (Stream<Path> files = Files.list(directory)) {
+      assertEquals(1, files.count());
+    }
+  }
+}
@@ -0,0 +1,202 @@
+package com.geotab.sdk.datafeed.exporter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.geotab.sdk.datafeed.checkpoint.CheckpointStore;
+import com.geotab.sdk.datafeed.loader.DataFeedParameters;
+import com.geotab.sdk.datafeed.loader.DataFeedResult;
+import com.google.common.collect.ImmutableMap;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Test;
+
+class CompositeExporterTest {
+
+  private static final long TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(20);
+
+  private final RecordingCheckpointStore checkpointStore = new RecordingCheckpointStore();
+
+  @Test
+  void checkpointIsSavedOnceAllSinksExported() throws Exception {
+    RecordingSink fast = new RecordingSink();
+    RecordingSink slow = new RecordingSink();
+    slow.blocked = new CountDownLatch(1);
+    CompositeExporter exporter = exporter(fast, slow);
+    checkpointStore.sinks = Arrays.asList(fast, slow);
+
+    exporter.export(batch("1"));
+    exporter.export(batch("2"));
+    waitUntil(() -> fast.exported.size() == 2);
+    assertEquals(Collections.emptyList(), checkpointStore.saved);
+
+    slow.blocked.countDown();
+    waitUntil(() -> checkpointStore.saved.contains("2"));
+    exporter.close();
+
+    assertEquals(Arrays.asList("1", "2"), slow.exported);
+    assertEquals("2", checkpointStore.saved.get(checkpointStore.saved.size() - 1));
+  }
+
+  @Test
+  void failedBatchIsRetriedBeforeItsCheckpointIsSaved() throws Exception {
+    RecordingSink healthy = new RecordingSink();
+    RecordingSink failing = new RecordingSink();
+    failing.failures.add("1");
+    CompositeExporter exporter = exporter(healthy, failing);
+    checkpointStore.sinks = Arrays.asList(healthy, failing);
+
+    exporter.export(batch("1"));
+    waitUntil(() -> checkpointStore.saved.contains("1"));
+    exporter.close();
+
+    assertEquals(Collections.singletonList("1"), failing.failed);
+    assertEquals(Collections.singletonList("1"), failing.exported);
+    assertEquals(1, exporter.getSinks().get(1).getFailedBatches());
+  }
+
+  @Test
+  void checkpointNeverPassesFailedSink() throws Exception {
+    RecordingSink healthy = new RecordingSink();
+    RecordingSink failing = new RecordingSink();
+    failing.failAlways = "2";
+    CompositeExporter exporter = exporter(healthy, failing);
+    checkpointStore.sinks = Arrays.asList(healthy, failing);
+
+    exporter.export(batch("1"));
+    exporter.export(batch("2"));
+    exporter.export(batch("3"));
+    waitUntil(() -> checkpointStore.saved.contains("1") && healthy.exported.size() == 3
+        && !failing.failed.isEmpty());
+    exporter.close();
+
+    // the failing sink gives up on its batch once closed, and does not export the later one
+    assertEquals(Collections.singletonList("1"), checkpointStore.saved);
+    assertEquals(Collections.singletonList("1"), failing.exported);
+    assertThrows(IllegalStateException.class, () -> exporter.export(batch("4")));
+  }
+
+  @Test
+  void everySinkIsClosedWhenInterrupted() throws Exception {
+    RecordingSink stuck = new RecordingSink();
+    stuck.blocked = new CountDownLatch(1);
+    RecordingSink other = new RecordingSink();
+    CompositeExporter exporter = exporter(stuck, other);
+    exporter.export(batch("1"));
+    waitUntil(() -> other.exported.size() == 1);
+
+    AtomicReference<Exception> closeException = new AtomicReference<>();
+    Thread closing = new Thread(() -> {
+      try {
+        exporter.close();
+      } catch (Exception exception) {
+        closeException.set(exception);
+      }
+    });
+    closing.start();
+    Thread.sleep(100);
+    closing.interrupt();
+    closing.join(TIMEOUT_MILLIS);
+
+    assertTrue(closeException.get() instanceof InterruptedIOException);
+    assertTrue(stuck.closed);
+    assertTrue(other.closed);
+    assertEquals(Collections.emptyList(), checkpointStore.saved);
+  }
+
+  private CompositeExporter exporter(RecordingSink first, RecordingSink second) {
+    return new CompositeExporter(ImmutableMap.of("first", first, "second", second),
+        checkpointStore, 4);
+  }
+
+  private static DataFeedResult batch(String token) {
+    return DataFeedResult.builder()
+        .feedParameters(DataFeedParameters.builder().lastGpsDataToken(token).build())
+        .build();
+  }
+
+  private static void waitUntil(Condition condition) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+    while (!condition.isMet() && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    assertTrue(condition.isMet(), "Timed out");
+  }
+
+  private interface Condition {
+
+    boolean isMet();
+  }
+
+  /**
+   * Records the exported tokens; waits for a latch before exporting, and fails the export of a
+   * token once per listed failure, or always.
+   */
+  private static class RecordingSink implements Exporter {
+
+    private volatile CountDownLatch blocked;
+
+    private final List<String> failures = new CopyOnWriteArrayList<>();
+
+    private volatile String failAlways;
+
+    private final List<String> failed = new CopyOnWriteArrayList<>();
+
+    private final List<String> exported = new CopyOnWriteArrayList<>();
+
+    private volatile boolean closed;
+
+    @Override
+    public void export(DataFeedResult dataFeedResult) throws Exception {
+      if (blocked != null) {
+        blocked.await();
+      }
+      String token = dataFeedResult.getFeedParameters().getLastGpsDataToken();
+      if (token.equals(failAlways) || failures.remove(token)) {
+        failed.add(token);
+        throw new IOException("Export of " + token + " failed");
+      }
+      exported.add(token);
+    }
+
+    @Override
+    public void close() {
+      closed = true;
+    }
+  }
+
+  /**
+   * Records the saved tokens, checking each was exported by every sink.
+   */
+  private static class RecordingCheckpointStore implements CheckpointStore {
+
+    private volatile List<RecordingSink> sinks = Collections.emptyList();
+
+    private final List<String> saved = new CopyOnWriteArrayList<>();
+
+    @Override
+    public Optional<DataFeedParameters> load() {
+      return Optional.empty();
+    }
+
+    @Override
+    public void save(DataFeedParameters dataFeedParameters) {
+      String token = dataFeedParameters.getLastGpsDataToken();
+      for (RecordingSink sink : sinks) {
+        if (!sink.exported.contains(token)) {
+          throw new IllegalStateException("Checkpoint " + token + " saved before its export");
+        }
+      }
+      saved.add(token);
+    }
+  }
+}
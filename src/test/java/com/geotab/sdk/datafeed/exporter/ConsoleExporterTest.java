@@ -0,0 +1,125 @@
+package com.geotab.sdk.datafeed.exporter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.geotab.sdk.datafeed.loader.DataFeedResult;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class ConsoleExporterTest {
+
+  @ParameterizedTest
+  @ValueSource(doubles = {0, -0.0, 43.5, 1.0005, -1.0005, 0.0004, -0.0004, 0.0005, -0.0005,
+      123.4565, -123.4565, 2.675, 1.0045, 179.9995, -179.9995, 45.123456789, 1e-9, 1e12, -1e12,
+      Double.MIN_VALUE, Double.MAX_VALUE})
+  void roundsAsBefore(double value) {
+    for (int places = 0; places <= 8; places++) {
+      assertRoundsAsBefore(value, places);
+    }
+  }
+
+  @Test
+  void roundsRandomCoordinatesAsBefore() {
+    Random random = new Random(42);
+    for (int i = 0; i < 100_000; i++) {
+      assertRoundsAsBefore(random.nextDouble() * 360 - 180, 3);
+      // decimals ending with a 5, just after the rounding place
+      assertRoundsAsBefore((random.nextInt(3_600_000) - 1_800_000) / 10_000.0 + 0.00005, 3);
+      assertRoundsAsBefore((random.nextInt(3_600_000) - 1_800_000) / 10_000.0, 3);
+    }
+  }
+
+  @Test
+  void keepsNanAndInfinity() {
+    assertEquals(Double.NaN, ConsoleExporter.round(Double.NaN, 3));
+    assertEquals(Double.POSITIVE_INFINITY, ConsoleExporter.round(Double.POSITIVE_INFINITY, 3));
+    assertEquals(Double.NEGATIVE_INFINITY, ConsoleExporter.round(Double.NEGATIVE_INFINITY, 3));
+  }
+
+  @Test
+  void exportReturnsOncePrinted() throws Exception {
+    SlowWriter writer = new SlowWriter();
+    ConsoleExporter exporter = new ConsoleExporter(writer);
+    try {
+      exporter.export(new DataFeedResult());
+
+      assertTrue(writer.flushed);
+      assertEquals(System.getProperty("line.separator"), writer.toString());
+    } finally {
+      exporter.close();
+    }
+  }
+
+  @Test
+  void exportFailsWhenNotPrinted() throws Exception {
+    ConsoleExporter exporter = new ConsoleExporter(new FailingWriter());
+    try {
+      assertThrows(IOException.class, () -> exporter.export(new DataFeedResult()));
+    } finally {
+      exporter.close();
+    }
+  }
+
+  @Test
+  void exportFailsOnceClosed() throws Exception {
+    ConsoleExporter exporter = new ConsoleExporter(new StringWriter());
+    exporter.close();
+
+    assertThrows(IllegalStateException.class, () -> exporter.export(new DataFeedResult()));
+  }
+
+  private static void assertRoundsAsBefore(double value, int places) {
+    assertEquals(Double.toString(baselineRound(value, places)),
+        Double.toString(ConsoleExporter.round(value, places)), value + " to " + places);
+  }
+
+  /**
+   * The rounding the exporter printed with before it avoided {@link BigDecimal}.
+   */
+  private static double baselineRound(double value, int places) {
+    BigDecimal bigDecimal = new BigDecimal(Double.toString(value));
+    bigDecimal = bigDecimal.setScale(places, RoundingMode.HALF_UP);
+    return bigDecimal.doubleValue();
+  }
+
+  private static class SlowWriter extends StringWriter {
+
+    private volatile boolean flushed;
+
+    @Override
+    public void flush() {
+      try {
+        Thread.sleep(200);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      super.flush();
+      flushed = true;
+    }
+  }
+
+  private static class FailingWriter extends Writer {
+
+    @Override
+    public void write(char[] chars, int offset, int length) throws IOException {
+      throw new IOException("Standard output closed");
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void close() {
+    }
+  }
+}
@@ -0,0 +1,90 @@
+package com.geotab.sdk.datafeed.exporter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.StringWriter;
+import org.apache.commons.text.StringEscapeUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class CsvRowEncoderTest {
+
+  @ParameterizedTest
+  @ValueSource(strings = {"", "plain", "a,b", "say \"hi\"", "\"", "line\nbreak", "carriage\rreturn",
+      "crlf\r\n", ",", " leading and trailing ", "tab\tseparated", "ünïcödé"})
+  void escapesFieldsAsStringEscapeUtils(String value) throws Exception {
+    assertEquals(StringEscapeUtils.escapeCsv(value), encode(new CsvRowEncoder().field(value)));
+  }
+
+  @Test
+  void separatesFieldsWithCommas() throws Exception {
+    CsvRowEncoder encoder = new CsvRowEncoder()
+        .field("a,b")
+        .field((CharSequence) null)
+        .field(1.5)
+        .field(42L)
+        .field(7)
+        .field(2.5f)
+        .field((Number) null)
+        .field(Boolean.TRUE);
+
+    assertEquals("\"a,b\",,1.5,42,7,2.5,,true", encode(encoder));
+  }
+
+  @Test
+  void replacesCommasWhenAsked() throws Exception {
+    CsvRowEncoder encoder = new CsvRowEncoder().fieldWithoutCommas("Smith, \"Jo\"").field("x");
+
+    assertEquals("\"Smith  \"\"Jo\"\"\",x", encode(encoder));
+  }
+
+  @Test
+  void escapesFieldBuiltFromParts() throws Exception {
+    CsvRowEncoder encoder = new CsvRowEncoder()
+        .field("first")
+        .startField()
+        .append("a", false)
+        .append(null, false)
+        .append("\"b\",c", false)
+        .endField();
+
+    assertEquals("first,\"a\"\"b\"\",c\"", encode(encoder));
+  }
+
+  @Test
+  void startsNextRowAfterWrite() throws Exception {
+    CsvRowEncoder encoder = new CsvRowEncoder().field("a").field("b");
+    StringWriter writer = new StringWriter();
+
+    assertEquals(3, encoder.writeTo(writer));
+    encoder.field("c").writeTo(writer);
+
+    assertEquals("a,bc", writer.toString());
+  }
+
+  @Test
+  void dropsRowOnReset() throws Exception {
+    CsvRowEncoder encoder = new CsvRowEncoder().field("half");
+    encoder.reset();
+
+    assertEquals("whole", encode(encoder.field("whole")));
+  }
+
+  @Test
+  void writesRowLongerThanItsBuffer() throws Exception {
+    StringBuilder value = new StringBuilder();
+    for (int i = 0; i < 1000; i++) {
+      value.append("x,");
+    }
+
+    assertEquals(StringEscapeUtils.escapeCsv(value.toString()),
+        encode(new CsvRowEncoder().field(value)));
+  }
+
+  private static String encode(CsvRowEncoder encoder) throws Exception {
+    StringWriter writer = new StringWriter();
+    encoder.writeTo(writer);
+    return writer.toString();
+  }
+}
@@ -0,0 +1,149 @@
+package com.geotab.sdk.datafeed.exporter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.geotab.model.Id;
+import com.geotab.model.entity.device.Device;
+import com.geotab.model.entity.logrecord.LogRecord;
+import com.geotab.sdk.datafeed.loader.DataFeedParameters;
+import com.geotab.sdk.datafeed.loader.DataFeedResult;
+import com.google.common.base.Strings;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class JdbcExporterTest {
+
+  @TempDir
+  Path directory;
+
+  private String jdbcUrl;
+
+  private JdbcExporter exporter;
+
+  @BeforeEach
+  void setUp() {
+    jdbcUrl = "jdbc:h2:" + directory.resolve("feed");
+    exporter = new JdbcExporter(jdbcUrl);
+  }
+
+  @AfterEach
+  void tearDown() throws Exception {
+    exporter.close();
+  }
+
+  @Test
+  void batchIsCommittedWithItsTokens() throws Exception {
+    // two full multi-row inserts and a remainder
+    exporter.export(batch(logRecords(250), "1"));
+
+    assertEquals(250, gpsRows());
+    assertEquals("1", exporter.load().get().getLastGpsDataToken());
+  }
+
+  @Test
+  void tokensAreLoadedAfterReopening() throws Exception {
+    exporter.export(batch(logRecords(1), "1"));
+    exporter.close();
+
+    exporter = new JdbcExporter(jdbcUrl);
+
+    assertEquals("1", exporter.load().get().getLastGpsDataToken());
+  }
+
+  @Test
+  void noTokensBeforeFirstExport() throws Exception {
+    assertFalse(exporter.load().isPresent());
+  }
+
+  @Test
+  void failedCheckpointRollsBackTheRows() throws Exception {
+    exporter.export(batch(logRecords(10), "1"));
+
+    // the token does not fit its column, so the checkpoint fails once the rows are inserted
+    assertThrows(SQLException.class,
+        () -> exporter.export(batch(logRecords(150), Strings.repeat("2", 100))));
+
+    assertEquals(10, gpsRows());
+    assertEquals("1", exporter.load().get().getLastGpsDataToken());
+  }
+
+  @Test
+  void failedBatchLeavesNoPendingInserts() throws Exception {
+    // the record without a device fails while the remainder rows before it are still batched
+    List<LogRecord> logRecords = logRecords(150);
+    logRecords.get(120).setDevice(null);
+    assertThrows(NullPointerException.class, () -> exporter.export(batch(logRecords, "1")));
+    assertEquals(0, gpsRows());
+
+    exporter.export(batch(logRecords(30), "2"));
+
+    assertEquals(30, gpsRows());
+    assertEquals("2", exporter.load().get().getLastGpsDataToken());
+  }
+
+  @Test
+  void retriedBatchIsExportedOnce() throws Exception {
+    List<LogRecord> logRecords = logRecords(150);
+    assertThrows(SQLException.class,
+        () -> exporter.export(batch(logRecords, Strings.repeat("1", 100))));
+
+    exporter.export(batch(logRecords, "1"));
+
+    assertEquals(150, gpsRows());
+  }
+
+  @Test
+  void tokensAreSavedWithoutExport() throws Exception {
+    exporter.save(DataFeedParameters.builder().lastTripToken("4").build());
+
+    assertEquals("4", exporter.load().get().getLastTripToken());
+  }
+
+  private long gpsRows() throws SQLException {
+    try (Connection connection = DriverManager.getConnection(jdbcUrl);
+        Statement statement = connection.createStatement();
+        ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM gps_data")) {
+      resultSet.next();
+      return resultSet.getLong(1);
+    }
+  }
+
+  private static DataFeedResult batch(List<LogRecord> logRecords, String gpsToken) {
+    return DataFeedResult.builder()
+        .gpsRecords(logRecords)
+        .feedParameters(DataFeedParameters.builder().lastGpsDataToken(gpsToken).build())
+        .build();
+  }
+
+  private static List<LogRecord> logRecords(int count) {
+    Device device = new Device();
+    device.setId(new Id("b1"));
+    device.setName("Truck, 1");
+    device.setSerialNumber("GT8000000001");
+
+    List<LogRecord> logRecords = new ArrayList<>();
+    LocalDateTime dateTime = LocalDateTime.of(2020, 9, 1, 12, 0);
+    for (int i = 0; i < count; i++) {
+      LogRecord logRecord = new LogRecord();
+      logRecord.setDevice(device);
+      logRecord.setDateTime(dateTime.plusSeconds(i));
+      logRecord.setLongitude(-79.7 + i / 1000d);
+      logRecord.setLatitude(43.5);
+      logRecords.add(logRecord);
+    }
+    return logRecords;
+  }
+}
@@ -0,0 +1,120 @@
+package com.geotab.sdk.datafeed.loader;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.LongSummaryStatistics;
+import org.junit.jupiter.api.Test;
+
+class FeedPollScheduleTest {
+
+  private static final int FULL_PAGE = 100;
+
+  /**
+   * The time which may pass between scheduling and reading the delay.
+   */
+  private static final long SLACK_MILLIS = 200;
+
+  private final FeedPollSchedule schedule = new FeedPollSchedule("LogRecord", FULL_PAGE);
+
+  @Test
+  void newScheduleIsDue() {
+    assertTrue(schedule.isDue());
+  }
+
+  @Test
+  void fullPageIsFollowedRightAway() {
+    schedule.polled(FULL_PAGE, "1");
+
+    assertTrue(schedule.isBehind());
+    assertTrue(schedule.isDue());
+  }
+
+  @Test
+  void fullPageWithoutProgressWaits() {
+    schedule.polled(FULL_PAGE, "1");
+    schedule.polled(FULL_PAGE, "1");
+
+    assertFalse(schedule.isBehind());
+    assertDelay(FeedPollSchedule.BASE_DELAY.toMillis());
+  }
+
+  @Test
+  void partialPageWaitsBaseDelay() {
+    schedule.polled(FULL_PAGE, "1");
+    schedule.polled(FULL_PAGE - 1, "2");
+
+    assertFalse(schedule.isBehind());
+    assertDelay(FeedPollSchedule.BASE_DELAY.toMillis());
+  }
+
+  @Test
+  void emptyPagesDoubleDelayUpToMaximum() {
+    long[] expectedMillis = {1_000, 2_000, 4_000, 8_000, 16_000, 30_000, 30_000};
+    for (long expected : expectedMillis) {
+      schedule.polled(0, null);
+      assertDelay(expected);
+    }
+  }
+
+  @Test
+  void recordsResetIdleBackoff() {
+    for (int i = 0; i < 5; i++) {
+      schedule.polled(0, null);
+    }
+
+    schedule.polled(1, "1");
+
+    assertDelay(FeedPollSchedule.BASE_DELAY.toMillis());
+  }
+
+  @Test
+  void failuresDoubleDelayFromMinimumUpToMaximum() {
+    Duration minimum = Duration.ofSeconds(30);
+    long[] expectedMillis = {30_000, 60_000, 120_000, 240_000, 480_000, 600_000, 600_000};
+    for (long expected : expectedMillis) {
+      schedule.failed(minimum);
+      assertDelay(expected);
+    }
+  }
+
+  @Test
+  void failureMinimumAboveMaximumIsKept() {
+    schedule.failed(Duration.ofMinutes(15));
+
+    assertDelay(Duration.ofMinutes(15).toMillis());
+  }
+
+  @Test
+  void failureStopsCatchUp() {
+    schedule.polled(FULL_PAGE, "1");
+
+    schedule.failed(Duration.ofSeconds(1));
+
+    assertFalse(schedule.isBehind());
+    assertFalse(schedule.isDue());
+  }
+
+  @Test
+  void jitterSpreadsDelaysWithinBounds() {
+    LongSummaryStatistics delays = new LongSummaryStatistics();
+    for (int i = 0; i < 1_000; i++) {
+      schedule.polled(1, String.valueOf(i));
+      delays.accept(assertDelay(FeedPollSchedule.BASE_DELAY.toMillis()));
+    }
+
+    // with a spread of 200 ms either side, 1000 draws all within 50 ms of the base are unlikely
+    assertTrue(delays.getMin() < FeedPollSchedule.BASE_DELAY.toMillis() - 50, delays::toString);
+    assertTrue(delays.getMax() > FeedPollSchedule.BASE_DELAY.toMillis() + 50, delays::toString);
+  }
+
+  private long assertDelay(long expectedMillis) {
+    long delayMillis = schedule.getDelayMillis();
+    long lowest = Math.round(expectedMillis * (1 - FeedPollSchedule.JITTER)) - SLACK_MILLIS;
+    long highest = Math.round(expectedMillis * (1 + FeedPollSchedule.JITTER));
+    assertTrue(delayMillis >= lowest && delayMillis <= highest,
+        () -> delayMillis + " ms not within " + lowest + " and " + highest + " ms");
+    return delayMillis;
+  }
+}
@@ -0,0 +1,103 @@
+package com.geotab.sdk.datafeed.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class LatencyHistogramTest {
+
+  @Test
+  void smallValuesHaveBucketsOfTheirOwn() {
+    for (long micros = 0; micros < 16; micros++) {
+      assertEquals(micros, LatencyHistogram.bucket(micros));
+      assertEquals(micros, LatencyHistogram.bucketMaxMicros((int) micros));
+    }
+  }
+
+  @Test
+  void bucketsAreContiguousUpToLongMax() {
+    int lastBucket = LatencyHistogram.bucket(Long.MAX_VALUE);
+    assertEquals(Long.MAX_VALUE, LatencyHistogram.bucketMaxMicros(lastBucket));
+    for (int bucket = 0; bucket < lastBucket; bucket++) {
+      long maxMicros = LatencyHistogram.bucketMaxMicros(bucket);
+      assertEquals(bucket, LatencyHistogram.bucket(maxMicros));
+      assertEquals(bucket + 1, LatencyHistogram.bucket(maxMicros + 1));
+    }
+  }
+
+  @Test
+  void bucketsAreWithinSixteenthOfTheirValues() {
+    for (long micros = 1; micros > 0 && micros < Long.MAX_VALUE / 2; micros = micros * 3 / 2 + 1) {
+      for (long value = micros; value < micros + 64; value++) {
+        long maxMicros = LatencyHistogram.bucketMaxMicros(LatencyHistogram.bucket(value));
+        assertTrue(maxMicros >= value && maxMicros - value <= value / 16,
+            value + " counted up to " + maxMicros);
+      }
+    }
+  }
+
+  @Test
+  void percentilesAreWithinSixteenthOfTheirValues() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (int millis = 1; millis <= 1000; millis++) {
+      histogram.record(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+    assertEquals(1000, snapshot.getCount());
+    assertEquals(500.5, snapshot.getMeanMillis(), 1e-9);
+    assertEquals(1000, snapshot.getMaxMillis(), 1e-9);
+    assertWithinSixteenth(500, snapshot.getP50Millis());
+    assertWithinSixteenth(900, snapshot.getP90Millis());
+    assertWithinSixteenth(990, snapshot.getP99Millis());
+    // never above the largest value recorded
+    assertEquals(1000, snapshot.getP999Millis(), 1e-9);
+    assertEquals(1000, snapshot.percentileMillis(100), 1e-9);
+  }
+
+  @Test
+  void emptyHistogramReadsZero() {
+    LatencyHistogram.Snapshot snapshot = new LatencyHistogram().snapshot();
+
+    assertEquals(0, snapshot.getCount());
+    assertEquals(0, snapshot.getMeanMillis());
+    assertEquals(0, snapshot.getP99Millis());
+  }
+
+  @Test
+  void negativeLatencyIsCountedAsZero() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    histogram.record(-1_000);
+
+    assertEquals(1, histogram.snapshot().getCount());
+    assertEquals(0, histogram.snapshot().getMaxMillis());
+  }
+
+  @Test
+  void differenceHoldsLatenciesOfTheInterval() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (int i = 0; i < 100; i++) {
+      histogram.record(TimeUnit.MILLISECONDS.toNanos(1_000));
+    }
+    LatencyHistogram.Snapshot earlier = histogram.snapshot();
+    for (int i = 0; i < 10; i++) {
+      histogram.record(TimeUnit.MILLISECONDS.toNanos(10));
+    }
+
+    LatencyHistogram.Snapshot interval = histogram.snapshot().minus(earlier);
+
+    assertEquals(10, interval.getCount());
+    assertEquals(10, interval.getMeanMillis(), 1e-9);
+    assertWithinSixteenth(10, interval.getP99Millis());
+    assertWithinSixteenth(10, interval.getMaxMillis());
+    assertEquals(0, histogram.snapshot().minus(histogram.snapshot()).getCount());
+  }
+
+  private static void assertWithinSixteenth(double expected, double actual) {
+    assertTrue(actual >= expected && actual <= expected * 17 / 16,
+        actual + " not within 1/16 above " + expected);
+  }
+}
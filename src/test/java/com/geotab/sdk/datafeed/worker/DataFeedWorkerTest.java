@@ -0,0 +1,209 @@
+package com.geotab.sdk.datafeed.worker;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.geotab.model.login.Credentials;
+import com.geotab.sdk.datafeed.checkpoint.CheckpointStore;
+import com.geotab.sdk.datafeed.exporter.Exporter;
+import com.geotab.sdk.datafeed.loader.DataFeedLoader;
+import com.geotab.sdk.datafeed.loader.DataFeedParameters;
+import com.geotab.sdk.datafeed.loader.DataFeedResult;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class DataFeedWorkerTest {
+
+  private static final long TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(20);
+
+  @ParameterizedTest
+  @ValueSource(ints = {0, 2})
+  void checkpointIsSavedAfterEachExport(int exportQueueSize) throws Exception {
+    RecordingExporter exporter = new RecordingExporter();
+    RecordingCheckpointStore checkpointStore = new RecordingCheckpointStore(exporter);
+
+    DataFeedWorker worker = new DataFeedWorker(new StubLoader(batches(3)), exporter,
+        checkpointStore, exportQueueSize);
+    runUntil(worker, () -> checkpointStore.saved.size() == 3);
+
+    assertEquals(Arrays.asList("1", "2", "3"), exporter.exported);
+    assertEquals(Arrays.asList("1", "2", "3"), checkpointStore.saved);
+    assertEquals("3", worker.getExportedParameters().getLastGpsDataToken());
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {0, 2})
+  void failedExportIsRetriedBeforeItsCheckpointIsSaved(int exportQueueSize) throws Exception {
+    RecordingExporter exporter = new RecordingExporter();
+    exporter.failures.add("2");
+    exporter.failures.add("2");
+    RecordingCheckpointStore checkpointStore = new RecordingCheckpointStore(exporter);
+
+    DataFeedWorker worker = new DataFeedWorker(new StubLoader(batches(3)), exporter,
+        checkpointStore, exportQueueSize);
+    runUntil(worker, () -> checkpointStore.saved.size() == 3);
+
+    assertEquals(Arrays.asList("2", "2"), exporter.failed);
+    assertEquals(Arrays.asList("1", "2", "3"), exporter.exported);
+    assertEquals(Arrays.asList("1", "2", "3"), checkpointStore.saved);
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {0, 2})
+  void checkpointIsNotAdvancedPastFailedExportWhenStopped(int exportQueueSize)
+      throws Exception {
+    RecordingExporter exporter = new RecordingExporter();
+    exporter.failAlways = "2";
+    RecordingCheckpointStore checkpointStore = new RecordingCheckpointStore(exporter);
+
+    DataFeedWorker worker = new DataFeedWorker(new StubLoader(batches(3)), exporter,
+        checkpointStore, exportQueueSize);
+    runUntil(worker, () -> !exporter.failed.isEmpty());
+
+    assertEquals(Arrays.asList("1"), exporter.exported);
+    assertEquals(Arrays.asList("1"), checkpointStore.saved);
+    assertEquals("1", worker.getExportedParameters().getLastGpsDataToken());
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {0, 2})
+  void batchWithoutTokensIsNotCheckpointed(int exportQueueSize) throws Exception {
+    List<DataFeedResult> batches = batches(2);
+    batches.add(1, DataFeedResult.builder().build());
+    RecordingExporter exporter = new RecordingExporter();
+    RecordingCheckpointStore checkpointStore = new RecordingCheckpointStore(exporter);
+
+    DataFeedWorker worker = new DataFeedWorker(new StubLoader(batches), exporter,
+        checkpointStore, exportQueueSize);
+    runUntil(worker, () -> checkpointStore.saved.size() == 2);
+
+    assertEquals(Arrays.asList("1", null, "2"), exporter.exported);
+    assertEquals(Arrays.asList("1", "2"), checkpointStore.saved);
+  }
+
+  private static void runUntil(DataFeedWorker worker, Condition condition) throws Exception {
+    worker.start();
+    try {
+      long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+      while (!condition.isMet() && System.currentTimeMillis() < deadline) {
+        Thread.sleep(10);
+      }
+      assertTrue(condition.isMet(), "Worker timed out");
+    } finally {
+      worker.shutdown();
+      worker.join(TIMEOUT_MILLIS);
+    }
+  }
+
+  private static List<DataFeedResult> batches(int count) {
+    return IntStream.rangeClosed(1, count)
+        .mapToObj(token -> DataFeedResult.builder()
+            .feedParameters(DataFeedParameters.builder()
+                .lastGpsDataToken(String.valueOf(token))
+                .build())
+            .build())
+        .collect(Collectors.toCollection(ArrayList::new));
+  }
+
+  private static String token(DataFeedResult dataFeedResult) {
+    return dataFeedResult.getFeedParameters() != null
+        ? dataFeedResult.getFeedParameters().getLastGpsDataToken() : null;
+  }
+
+  private interface Condition {
+
+    boolean isMet();
+  }
+
+  /**
+   * Loads the given batches, then has nothing due.
+   */
+  private static class StubLoader extends DataFeedLoader {
+
+    private final Queue<DataFeedResult> batches;
+
+    StubLoader(List<DataFeedResult> batches) {
+      super("my.geotab.com", Credentials.builder().database("database").userName("user")
+          .password("password").build(), new DataFeedParameters());
+      this.batches = new ConcurrentLinkedQueue<>(batches);
+    }
+
+    @Override
+    public long getNextPollDelayMillis() {
+      return batches.isEmpty() ? 100 : 0;
+    }
+
+    @Override
+    public DataFeedResult load() {
+      return batches.poll();
+    }
+
+    @Override
+    public void stop() {
+      // nothing was started
+    }
+  }
+
+  /**
+   * Fails the export of a token once per listed failure, or always.
+   */
+  private static class RecordingExporter implements Exporter {
+
+    private final List<String> failures = new CopyOnWriteArrayList<>();
+
+    private volatile String failAlways;
+
+    private final List<String> failed = new CopyOnWriteArrayList<>();
+
+    private final List<String> exported = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void export(DataFeedResult dataFeedResult) throws IOException {
+      String token = token(dataFeedResult);
+      if (token != null && (token.equals(failAlways) || failures.remove(token))) {
+        failed.add(token);
+        throw new IOException("Export of " + token + " failed");
+      }
+      exported.add(token);
+    }
+  }
+
+  /**
+   * Records the saved tokens, checking each belongs to a batch already exported.
+   */
+  private static class RecordingCheckpointStore implements CheckpointStore {
+
+    private final RecordingExporter exporter;
+
+    private final List<String> saved = new CopyOnWriteArrayList<>();
+
+    RecordingCheckpointStore(RecordingExporter exporter) {
+      this.exporter = exporter;
+    }
+
+    @Override
+    public Optional<DataFeedParameters> load() {
+      return Optional.empty();
+    }
+
+    @Override
+    public void save(DataFeedParameters dataFeedParameters) {
+      String token = dataFeedParameters.getLastGpsDataToken();
+      if (!exporter.exported.contains(token)) {
+        throw new IllegalStateException("Checkpoint " + token + " saved before its export");
+      }
+      saved.add(token);
+    }
+  }
+}